@@ -2,9 +2,12 @@ package client.core;
 
 import client.core.messages.MessageReceiver;
 import config.ConfigHandler;
+import protocol.BinaryProtocol;
+import protocol.FrameEncoder;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -59,6 +62,10 @@ public class Client {
      * An executor service for handling message receivers for each client.
      */
     protected ExecutorService messageReceiverExecutor;
+    /**
+     * Whether new clients switch to the binary protocol after connecting.
+     */
+    protected boolean binaryProtocol;
 
     /**
      * Creates a new `Client` instance with the specified configuration.
@@ -74,6 +81,7 @@ public class Client {
         this.clients = new HashMap<>();
         this.timer = new Timer();
         this.messageReceiverExecutor = Executors.newCachedThreadPool();
+        this.binaryProtocol = "binary".equalsIgnoreCase(configHandler.getString("protocol"));
     }
 
     /**
@@ -235,11 +243,17 @@ public class Client {
                 // Create a new client socket
                 Socket socket = new Socket(ip, port);
 
-                // Send the message from the new client
-                sendMessage(socket, ms);
+                String response;
+                if (binaryProtocol) {
+                    // Ask for the binary protocol and wait for the server response
+                    response = sendBinaryHandshake(socket, ms + ":" + BinaryProtocol.HANDSHAKE_FIELD);
+                } else {
+                    // Send the message from the new client
+                    sendMessage(socket, ms);
 
-                // Wait for the server response
-                String response = receiveMessage(socket);
+                    // Wait for the server response
+                    response = receiveMessage(socket);
+                }
 
                 // Check if the server replied with null
                 if (response != null) {
@@ -287,6 +301,10 @@ public class Client {
      * @param message The message to be sent.
      */
     private void sendMessage(Socket socket, String message) {
+        if (binaryProtocol) {
+            sendFrame(socket, message);
+            return;
+        }
         try {
             // Writing to the server
             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
@@ -320,6 +338,69 @@ public class Client {
         }
     }
 
+    /**
+     * Sends the `newClient` message asking for the binary protocol and waits for its reply. The reply is read byte by
+     * byte, so none of the frames following it are consumed here.
+     *
+     * @param socket  The socket connected to the server.
+     * @param message The `newClient` message ending with the binary protocol field.
+     * @return The server's reply, or null if the connection was closed before the reply.
+     */
+    private String sendBinaryHandshake(Socket socket, String message) {
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String response = new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                line.reset();
+                // Pings sent before the reply are still text lines
+                if (!"Ping".equalsIgnoreCase(response)) {
+                    System.out.println("Server replied: " + response);
+                    return response;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Sends a message to the server as a binary frame. A message prefixed with `@id:` is sent with that request id.
+     * The reply is displayed by the client's message receiver.
+     *
+     * @param socket  The socket connected to the server.
+     * @param message The message to be sent, in the text format.
+     */
+    private void sendFrame(Socket socket, String message) {
+        int requestId = 0;
+        int separator = message.indexOf(':');
+        if (message.startsWith("@") && separator > 1) {
+            try {
+                requestId = Integer.parseInt(message.substring(1, separator));
+                message = message.substring(separator + 1);
+            } catch (NumberFormatException e) {
+                requestId = 0;
+            }
+        }
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(FrameEncoder.encodeTextMessage(requestId, message));
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Closes a client connection and removes it from the client map.
      *
@@ -361,7 +442,7 @@ public class Client {
      */
     private void startMessageReceiver(Socket socket, String clientNumber) {
         // Create a new message receiver thread for the client
-        messageReceiverExecutor.execute(new MessageReceiver(socket, clientNumber));
+        messageReceiverExecutor.execute(new MessageReceiver(socket, clientNumber, binaryProtocol));
     }
 
     /**
@@ -397,6 +478,8 @@ public class Client {
                 configHandler.overrideProperty("log_file_dir", args[i + 1]);
             } else if(args[i].equals("--test-mode") || args[i].equals("-e")) {
                 configHandler.overrideProperty("test_mode", args[i + 1]);
+            } else if(args[i].equals("--protocol") || args[i].equals("-p")) {
+                configHandler.overrideProperty("protocol", args[i + 1]);
             } else {
                 System.out.println("Unknown argument: " + args[i]);
             }
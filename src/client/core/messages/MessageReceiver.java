@@ -1,7 +1,12 @@
 package client.core.messages;
 
+import protocol.BinaryProtocol;
+import protocol.FrameDecoder;
+
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.Socket;
 
@@ -23,16 +28,22 @@ public class MessageReceiver implements Runnable {
      * A unique identifier for the client.
      */
     private final String clientNumber;
+    /**
+     * Whether the client uses the binary protocol.
+     */
+    private final boolean binary;
 
     /**
      * Constructs a new MessageReceiver instance.
      *
      * @param socket       The Socket object representing the client-server connection.
      * @param clientNumber A unique identifier for the client.
+     * @param binary       Whether the client uses the binary protocol.
      */
-    public MessageReceiver(Socket socket, String clientNumber) {
+    public MessageReceiver(Socket socket, String clientNumber, boolean binary) {
         this.socket = socket;
         this.clientNumber = clientNumber;
+        this.binary = binary;
     }
 
     /**
@@ -40,10 +51,15 @@ public class MessageReceiver implements Runnable {
      */
     @Override
     public void run() {
+        if (binary) {
+            receiveFrames();
+            return;
+        }
         try {
             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             String message;
             while ((message = in.readLine()) != null) {
+                message = readPage(in, message);
                 if (!"Ping".equalsIgnoreCase(message)) {
                     // Display messages from the server as soon as they are received (excluding "Ping")
                     System.out.println("Client " + clientNumber + " received: " + message);
@@ -54,4 +70,55 @@ public class MessageReceiver implements Runnable {
             System.out.println("Client " + clientNumber + " disconnected.");
         }
     }
+
+    /**
+     * Reads the element lines of a page of a bulk result, so the page is displayed as one response. A page starts with
+     * a header line `page:COUNT:NEXT`, which may be preceded by a request id, followed by `COUNT` element lines.
+     *
+     * @param in     The reader of the connection.
+     * @param header The line just read.
+     * @return The line itself if it is not the header of a page, otherwise the header and the elements of the page.
+     * @throws IOException If the connection fails.
+     */
+    private static String readPage(BufferedReader in, String header) throws IOException {
+        String[] parts = header.split(":");
+        int index = parts.length > 0 && parts[0].startsWith("@") ? 1 : 0;
+        if (parts.length != index + 3 || !"page".equals(parts[index])) {
+            return header;
+        }
+        int count;
+        try {
+            count = Integer.parseInt(parts[index + 1]);
+        } catch (NumberFormatException e) {
+            return header;
+        }
+        StringBuilder page = new StringBuilder(header);
+        String line;
+        for (int i = 0; i < count && (line = in.readLine()) != null; i++) {
+            page.append('\n').append(line);
+        }
+        return page.toString();
+    }
+
+    /**
+     * Listens for binary response frames from the server and displays them as text.
+     */
+    private void receiveFrames() {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            byte[] frame;
+            while ((frame = FrameDecoder.readFrame(in, BinaryProtocol.MAX_FRAME_LENGTH)) != null) {
+                FrameDecoder decoder = new FrameDecoder(frame);
+                String message = ResponseDecoder.toText(decoder);
+                if (!"Ping".equalsIgnoreCase(message)) {
+                    // Responses to requests with an id are shown with their id, like in the text protocol
+                    String prefix = decoder.getRequestId() != 0 ? "@" + decoder.getRequestId() + ":" : "";
+                    System.out.println("Client " + clientNumber + " received: " + prefix + message);
+                }
+            }
+        } catch (IOException e) {
+            // Handle exceptions, e.g., connection closed
+        }
+        System.out.println("Client " + clientNumber + " disconnected.");
+    }
 }
@@ -0,0 +1,141 @@
+package client.core.messages;
+
+import protocol.BinaryProtocol;
+import protocol.FrameDecoder;
+
+import java.net.ProtocolException;
+
+/**
+ * The ResponseDecoder class turns binary response frames from the server into readable text, in the same format the
+ * server uses for the text protocol.
+ *
+ * @author Tomasz Zbroszczyk
+ * @version 1.0
+ * @since 18.10.2026
+ */
+public final class ResponseDecoder {
+    /**
+     * Prevents instantiation.
+     */
+    private ResponseDecoder() {}
+
+    /**
+     * Decodes the value of a response frame as text.
+     *
+     * @param decoder The decoder positioned at the value of the frame.
+     * @return The value as text.
+     * @throws ProtocolException If the frame is malformed.
+     */
+    public static String toText(FrameDecoder decoder) throws ProtocolException {
+        StringBuilder text = new StringBuilder();
+        appendValue(decoder, text);
+        return text.toString();
+    }
+
+    /**
+     * Decodes a single tagged value and appends it to the text.
+     *
+     * @param decoder The decoder positioned at the value.
+     * @param text    The text to append to.
+     * @throws ProtocolException If the value is malformed.
+     */
+    private static void appendValue(FrameDecoder decoder, StringBuilder text) throws ProtocolException {
+        byte tag = decoder.readTag();
+        switch (tag) {
+            case BinaryProtocol.TAG_KEYWORD:
+                text.append(BinaryProtocol.KEYWORDS[decoder.readRawKeyword()]);
+                break;
+            case BinaryProtocol.TAG_INT:
+                text.append(decoder.readRawInt());
+                break;
+            case BinaryProtocol.TAG_STRING:
+                text.append(decoder.readRawString());
+                break;
+            case BinaryProtocol.TAG_USER:
+                text.append("User [id=").append(decoder.readRawInt())
+                        .append(", username=").append(decoder.readRawString()).append(']');
+                break;
+            case BinaryProtocol.TAG_QUESTION: {
+                text.append("Question [id=").append(decoder.readRawInt())
+                        .append(", type=").append(decoder.readRawString());
+                String question = decoder.readRawString();
+                text.append(", correct_answer=").append(decoder.readRawString())
+                        .append(", question=").append(question).append(", answers=[");
+                int answers = decoder.readRawShort();
+                for (int i = 0; i < answers; i++) {
+                    text.append(i > 0 ? ", " : "").append(decoder.readRawString());
+                }
+                text.append("]]");
+                break;
+            }
+            case BinaryProtocol.TAG_RELATION:
+                text.append("Relation [id=").append(decoder.readRawInt())
+                        .append(", user1Id=").append(decoder.readRawInt())
+                        .append(", user2Id=").append(decoder.readRawInt())
+                        .append(", totalQuestionsAnswered=").append(decoder.readRawInt())
+                        .append(", correctQuestionsAnswered=").append(decoder.readRawInt())
+                        .append(", questionsAnsweredByUser1=");
+                appendIds(decoder, text);
+                text.append(", questionsAnsweredByUser2=");
+                appendIds(decoder, text);
+                text.append(", questionsUnansweredByUser1=");
+                appendAnswers(decoder, text);
+                text.append(", questionsUnansweredByUser2=");
+                appendAnswers(decoder, text);
+                text.append(']');
+                break;
+            case BinaryProtocol.TAG_LIST: {
+                int size = decoder.readRawInt();
+                for (int i = 0; i < size; i++) {
+                    appendValue(decoder, text);
+                    text.append('\n');
+                }
+                break;
+            }
+            case BinaryProtocol.TAG_PAGE: {
+                int next = decoder.readRawInt();
+                int size = decoder.readRawInt();
+                text.append("page:").append(size).append(':').append(next < 0 ? "end" : String.valueOf(next)).append('\n');
+                for (int i = 0; i < size; i++) {
+                    appendValue(decoder, text);
+                    text.append('\n');
+                }
+                break;
+            }
+            default:
+                throw new ProtocolException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Decodes an untagged list of question ids.
+     *
+     * @param decoder The decoder positioned at the list.
+     * @param text    The text to append to.
+     * @throws ProtocolException If the list is malformed.
+     */
+    private static void appendIds(FrameDecoder decoder, StringBuilder text) throws ProtocolException {
+        int size = decoder.readRawShort();
+        text.append('[');
+        for (int i = 0; i < size; i++) {
+            text.append(i > 0 ? ", " : "").append(decoder.readRawInt());
+        }
+        text.append(']');
+    }
+
+    /**
+     * Decodes an untagged map of question ids to answers.
+     *
+     * @param decoder The decoder positioned at the map.
+     * @param text    The text to append to.
+     * @throws ProtocolException If the map is malformed.
+     */
+    private static void appendAnswers(FrameDecoder decoder, StringBuilder text) throws ProtocolException {
+        int size = decoder.readRawShort();
+        text.append('{');
+        for (int i = 0; i < size; i++) {
+            text.append(i > 0 ? ", " : "").append(decoder.readRawInt()).append('=').append(decoder.readRawString());
+        }
+        text.append('}');
+    }
+}
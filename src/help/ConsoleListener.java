@@ -157,4 +157,19 @@ class TeeOutputStream extends OutputStream {
         out1.write(b);
         out2.write(b);
     }
+
+    /**
+     * Writes a range of bytes to both output streams at once, so a logged line costs one write per stream instead of
+     * one write per byte.
+     *
+     * @param b   The bytes to write.
+     * @param off The offset of the first byte to write.
+     * @param len The number of bytes to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out1.write(b, off, len);
+        out2.write(b, off, len);
+    }
 }
@@ -0,0 +1,197 @@
+package protocol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The `BinaryProtocol` class holds the constants of the binary wire protocol shared by the client and the server.
+ * <p>
+ * A client asks for the binary protocol by ending its `newClient` message with the `protocol=binary` field. The reply
+ * to that message is still a text line; everything sent afterwards in both directions is a frame:
+ * <pre>
+ * int32 length | int32 requestId | values...
+ * </pre>
+ * where `length` counts the bytes following it. A request id of 0 means the request is answered in order, any other
+ * id is processed like a text request prefixed with `@id:` and the response frame carries the same id. Every value
+ * starts with a one byte tag: requests are a sequence of keyword, int and string values mirroring the `:` separated
+ * parts of the text message, responses are a single value.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class BinaryProtocol {
+    /**
+     * The last field of a `newClient` message asking for the binary protocol.
+     */
+    public static final String HANDSHAKE_FIELD = "protocol=binary";
+    /**
+     * The maximum length of a frame, not counting the length prefix.
+     */
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+    /**
+     * The maximum length of a request frame accepted by the server, not counting the length prefix.
+     */
+    public static final int MAX_REQUEST_LENGTH = 64 * 1024;
+
+    /**
+     * A keyword, encoded as its one byte index in `KEYWORDS`.
+     */
+    public static final byte TAG_KEYWORD = 1;
+    /**
+     * A 32-bit signed integer.
+     */
+    public static final byte TAG_INT = 2;
+    /**
+     * A string, encoded as its unsigned 16-bit UTF-8 length followed by the UTF-8 bytes.
+     */
+    public static final byte TAG_STRING = 3;
+    /**
+     * A user: int id, string username.
+     */
+    public static final byte TAG_USER = 16;
+    /**
+     * A question: int id, string type, string question, string correct answer, u16 count and the answers.
+     */
+    public static final byte TAG_QUESTION = 17;
+    /**
+     * A relation: int id, user 1 id, user 2 id, total and correct answers, the questions answered by both users
+     * (u16 count and ints each) and the pending answers of both users (u16 count and int question id, string answer
+     * pairs each).
+     */
+    public static final byte TAG_RELATION = 18;
+    /**
+     * A list: int32 count followed by the values.
+     */
+    public static final byte TAG_LIST = 19;
+    /**
+     * A page of a bulk result: int32 cursor of the next page, -1 on the last page, int32 count followed by the values.
+     */
+    public static final byte TAG_PAGE = 20;
+
+    /**
+     * The keywords of the protocol. The index of a keyword is its wire id, so new keywords are only ever appended.
+     */
+    public static final String[] KEYWORDS = {
+            "exit", "newClient", "newUser", "login", "getUser", "getQuestion", "addQuestion", "answerQuestion",
+            "addRelation", "getRelation", "updateRelation", "getRelations", "getRelationQuestions",
+            "relationAddQuestionAnswer", "answerRelationQuestion", "id", "username", "random", "users", "userId", "all",
+            "questionId"
+    };
+
+    /**
+     * The wire id of the `exit` keyword.
+     */
+    public static final int KEYWORD_EXIT = 0;
+    /**
+     * The wire id of the `newClient` keyword.
+     */
+    public static final int KEYWORD_NEW_CLIENT = 1;
+    /**
+     * The wire id of the `newUser` keyword.
+     */
+    public static final int KEYWORD_NEW_USER = 2;
+    /**
+     * The wire id of the `login` keyword.
+     */
+    public static final int KEYWORD_LOGIN = 3;
+    /**
+     * The wire id of the `getUser` keyword.
+     */
+    public static final int KEYWORD_GET_USER = 4;
+    /**
+     * The wire id of the `getQuestion` keyword.
+     */
+    public static final int KEYWORD_GET_QUESTION = 5;
+    /**
+     * The wire id of the `addQuestion` keyword.
+     */
+    public static final int KEYWORD_ADD_QUESTION = 6;
+    /**
+     * The wire id of the `answerQuestion` keyword.
+     */
+    public static final int KEYWORD_ANSWER_QUESTION = 7;
+    /**
+     * The wire id of the `addRelation` keyword.
+     */
+    public static final int KEYWORD_ADD_RELATION = 8;
+    /**
+     * The wire id of the `getRelation` keyword.
+     */
+    public static final int KEYWORD_GET_RELATION = 9;
+    /**
+     * The wire id of the `updateRelation` keyword.
+     */
+    public static final int KEYWORD_UPDATE_RELATION = 10;
+    /**
+     * The wire id of the `getRelations` keyword.
+     */
+    public static final int KEYWORD_GET_RELATIONS = 11;
+    /**
+     * The wire id of the `getRelationQuestions` keyword.
+     */
+    public static final int KEYWORD_GET_RELATION_QUESTIONS = 12;
+    /**
+     * The wire id of the `relationAddQuestionAnswer` keyword.
+     */
+    public static final int KEYWORD_RELATION_ADD_QUESTION_ANSWER = 13;
+    /**
+     * The wire id of the `answerRelationQuestion` keyword.
+     */
+    public static final int KEYWORD_ANSWER_RELATION_QUESTION = 14;
+    /**
+     * The wire id of the `id` keyword.
+     */
+    public static final int KEYWORD_ID = 15;
+    /**
+     * The wire id of the `username` keyword.
+     */
+    public static final int KEYWORD_USERNAME = 16;
+    /**
+     * The wire id of the `random` keyword.
+     */
+    public static final int KEYWORD_RANDOM = 17;
+    /**
+     * The wire id of the `users` keyword.
+     */
+    public static final int KEYWORD_USERS = 18;
+    /**
+     * The wire id of the `userId` keyword.
+     */
+    public static final int KEYWORD_USER_ID = 19;
+    /**
+     * The wire id of the `all` keyword.
+     */
+    public static final int KEYWORD_ALL = 20;
+    /**
+     * The wire id of the `questionId` keyword.
+     */
+    public static final int KEYWORD_QUESTION_ID = 21;
+
+    /**
+     * The wire ids of the keywords by name.
+     */
+    private static final Map<String, Integer> KEYWORD_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            KEYWORD_IDS.put(KEYWORDS[i], i);
+        }
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private BinaryProtocol() {}
+
+    /**
+     * Gets the wire id of a keyword.
+     *
+     * @param keyword The keyword.
+     * @return The wire id of the keyword, or -1 if it is not a keyword of the protocol.
+     */
+    public static int keywordId(String keyword) {
+        Integer id = KEYWORD_IDS.get(keyword);
+        return id == null ? -1 : id;
+    }
+}
@@ -0,0 +1,167 @@
+package protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The `FrameDecoder` class reads the values of a single frame of the binary protocol in place. It is positioned right
+ * after the request id, which is read by the constructor.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class FrameDecoder {
+    /**
+     * The frame, without its length prefix.
+     */
+    private final ByteBuffer frame;
+    /**
+     * The request id of the frame.
+     */
+    private final int requestId;
+
+    /**
+     * Constructs a `FrameDecoder` for the given frame.
+     *
+     * @param frame The frame, without its length prefix.
+     * @throws ProtocolException If the frame is too short to hold a request id.
+     */
+    public FrameDecoder(byte[] frame) throws ProtocolException {
+        if (frame.length < 4) {
+            throw new ProtocolException("Frame too short: " + frame.length);
+        }
+        this.frame = ByteBuffer.wrap(frame);
+        this.requestId = this.frame.getInt();
+    }
+
+    /**
+     * Reads one frame from a stream.
+     *
+     * @param in        The stream.
+     * @param maxLength The maximum accepted length of the frame.
+     * @return The frame without its length prefix, or `null` if the stream ended before a new frame.
+     * @throws IOException If an I/O error occurs, the stream ends inside a frame or the frame is too long.
+     */
+    public static byte[] readFrame(InputStream in, int maxLength) throws IOException {
+        int length = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b < 0) {
+                if (i == 0) {
+                    return null;
+                }
+                throw new EOFException("Stream ended inside a frame length");
+            }
+            length = (length << 8) | b;
+        }
+        if (length < 0 || length > maxLength) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+        byte[] frame = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(frame, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Stream ended inside a frame");
+            }
+            read += n;
+        }
+        return frame;
+    }
+
+    /**
+     * Gets the request id of the frame.
+     *
+     * @return The request id, 0 for a request answered in order.
+     */
+    public int getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Checks whether the frame has more values.
+     *
+     * @return `true` if there are unread bytes, `false` otherwise.
+     */
+    public boolean hasRemaining() {
+        return frame.hasRemaining();
+    }
+
+    /**
+     * Reads the tag of the next value.
+     *
+     * @return The tag.
+     * @throws ProtocolException If the frame has no more bytes.
+     */
+    public byte readTag() throws ProtocolException {
+        try {
+            return frame.get();
+        } catch (BufferUnderflowException e) {
+            throw new ProtocolException("Frame truncated");
+        }
+    }
+
+    /**
+     * Reads an untagged keyword id.
+     *
+     * @return The keyword id.
+     * @throws ProtocolException If the frame has no more bytes or the keyword is unknown.
+     */
+    public int readRawKeyword() throws ProtocolException {
+        int keywordId = readTag() & 0xFF;
+        if (keywordId >= BinaryProtocol.KEYWORDS.length) {
+            throw new ProtocolException("Unknown keyword: " + keywordId);
+        }
+        return keywordId;
+    }
+
+    /**
+     * Reads an untagged unsigned 16-bit number.
+     *
+     * @return The number.
+     * @throws ProtocolException If the frame is truncated.
+     */
+    public int readRawShort() throws ProtocolException {
+        try {
+            return frame.getShort() & 0xFFFF;
+        } catch (BufferUnderflowException e) {
+            throw new ProtocolException("Frame truncated");
+        }
+    }
+
+    /**
+     * Reads an untagged int.
+     *
+     * @return The int.
+     * @throws ProtocolException If the frame is truncated.
+     */
+    public int readRawInt() throws ProtocolException {
+        try {
+            return frame.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new ProtocolException("Frame truncated");
+        }
+    }
+
+    /**
+     * Reads an untagged string.
+     *
+     * @return The string.
+     * @throws ProtocolException If the frame is truncated.
+     */
+    public String readRawString() throws ProtocolException {
+        int length = readRawShort();
+        if (length > frame.remaining()) {
+            throw new ProtocolException("Frame truncated");
+        }
+        String value = new String(frame.array(), frame.arrayOffset() + frame.position(), length, StandardCharsets.UTF_8);
+        frame.position(frame.position() + length);
+        return value;
+    }
+}
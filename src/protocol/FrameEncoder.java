@@ -0,0 +1,202 @@
+package protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The `FrameEncoder` class builds a single frame of the binary protocol. The length prefix and the request id are
+ * reserved up front and the length is filled in by `toByteArray()`, so a frame is built in one buffer without copying
+ * its values.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class FrameEncoder {
+    /**
+     * The bytes of the frame.
+     */
+    private byte[] bytes;
+    /**
+     * The number of bytes written.
+     */
+    private int size;
+
+    /**
+     * Constructs a `FrameEncoder` for a frame with the given request id.
+     *
+     * @param requestId The request id of the frame, 0 for a request answered in order.
+     */
+    public FrameEncoder(int requestId) {
+        this.bytes = new byte[64];
+        this.size = 4;
+        writeRawInt(requestId);
+    }
+
+    /**
+     * Encodes a text message as a request frame. Every `:` separated part becomes a keyword if it is one, an int if it
+     * is a number and a string otherwise.
+     *
+     * @param requestId The request id of the frame, 0 for a request answered in order.
+     * @param message   The text message.
+     * @return The encoded frame.
+     */
+    public static byte[] encodeTextMessage(int requestId, String message) {
+        FrameEncoder encoder = new FrameEncoder(requestId);
+        for (String part : message.split(":", -1)) {
+            int keywordId = BinaryProtocol.keywordId(part);
+            if (keywordId >= 0) {
+                encoder.writeKeyword(keywordId);
+            } else if (isInt(part)) {
+                encoder.writeInt(Integer.parseInt(part));
+            } else {
+                encoder.writeString(part);
+            }
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encodes a frame holding a single string.
+     *
+     * @param requestId The request id of the frame.
+     * @param message   The string.
+     * @return The encoded frame.
+     */
+    public static byte[] encodeString(int requestId, String message) {
+        FrameEncoder encoder = new FrameEncoder(requestId);
+        encoder.writeString(message);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Writes a tagged keyword.
+     *
+     * @param keywordId The wire id of the keyword.
+     */
+    public void writeKeyword(int keywordId) {
+        writeTag(BinaryProtocol.TAG_KEYWORD);
+        ensureCapacity(1);
+        bytes[size++] = (byte) keywordId;
+    }
+
+    /**
+     * Writes a tagged int.
+     *
+     * @param value The int.
+     */
+    public void writeInt(int value) {
+        writeTag(BinaryProtocol.TAG_INT);
+        writeRawInt(value);
+    }
+
+    /**
+     * Writes a tagged string.
+     *
+     * @param value The string.
+     */
+    public void writeString(String value) {
+        writeTag(BinaryProtocol.TAG_STRING);
+        writeRawString(value);
+    }
+
+    /**
+     * Writes the tag of a value.
+     *
+     * @param tag The tag.
+     */
+    public void writeTag(byte tag) {
+        ensureCapacity(1);
+        bytes[size++] = tag;
+    }
+
+    /**
+     * Writes an untagged unsigned 16-bit number.
+     *
+     * @param value The number.
+     */
+    public void writeRawShort(int value) {
+        if (value < 0 || value > 0xFFFF) {
+            throw new IllegalArgumentException("Value does not fit in 16 bits: " + value);
+        }
+        ensureCapacity(2);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an untagged int.
+     *
+     * @param value The int.
+     */
+    public void writeRawInt(int value) {
+        ensureCapacity(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an untagged string.
+     *
+     * @param value The string.
+     */
+    public void writeRawString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeRawShort(utf8.length);
+        ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, bytes, size, utf8.length);
+        size += utf8.length;
+    }
+
+    /**
+     * Fills in the length prefix and returns the frame.
+     *
+     * @return The encoded frame.
+     * @throws IllegalStateException If the frame is longer than `MAX_FRAME_LENGTH`.
+     */
+    public byte[] toByteArray() {
+        int length = size - 4;
+        if (length > BinaryProtocol.MAX_FRAME_LENGTH) {
+            throw new IllegalStateException("Frame too long: " + length);
+        }
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Grows the buffer to fit the given number of additional bytes.
+     *
+     * @param additional The number of bytes about to be written.
+     */
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+
+    /**
+     * Checks whether a part of a text message is an int.
+     *
+     * @param part The part of the text message.
+     * @return `true` if the part is an int written the way `Integer.toString` writes it, so it reads back unchanged
+     * as a string (`007` stays a string), `false` otherwise.
+     */
+    private static boolean isInt(String part) {
+        int start = part.startsWith("-") ? 1 : 0;
+        if (part.length() == start || part.length() > start + 9) {
+            return false;
+        }
+        for (int i = start; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return Integer.toString(Integer.parseInt(part)).equals(part);
+    }
+}
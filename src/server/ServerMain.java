@@ -2,10 +2,18 @@ package server;
 
 import config.ConfigHandler;
 import server.core.Server;
+import server.database.Compactable;
+import server.database.DatabaseCompactor;
 import server.database.questionDatabase.QuestionDatabaseHandler;
 import server.database.relationDatabase.RelationDatabaseHandler;
 import server.database.userDatabase.UserDatabaseHandler;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
 import static help.ConsoleListener.startConsoleListener;
 import static help.ConsoleListener.stopConsoleListener;
 
@@ -34,9 +42,31 @@ public class ServerMain extends Server {
         startConsoleListener(configHandler.getString("log_file_dir"), configHandler.getString("log_file"), configHandler.getInt("max_log_files"));
 
         // Initialize databases
-        userDatabaseHandler = new UserDatabaseHandler(configHandler.getString("user_database_dir"));
-        questionDatabaseHandler = new QuestionDatabaseHandler(configHandler.getString("question_database_dir"));
-        relationDatabaseHandler = new RelationDatabaseHandler(configHandler.getString("relation_database_dir")); //TODO: add relation database inside Server class
+        int commitWindow = configHandler.getInt("db_commit_window");
+        boolean forceWrites = configHandler.getBoolean("db_force_writes");
+        // The databases are independent, so they are loaded concurrently
+        long loadStart = System.nanoTime();
+        CompletableFuture<UserDatabaseHandler> users = CompletableFuture.supplyAsync(() ->
+                new UserDatabaseHandler(configHandler.getString("user_database_dir"), configHandler.getInt("user_shards"), commitWindow, forceWrites));
+        CompletableFuture<QuestionDatabaseHandler> questions = CompletableFuture.supplyAsync(() ->
+                new QuestionDatabaseHandler(configHandler.getString("question_database_dir"), configHandler.getString("question_pack_dir"), commitWindow, forceWrites));
+        CompletableFuture<RelationDatabaseHandler> relations = CompletableFuture.supplyAsync(() ->
+                new RelationDatabaseHandler(configHandler.getString("relation_database_dir"), commitWindow, forceWrites)); //TODO: add relation database inside Server class
+        try {
+            userDatabaseHandler = users.join();
+            questionDatabaseHandler = questions.join();
+            relationDatabaseHandler = relations.join();
+        } catch (CompletionException e) {
+            // Starting without a database would hand out ids that are already taken
+            System.out.println("Failed to load the databases: " + e.getCause().getMessage());
+            System.exit(1);
+        }
+        System.out.println("Loaded databases in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart) + " ms.");
+        // Users and questions are only ever appended, a snapshot of them would rewrite the same records
+        List<Compactable> databases = Collections.singletonList(relationDatabaseHandler);
+        databaseCompactor = new DatabaseCompactor(databases,
+                configHandler.getInt("compaction_interval"), configHandler.getInt("compaction_threshold"));
+        databaseCompactor.start();
 
         // Initialize and start the server
         Server server = new Server(configHandler);
@@ -1,15 +1,12 @@
 package server.core;
 
-import server.core.messages.MessageProcessor;
-import server.database.questionDatabase.QuestionDatabaseHandler;
-import server.database.relationDatabase.RelationDatabaseHandler;
-import server.database.userDatabase.UserDatabaseHandler;
+import server.core.connection.SocketConnection;
+import server.core.messages.RequestDispatcher;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -22,119 +19,97 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class ClientHandler implements Runnable {
     /**
-     * The socket for communicating with the client.
+     * The threads currently running a handler.
      */
-    private final Socket clientSocket;
+    private static final Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
     /**
-     * The collection of connected clients.
+     * The connection for communicating with the client.
      */
-    private final ConcurrentHashMap<String, Socket> clients;
+    private final SocketConnection connection;
     /**
-     * The handler for user database operations.
+     * The dispatcher processing the received messages.
      */
-    private final UserDatabaseHandler userDatabaseHandler;
+    private final RequestDispatcher requestDispatcher;
     /**
-     * The handler for question database operations.
+     * The log received messages are queued to, `null` to print them on the handler thread.
      */
-    private final QuestionDatabaseHandler questionDatabaseHandler;
-
-    /**
-     * The handler for relation database operations.
-     */
-    private final RelationDatabaseHandler relationDatabaseHandler;
+    private final MessageLog messageLog;
 
     /**
      * Constructs a `ClientHandler` for handling communication with a client.
      *
-     * @param socket                The socket for communicating with the client.
-     * @param clients               The collection of connected clients.
-     * @param userDatabaseHandler    The handler for user database operations.
-     * @param questionDatabaseHandler The handler for question database operations.
+     * @param connection        The connection for communicating with the client.
+     * @param requestDispatcher The dispatcher processing the received messages.
+     * @param messageLog        The log received messages are queued to, `null` to print them on the handler thread.
      */
-    public ClientHandler(Socket socket, ConcurrentHashMap<String, Socket> clients, UserDatabaseHandler userDatabaseHandler, QuestionDatabaseHandler questionDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler) {
-        this.clientSocket = socket;
-        this.clients = clients;
-        this.userDatabaseHandler = userDatabaseHandler;
-        this.questionDatabaseHandler = questionDatabaseHandler;
-        this.relationDatabaseHandler = relationDatabaseHandler;
+    public ClientHandler(SocketConnection connection, RequestDispatcher requestDispatcher, MessageLog messageLog) {
+        this.connection = connection;
+        this.requestDispatcher = requestDispatcher;
+        this.messageLog = messageLog;
     }
 
     /**
-     * Handles communication with the client. Reads incoming messages, processes them, and sends responses.
+     * Handles communication with the client. Reads incoming messages, processes them, and sends responses. Reads text
+     * lines until the client switches to the binary protocol and frames afterwards.
      */
     @Override
     public void run() {
-        PrintWriter out = null;
-        BufferedReader in = null;
-        String clientKey = getClientKey(clientSocket);
+        String clientKey = connection.getClientKey();
+        handlerThreads.add(Thread.currentThread());
 
         try {
-            // Get the output stream of the client
-            out = new PrintWriter(clientSocket.getOutputStream(), true);
-
-            // Get the input stream of the client
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-
             String line;
 
-            while ((line = in.readLine()) != null) {
+            while (!connection.isBinary() && (line = connection.readLine()) != null) {
                 if ("exit".equals(line)) {
                     // Inform the server that the client is closing and indicate which client is exiting
-                    closeClient(clientKey);
+                    connection.close();
+                    System.out.println("Client " + clientKey + " exited.");
                     break;
                 } else {
                     // Writing the received message from the client
-                    System.out.printf("Received from %s: %s%n", clientKey, line);
-                    MessageProcessor messageProcessor = new MessageProcessor(userDatabaseHandler, questionDatabaseHandler, relationDatabaseHandler);
-                    String outMessage = messageProcessor.processMessage(line);
-                    out.println(outMessage);
-                    out.flush();
+                    if (messageLog != null) {
+                        messageLog.received(clientKey, line);
+                    } else {
+                        System.out.printf("Received from %s: %s%n", clientKey, line);
+                    }
+                    requestDispatcher.dispatch(connection, line);
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                if (out != null) {
-                    out.close();
-                }
-                if (in != null) {
-                    in.close();
-                    clientSocket.close();
+
+            byte[] frame;
+
+            while (connection.isBinary() && (frame = connection.readFrame()) != null) {
+                if (RequestDispatcher.isExit(frame)) {
+                    connection.close();
+                    System.out.println("Client " + clientKey + " exited.");
+                    break;
                 }
-            } catch (IOException e) {
+                requestDispatcher.dispatch(connection, frame);
+            }
+        } catch (IOException e) {
+            if (!connection.isClosed()) {
                 e.printStackTrace();
             }
+        } finally {
+            connection.close();
+            handlerThreads.remove(Thread.currentThread());
         }
     }
 
     /**
-     * Closes the client's connection, removes the client from the collection, and displays an exit message.
+     * Counts the threads running a handler by their state. A virtual thread is `RUNNABLE` while it is mounted on a
+     * carrier thread or waiting for one, `WAITING` or `TIMED_WAITING` while it is parked, such as on a socket read, and
+     * `BLOCKED` while it waits for a monitor, which keeps it mounted. A platform thread blocked on a socket read is
+     * `RUNNABLE`.
      *
-     * @param clientKey The unique key identifying the client.
+     * @return The number of handler threads in each state, states without threads left out.
      */
-    private void closeClient(String clientKey) {
-        // Remove the client from the map
-        clients.remove(clientKey);
-
-        // Close the client's socket
-        try {
-            clientSocket.close();
-
-            // Display a message indicating which client is exiting
-            System.out.println("Client " + clientKey + " exited.");
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static Map<Thread.State, Integer> getHandlerThreadStates() {
+        Map<Thread.State, Integer> states = new EnumMap<>(Thread.State.class);
+        for (Thread thread : handlerThreads) {
+            states.merge(thread.getState(), 1, Integer::sum);
         }
-    }
-
-    /**
-     * Generates a unique key for identifying a client based on their IP address and port.
-     *
-     * @param socket The socket associated with the client.
-     * @return A unique key for identifying the client.
-     */
-    private String getClientKey(Socket socket) {
-        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+        return states;
     }
 }
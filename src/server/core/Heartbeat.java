@@ -0,0 +1,64 @@
+package server.core;
+
+import server.core.connection.Connection;
+import server.core.timer.HashedWheelTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The `Heartbeat` class periodically pings a single client on a `HashedWheelTimer`. Every connection has its own
+ * deadline, so pings are spread over the ping interval instead of being sent to all clients at once, and pings go
+ * through the connection's outbound queue like any other message.
+ *
+ * @uses Runnable
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class Heartbeat implements Runnable {
+    /**
+     * The connection of the client.
+     */
+    private final Connection connection;
+    /**
+     * The timer the heartbeat is scheduled on.
+     */
+    private final HashedWheelTimer timer;
+    /**
+     * The interval between pings in milliseconds.
+     */
+    private final long pingInterval;
+
+    /**
+     * Constructs a `Heartbeat` for the given client.
+     *
+     * @param connection   The connection of the client.
+     * @param timer        The timer the heartbeat is scheduled on.
+     * @param pingInterval The interval between pings in milliseconds.
+     */
+    public Heartbeat(Connection connection, HashedWheelTimer timer, long pingInterval) {
+        this.connection = connection;
+        this.timer = timer;
+        this.pingInterval = pingInterval;
+    }
+
+    /**
+     * Schedules the first ping.
+     *
+     * @param initialDelay The delay before the first ping in milliseconds.
+     */
+    public void start(long initialDelay) {
+        timer.newTimeout(this, initialDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pings the client and schedules the next ping. The heartbeat stops once the connection is closed; a client whose
+     * ping cannot be written is disconnected by its connection.
+     */
+    @Override
+    public void run() {
+        if (connection.send("Ping")) {
+            timer.newTimeout(this, pingInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package server.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The `MessageLog` class logs received messages on a thread of its own. `System.out` is shared by every handler and
+ * copies each line to the log file while holding its lock, so printing from a virtual thread pins its carrier for the
+ * duration of a file write; handlers only queue their lines here instead, and the log thread prints them in batches.
+ * When the log thread falls behind and the queue is full, lines are dropped and counted rather than slowing the
+ * handlers down.
+ *
+ * @uses Runnable
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class MessageLog implements Runnable {
+    /**
+     * The number of lines the queue holds before lines are dropped.
+     */
+    private static final int CAPACITY = 65536;
+
+    /**
+     * The lines waiting to be printed.
+     */
+    private final BlockingQueue<String> lines;
+    /**
+     * The number of lines dropped because the queue was full.
+     */
+    private final LongAdder droppedLines;
+
+    /**
+     * Constructs a `MessageLog` and starts its log thread.
+     */
+    public MessageLog() {
+        this.lines = new ArrayBlockingQueue<>(CAPACITY);
+        this.droppedLines = new LongAdder();
+        Thread thread = new Thread(this, "message-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a received message to be logged. Never blocks.
+     *
+     * @param clientKey The key of the client the message was received from.
+     * @param message   The message.
+     */
+    public void received(String clientKey, String message) {
+        if (!lines.offer("Received from " + clientKey + ": " + message)) {
+            droppedLines.increment();
+        }
+    }
+
+    /**
+     * Gets the number of lines dropped because the log thread fell behind.
+     *
+     * @return The number of dropped lines.
+     */
+    public long getDroppedLines() {
+        return droppedLines.sum();
+    }
+
+    /**
+     * Prints the queued lines until the JVM exits.
+     */
+    @Override
+    public void run() {
+        List<String> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            try {
+                batch.add(lines.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            lines.drainTo(batch);
+            for (String line : batch) {
+                text.append(line).append(System.lineSeparator());
+            }
+            // One print per batch, so the lock of the stream is taken once for many lines
+            System.out.print(text);
+            text.setLength(0);
+            batch.clear();
+        }
+    }
+}
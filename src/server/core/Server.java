@@ -1,16 +1,24 @@
 package server.core;
 
 import config.ConfigHandler;
+import server.core.admission.AdmissionController;
+import server.core.admission.ClientQuota;
+import server.core.connection.Connection;
+import server.core.connection.SocketConnection;
+import server.core.messages.MessageProcessor;
+import server.core.messages.RequestDispatcher;
+import server.core.nio.NioServer;
+import server.core.timer.HashedWheelTimer;
+import server.database.DatabaseCompactor;
 import server.database.questionDatabase.QuestionDatabaseHandler;
 import server.database.relationDatabase.RelationDatabaseHandler;
 import server.database.userDatabase.UserDatabaseHandler;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Iterator;
+import java.net.SocketException;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.*;
@@ -42,22 +50,87 @@ public class Server {
      * The maximum number of clients that can be connected to the server at the same time.
      */
     private int maxClients;
+    /**
+     * The maximum number of pending connections waiting to be accepted.
+     */
+    private int acceptBacklog;
+    /**
+     * The admission controller deciding which connections and requests are accepted.
+     */
+    private AdmissionController admissionController;
+    /**
+     * The maximum time to wait for requests in flight when the server drains, in milliseconds.
+     */
+    private int drainTimeout;
+    /**
+     * Whether the server drains: it no longer accepts connections or processes requests and is about to exit.
+     */
+    private volatile boolean draining;
+    /**
+     * The socket accepting connections on the "blocking" and "virtual" transports.
+     */
+    private volatile ServerSocket serverSocket;
+    /**
+     * The server accepting connections on the "nio" transport.
+     */
+    private volatile NioServer nioServer;
     /**
      * The collection of connected clients.
      */
-    private ConcurrentHashMap<String, Socket> clients;
+    private ConcurrentHashMap<String, Connection> clients;
+    /**
+     * The maximum number of messages waiting in the outbound queue of a connection.
+     */
+    private int outboundQueueSize;
+    /**
+     * The transport used for client connections: "blocking" (thread per client), "virtual" (virtual thread per client)
+     * or "nio" (selector event loops).
+     */
+    private String transport;
+    /**
+     * The number of event loop threads used by the "nio" transport.
+     */
+    private int eventLoopThreads;
+    /**
+     * The number of worker threads processing requests sent with a request id.
+     */
+    private int requestWorkerThreads;
+    /**
+     * The maximum number of requests with a request id a single client can have in flight.
+     */
+    private int maxInFlight;
+    /**
+     * The maximum number of elements in a page of a bulk result, such as the relations of `getRelations`.
+     */
+    private int pageSize;
     /**
      * The interval between pings to check for client responsiveness.
      */
     private int pingInterval;
     /**
-     * The minimum interval between pings to check for client responsiveness.
+     * The minimum interval between pings to check for client responsiveness. It is the tick of the server timer.
      */
     private int minPingInterval;
     /**
-     * The time of the last ping.
+     * The number of buckets of the server timer wheel.
+     */
+    private int timerWheelSize;
+    /**
+     * The timer for heartbeats and other server timeouts.
+     */
+    private HashedWheelTimer timer;
+    /**
+     * The message processor shared by all clients, created when the server starts.
+     */
+    private MessageProcessor messageProcessor;
+    /**
+     * The log received messages are queued to on the "virtual" transport, `null` on the others.
      */
-    private long lastPingTime;
+    private MessageLog messageLog;
+    /**
+     * Whether client handlers run on virtual threads.
+     */
+    private volatile boolean virtualThreads;
     /**
      * The handler for user database operations.
      */
@@ -70,6 +143,10 @@ public class Server {
      * The handler for relation database operations.
      */
     protected static RelationDatabaseHandler relationDatabaseHandler;
+    /**
+     * The compactor of the databases.
+     */
+    protected static DatabaseCompactor databaseCompactor;
     /**
      * The configuration handler for server configuration.
      */
@@ -84,10 +161,22 @@ public class Server {
         this.port = configHandler.getInt("port");
         this.ip = configHandler.getBoolean("outgoing") ? configHandler.getString("ip") : configHandler.getString("iploc");
         this.maxClients = configHandler.getInt("max_clients");
+        this.acceptBacklog = configHandler.getInt("accept_backlog");
+        this.admissionController = new AdmissionController(maxClients,
+                configHandler.getInt("connection_rate"), configHandler.getInt("connection_burst"),
+                configHandler.getInt("request_rate"), configHandler.getInt("request_burst"),
+                configHandler.getInt("busy_retry_after"));
+        this.drainTimeout = configHandler.getInt("drain_timeout");
         this.clients = new ConcurrentHashMap<>();
+        this.outboundQueueSize = configHandler.getInt("outbound_queue_size");
         this.pingInterval = configHandler.getInt("ping_interval"); // in milliseconds
         this.minPingInterval = configHandler.getInt("min_ping_interval"); // in milliseconds
-        this.lastPingTime = System.currentTimeMillis();
+        this.timerWheelSize = configHandler.getInt("timer_wheel_size");
+        this.transport = configHandler.getString("transport");
+        this.eventLoopThreads = configHandler.getInt("event_loop_threads");
+        this.requestWorkerThreads = configHandler.getInt("request_worker_threads");
+        this.maxInFlight = configHandler.getInt("max_in_flight");
+        this.pageSize = configHandler.getInt("page_size");
     }
 
     /**
@@ -102,55 +191,68 @@ public class Server {
         System.out.println("Server started on: " + ip + ":" + port);
         System.out.println("Max Clients: " + maxClients);
         System.out.println("Ping Interval: " + pingInterval);
+        System.out.println("Transport: " + transport);
+
+        timer = new HashedWheelTimer("server-timer", minPingInterval, TimeUnit.MILLISECONDS, timerWheelSize);
+        messageProcessor = new MessageProcessor(userDatabaseHandler, questionDatabaseHandler, relationDatabaseHandler, pageSize);
+        ExecutorService requestWorkers = "virtual".equalsIgnoreCase(transport) ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(requestWorkerThreads);
+        RequestDispatcher requestDispatcher = new RequestDispatcher(messageProcessor, requestWorkers, maxInFlight, admissionController);
+        admissionController.start(timer);
 
-        ExecutorService executorService = Executors.newFixedThreadPool(maxClients);
+        if ("nio".equalsIgnoreCase(transport)) {
+            startNioServer(requestDispatcher);
+            return;
+        }
+
+        ExecutorService executorService = "virtual".equalsIgnoreCase(transport) ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(maxClients);
+        // Printing takes the lock of the shared log stream, which would pin the carrier of a virtual thread
+        messageLog = "virtual".equalsIgnoreCase(transport) ? new MessageLog() : null;
+        // Writes to a client may block, so they run on threads of their own rather than on the thread queueing a message
+        ExecutorService connectionWriters = "virtual".equalsIgnoreCase(transport) ? newVirtualThreadExecutor() : Executors.newCachedThreadPool();
         ServerSocket server = null;
 
         try {
             if(!configHandler.getBoolean("outgoing"))
-                server = new ServerSocket(port);
+                server = new ServerSocket(port, acceptBacklog);
             else {
                 server = new ServerSocket();
-                server.bind(new InetSocketAddress(ip, port));
+                server.bind(new InetSocketAddress(ip, port), acceptBacklog);
             }
             server.setReuseAddress(true);
+            serverSocket = server;
 
-            // Create a separate thread for pinging clients
-            Thread pingThread = new Thread(this::pingClientsInBackground);
-            pingThread.setDaemon(true); // Mark the thread as daemon, so it won't prevent the JVM from exiting
-            pingThread.start();
-
-            // Create a separate thread for asynchronous input listening
-            Thread inputThread = new Thread(this::listenForInputInBackground);
-            inputThread.setDaemon(true);
-            inputThread.start();
+            startBackgroundThreads();
 
             while (true) {
-                // Accept client connections until reaching the maximum
-                if (clients.size() < maxClients) {
-                    Socket client = server.accept();
-                    String clientKey = getClientKey(client);
-                    clients.put(clientKey, client);
-
-                    // Display that a new client is connected to the server
-                    System.out.println("New client connected " + clientKey);
-
-                    // Create a new thread to handle the client
-                    ClientHandler clientHandler = new ClientHandler(client, clients,userDatabaseHandler, questionDatabaseHandler, relationDatabaseHandler);
-                    executorService.execute(clientHandler);
-                } else {
-                    // Handle messages from existing clients but do not accept new connections
-                    Socket client = server.accept();
-                    String clientKey = getClientKey(client);
-                    if (clients.containsKey(clientKey)) {
-                        // Create a new thread to handle the client
-                        ClientHandler clientHandler = new ClientHandler(client, clients,userDatabaseHandler, questionDatabaseHandler, relationDatabaseHandler);
-                        executorService.execute(clientHandler);
-                    } else {
-                        // Close the socket for new clients trying to connect
-                        client.close();
+                Socket client;
+                try {
+                    client = server.accept();
+                } catch (SocketException e) {
+                    if (draining) {
+                        break;
                     }
+                    throw e;
                 }
+                ClientQuota quota = admissionController.admitConnection(client.getInetAddress(), clients.size());
+                if (quota == null) {
+                    // Tell the client when to come back instead of silently closing the socket
+                    rejectClient(client);
+                    continue;
+                }
+                String clientKey = getClientKey(client);
+                SocketConnection connection = new SocketConnection(client, clientKey, clients, outboundQueueSize, connectionWriters);
+                connection.setQuota(quota);
+                clients.put(clientKey, connection);
+
+                // Display that a new client is connected to the server
+                System.out.println("New client connected " + clientKey);
+
+                // Spread the first pings of all clients over the ping interval
+                new Heartbeat(connection, timer, pingInterval).start(ThreadLocalRandom.current().nextLong(pingInterval));
+
+                // Create a new thread to handle the client
+                ClientHandler clientHandler = new ClientHandler(connection, requestDispatcher, messageLog);
+                executorService.execute(clientHandler);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -163,34 +265,227 @@ public class Server {
                 }
             }
         }
+        drain();
+    }
+
+    /**
+     * Rejects a connection refused by the admission controller. The client is told how long to wait before connecting
+     * again with a `busy:retry_after:N` line, then the socket is closed.
+     *
+     * @param client The socket of the rejected client.
+     */
+    private void rejectClient(Socket client) {
+        try {
+            client.getOutputStream().write(AdmissionController.busyLine(admissionController.connectionRetryAfter(client.getInetAddress(), clients.size())));
+        } catch (IOException e) {
+            // The client is gone already
+        } finally {
+            try {
+                client.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
+
+    /**
+     * Starts the server on the non-blocking transport. Connections are accepted on the calling thread and served by
+     * `event_loop_threads` selector threads.
+     *
+     * @param requestDispatcher The dispatcher processing the messages of all clients.
+     */
+    private void startNioServer(RequestDispatcher requestDispatcher) {
+        InetSocketAddress address = configHandler.getBoolean("outgoing") ? new InetSocketAddress(ip, port) : new InetSocketAddress(port);
+        try {
+            nioServer = new NioServer(address, acceptBacklog, admissionController, eventLoopThreads, requestDispatcher, clients, outboundQueueSize, timer, pingInterval);
+            startBackgroundThreads();
+            nioServer.start();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        drain();
+    }
+
+    /**
+     * Starts draining the server by closing the listening socket. The thread accepting connections then sees the
+     * closed socket and runs `drain`.
+     */
+    private void stopAccepting() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        System.out.println("Draining server, no longer accepting connections.");
+        try {
+            if (nioServer != null) {
+                nioServer.stopAccepting();
+            } else if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drains the server once it stopped accepting connections: tells the clients to back off, lets the requests in
+     * flight complete for up to `drain_timeout` milliseconds, flushes every database once and exits.
+     */
+    private void drain() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+        String drainReply = "server_draining:retry_after:" + admissionController.getBusyRetryAfter();
+        messageProcessor.beginDrain(drainReply);
+        for (Connection connection : clients.values()) {
+            connection.send(drainReply);
+        }
+
+        try {
+            int active = messageProcessor.awaitIdle(drainTimeout);
+            if (active > 0) {
+                System.out.println("Drain timeout expired with " + active + " requests still in flight.");
+            }
+            // Give the last replies a chance to reach the clients before the connections are closed
+            while (System.nanoTime() - deadline < 0 && hasOutbound()) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (databaseCompactor != null) {
+            databaseCompactor.stop();
+        }
+        flushDatabases();
+        closeAllClientConnections();
+        stopConsoleListener();
+        System.exit(0);
+    }
+
+    /**
+     * Checks if any client still has messages waiting in its outbound queue.
+     *
+     * @return `true` if a message is still waiting to be written, `false` otherwise.
+     */
+    private boolean hasOutbound() {
+        for (Connection connection : clients.values()) {
+            if (connection.hasOutbound()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes every database to its file once, so changes made only in memory are not lost on shutdown. Users and
+     * questions are only ever appended, so their queued appends are waited for instead of rewriting their files.
+     */
+    private void flushDatabases() {
+        System.out.println("Flushing databases.");
+        if (!userDatabaseHandler.flush()) {
+            System.out.println("Failed to flush the user database.");
+        }
+        if (!questionDatabaseHandler.update()) {
+            System.out.println("Failed to flush the question database.");
+        }
+        if (!relationDatabaseHandler.update()) {
+            System.out.println("Failed to flush the relation database.");
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every task. Virtual threads are looked up reflectively,
+     * so the server still runs on JDKs without them, falling back to a cached pool of platform threads.
+     *
+     * @return An executor running each client handler on its own virtual thread.
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads are not available on this JDK, falling back to platform threads.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Starts the background thread for listening for console input. Clients are pinged by their heartbeats on the
+     * server timer.
+     */
+    private void startBackgroundThreads() {
+        // Create a separate thread for asynchronous input listening
+        Thread inputThread = new Thread(this::listenForInputInBackground);
+        inputThread.setDaemon(true); // Mark the thread as daemon, so it won't prevent the JVM from exiting
+        inputThread.start();
+    }
+
     /**
      * Listens for user input in the background. It allows the server operator to enter commands through the console.
-     * The available commands are "exit" (to gracefully stop the server), "ping" (to ping all clients), and "clear"
-     * (to clear the terminal screen).
+     * The available commands are "exit" or "drain" (to drain and gracefully stop the server), "ping" (to ping all
+     * clients), "clear" (to clear the terminal screen), "stats" (to print statistics) and "compact" (to compact the
+     * relations).
      */
     private void listenForInputInBackground() {
         Scanner scanner = new Scanner(System.in);
         while (true) {
             String input = scanner.nextLine().trim();
 
-            if ("exit".equalsIgnoreCase(input)) {
-                // Handle 'exit' command
-                closeAllClientConnections();
-                stopConsoleListener();
-                System.exit(0); // Exit the server
+            if ("exit".equalsIgnoreCase(input) || "drain".equalsIgnoreCase(input)) {
+                // Handle 'exit' and 'drain' commands, the accepting thread drains the server and exits
+                stopAccepting();
             } else if ("ping".equalsIgnoreCase(input)) {
                 // Handle the "ping" command to ping all client connections
                 pingAllClients();
             } else if ("clear".equalsIgnoreCase(input)) {
                 // Handle the "clear" command to clear the terminal
                 clearTerminal();
+            } else if ("stats".equalsIgnoreCase(input)) {
+                // Handle the "stats" command to print connection statistics
+                printStats();
+            } else if ("compact".equalsIgnoreCase(input)) {
+                // Handle the "compact" command to compact the relations in the background
+                if (databaseCompactor != null) {
+                    databaseCompactor.compactNow();
+                }
             } else {
                 System.out.println("Unknown command: " + input);
             }
         }
     }
 
+    /**
+     * Prints statistics about the connected clients and the threads running their handlers. On the "virtual" transport
+     * the handler threads are counted as mounted or runnable, parked and blocked on a monitor from their thread states,
+     * a runnable virtual thread being one waiting for a carrier; on the "blocking" transport a thread blocked on a socket
+     * read counts as runnable. Then prints the number of connections and requests rejected by the admission controller,
+     * the work done by the database compactor and the count and latency of every command executed so far.
+     */
+    private void printStats() {
+        System.out.println("Connected clients: " + clients.size());
+        if (!"nio".equalsIgnoreCase(transport)) {
+            Map<Thread.State, Integer> states = ClientHandler.getHandlerThreadStates();
+            int runnable = states.getOrDefault(Thread.State.RUNNABLE, 0);
+            int parked = states.getOrDefault(Thread.State.WAITING, 0) + states.getOrDefault(Thread.State.TIMED_WAITING, 0);
+            int blocked = states.getOrDefault(Thread.State.BLOCKED, 0);
+            if (virtualThreads) {
+                System.out.println("Virtual threads mounted or runnable: " + runnable + ", parked: " + parked + ", blocked on a monitor: " + blocked);
+            } else {
+                System.out.println("Handler threads runnable: " + runnable + ", waiting: " + parked + ", blocked on a monitor: " + blocked);
+            }
+        }
+        if (messageLog != null) {
+            System.out.println("Dropped log lines: " + messageLog.getDroppedLines());
+        }
+        System.out.println("Rejected connections: " + admissionController.getRejectedConnections() + ", rejected requests: " + admissionController.getRejectedRequests());
+        if (databaseCompactor != null) {
+            System.out.println("Database compactions: " + databaseCompactor.getCompactions() + ", " + databaseCompactor.getCompactionMillis() + " ms, " + databaseCompactor.getCompactedBytes() + " log bytes folded in");
+        }
+        if (messageProcessor != null) {
+            messageProcessor.getCommandRegistry().printMetrics();
+        }
+    }
+
     /**
      * Clears the terminal window where the server is running. The method detects the operating system and runs the
      * appropriate command to clear the terminal screen. It supports Windows, Unix/Linux, and macOS.
@@ -216,18 +511,9 @@ public class Server {
      * Pings all connected clients to check for responsiveness.
      */
     private void pingAllClients() {
-        // Iterate through clients and send ping messages
-        for (Map.Entry<String, Socket> entry : clients.entrySet()) {
-            String clientKey = entry.getKey();
-            Socket client = entry.getValue();
-            try {
-                PrintWriter out = new PrintWriter(client.getOutputStream(), true);
-                // Send a ping message to the client
-                out.println("Forced ping");
-                out.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        // Iterate through clients and queue ping messages
+        for (Connection connection : clients.values()) {
+            connection.send("Forced ping");
         }
     }
 
@@ -235,18 +521,10 @@ public class Server {
      * Closes all client connections and stops the server.
      */
     private void closeAllClientConnections() {
-        Iterator<Map.Entry<String, Socket>> iterator = clients.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, Socket> entry = iterator.next();
-            Socket client = entry.getValue();
-            try {
-                client.close();
-                iterator.remove();
-                System.out.println("Connection with client " + entry.getKey() + " closed.");
-            } catch (IOException e) {
-                // Handle any exceptions as needed
-                e.printStackTrace();
-            }
+        for (Connection connection : clients.values()) {
+            // Closing a connection also removes it from the clients map
+            connection.close();
+            System.out.println("Connection with client " + connection.getClientKey() + " closed.");
         }
     }
 
@@ -260,60 +538,6 @@ public class Server {
         return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
     }
 
-    /**
-     * Pings clients at regular intervals in the background.
-     */
-    private void pingClientsInBackground() {
-        while (true) {
-            // Calculate the time elapsed since the last ping
-            long currentTime = System.currentTimeMillis();
-            long timeElapsed = currentTime - lastPingTime;
-
-            // Check if it's time to ping clients based on the pingInterval (500 milliseconds)
-            if (timeElapsed >= pingInterval) {
-                pingClients();
-                lastPingTime = currentTime;
-            }
-
-            // Sleep for a short duration to avoid busy-waiting
-            try {
-                Thread.sleep(minPingInterval); // Sleep for 50 milliseconds
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
-    /**
-     * Pings all connected clients to check for responsiveness. This method iterates through connected clients and sends
-     * ping messages to each client. If a client doesn't respond within the specified time, it is considered unresponsive
-     * and removed from the list of clients.
-     */
-    private void pingClients() {
-        // Iterate through clients and send ping messages
-        Iterator<Map.Entry<String, Socket>> iterator = clients.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, Socket> entry = iterator.next();
-            String clientKey = entry.getKey();
-            Socket client = entry.getValue();
-            try {
-                PrintWriter out = new PrintWriter(client.getOutputStream(), true);
-                // Send a ping message (you can define your ping message here)
-                out.println("Ping");
-                out.flush();
-            } catch (IOException e) {
-                // Client is not responding, remove it from the clients map
-                iterator.remove();
-                try {
-                    client.close();
-                    System.out.println("Client " + clientKey + " removed due to unresponsiveness.");
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-    }
-
     /**
      * Handles command-line arguments and overrides configuration properties.
      *
@@ -331,6 +555,10 @@ public class Server {
                 configHandler.overrideProperty("max_clients", args[i + 1]);
             } else if(args[i].equals("--ping-interval") || args[i].equals("-i")) {
                 configHandler.overrideProperty("ping_interval", args[i + 1]);
+            } else if(args[i].equals("--transport") || args[i].equals("-t")) {
+                configHandler.overrideProperty("transport", args[i + 1]);
+            } else if(args[i].equals("--event-loop-threads") || args[i].equals("-e")) {
+                configHandler.overrideProperty("event_loop_threads", args[i + 1]);
             } else if(args[i].equals("--outgoing") || args[i].equals("-o")) {
                 configHandler.overrideProperty("outgoing", args[i + 1]);
             } else if(args[i].equals("--log-file") || args[i].equals("-l")) {
@@ -343,6 +571,8 @@ public class Server {
                 configHandler.overrideProperty("user_database_file", args[i + 1]);
             } else if(args[i].equals("--question-database-dir") || args[i].equals("-q")){
                 configHandler.overrideProperty("question_database_dir", args[i + 1]);
+            } else if(args[i].equals("--question-pack-dir") || args[i].equals("-k")){
+                configHandler.overrideProperty("question_pack_dir", args[i + 1]);
             } else if(args[i].equals("--relation-database-dir") || args[i].equals("-r")) {
                 configHandler.overrideProperty("relation_database_dir", args[i + 1]);
             } else {
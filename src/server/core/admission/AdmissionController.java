@@ -0,0 +1,208 @@
+package server.core.admission;
+
+import server.core.timer.HashedWheelTimer;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The `AdmissionController` class decides at accept time whether a new connection is admitted, and per request whether
+ * a client may send more. Every IP address gets a `ClientQuota` with token buckets for connections and requests.
+ * Rejected clients get a `busy:retry_after:N` reply telling them how many milliseconds to wait, instead of a silent
+ * close, so a reconnect storm backs off instead of hammering the accept thread.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class AdmissionController {
+    /**
+     * The interval between sweeps dropping the quotas of idle addresses, in milliseconds.
+     */
+    private static final long SWEEP_INTERVAL = 10_000;
+
+    /**
+     * The maximum number of clients connected at the same time.
+     */
+    private final int maxClients;
+    /**
+     * The number of new connections per second allowed from one address, 0 for no limit.
+     */
+    private final double connectionRate;
+    /**
+     * The number of new connections allowed from one address in a burst.
+     */
+    private final int connectionBurst;
+    /**
+     * The number of requests per second allowed from one address, 0 for no limit.
+     */
+    private final double requestRate;
+    /**
+     * The number of requests allowed from one address in a burst.
+     */
+    private final int requestBurst;
+    /**
+     * The number of milliseconds clients are told to wait when the server is full.
+     */
+    private final long busyRetryAfter;
+    /**
+     * The quotas by address.
+     */
+    private final ConcurrentHashMap<InetAddress, ClientQuota> quotas;
+    /**
+     * The number of rejected connections.
+     */
+    private final LongAdder rejectedConnections;
+    /**
+     * The number of rejected requests.
+     */
+    private final LongAdder rejectedRequests;
+
+    /**
+     * Constructs an `AdmissionController` with the given limits.
+     *
+     * @param maxClients      The maximum number of clients connected at the same time.
+     * @param connectionRate  The number of new connections per second allowed from one address, 0 for no limit.
+     * @param connectionBurst The number of new connections allowed from one address in a burst.
+     * @param requestRate     The number of requests per second allowed from one address, 0 for no limit.
+     * @param requestBurst    The number of requests allowed from one address in a burst.
+     * @param busyRetryAfter  The number of milliseconds clients are told to wait when the server is full.
+     */
+    public AdmissionController(int maxClients, double connectionRate, int connectionBurst, double requestRate, int requestBurst, long busyRetryAfter) {
+        this.maxClients = maxClients;
+        this.connectionRate = connectionRate;
+        this.connectionBurst = connectionBurst;
+        this.requestRate = requestRate;
+        this.requestBurst = requestBurst;
+        this.busyRetryAfter = busyRetryAfter;
+        this.quotas = new ConcurrentHashMap<>();
+        this.rejectedConnections = new LongAdder();
+        this.rejectedRequests = new LongAdder();
+    }
+
+    /**
+     * Starts dropping the quotas of idle addresses periodically.
+     *
+     * @param timer The timer the sweeps are scheduled on.
+     */
+    public void start(HashedWheelTimer timer) {
+        timer.newTimeout(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+                timer.newTimeout(this, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Decides whether a new connection is admitted. An admitted connection must be handed its quota with
+     * `Connection.setQuota`, which releases it when the connection is closed.
+     *
+     * @param address          The address of the client.
+     * @param connectedClients The number of clients currently connected.
+     * @return The quota of the client if the connection is admitted, `null` if it is rejected.
+     */
+    public ClientQuota admitConnection(InetAddress address, int connectedClients) {
+        if (connectedClients >= maxClients) {
+            rejectedConnections.increment();
+            return null;
+        }
+        // Count the connection in the same atomic step that finds the quota, so the sweep, which drops a quota in an
+        // atomic step of its own, either drops it before and a new quota is created, or sees the connection
+        ClientQuota quota = quotas.compute(address, (a, current) -> {
+            ClientQuota opened = current != null ? current : new ClientQuota(
+                    connectionRate > 0 ? new TokenBucket(connectionRate, connectionBurst) : null,
+                    requestRate > 0 ? new TokenBucket(requestRate, requestBurst) : null);
+            opened.connectionOpened();
+            return opened;
+        });
+        if (quota.tryAcquireConnection() != 0) {
+            quota.connectionClosed();
+            rejectedConnections.increment();
+            return null;
+        }
+        return quota;
+    }
+
+    /**
+     * Gets the number of milliseconds a rejected client should wait before connecting again.
+     *
+     * @param address          The address of the client.
+     * @param connectedClients The number of clients currently connected.
+     * @return The number of milliseconds to wait.
+     */
+    public long connectionRetryAfter(InetAddress address, int connectedClients) {
+        if (connectedClients >= maxClients || connectionRate <= 0) {
+            return busyRetryAfter;
+        }
+        return Math.max(1, (long) Math.ceil(1000 / connectionRate));
+    }
+
+    /**
+     * Gets the number of milliseconds clients are told to wait when the server is full.
+     *
+     * @return The number of milliseconds to wait.
+     */
+    public long getBusyRetryAfter() {
+        return busyRetryAfter;
+    }
+
+    /**
+     * Records a request rejected by a client's quota.
+     */
+    public void requestRejected() {
+        rejectedRequests.increment();
+    }
+
+    /**
+     * Builds the reply telling a client to retry later.
+     *
+     * @param retryAfter The number of milliseconds to wait.
+     * @return The reply, without the trailing newline.
+     */
+    public static String busyReply(long retryAfter) {
+        return "busy:retry_after:" + retryAfter;
+    }
+
+    /**
+     * Builds the reply line sent to a rejected connection before it is closed.
+     *
+     * @param retryAfter The number of milliseconds to wait.
+     * @return The encoded reply line.
+     */
+    public static byte[] busyLine(long retryAfter) {
+        return (busyReply(retryAfter) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of rejected connections.
+     *
+     * @return The number of rejected connections.
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * Gets the number of rejected requests.
+     *
+     * @return The number of rejected requests.
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    /**
+     * Drops the quotas of addresses without connections whose buckets have refilled, keeping the map small.
+     */
+    private void sweep() {
+        for (InetAddress address : quotas.keySet()) {
+            // Checked and removed atomically, so a connection being admitted meanwhile keeps the quota
+            quotas.computeIfPresent(address, (a, quota) -> quota.isIdle() ? null : quota);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package server.core.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `ClientQuota` class holds the rate limits shared by all connections from one IP address: a token bucket for new
+ * connections and one for requests.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class ClientQuota {
+    /**
+     * The bucket limiting new connections, `null` if connections are not limited.
+     */
+    private final TokenBucket connectionBucket;
+    /**
+     * The bucket limiting requests, `null` if requests are not limited.
+     */
+    private final TokenBucket requestBucket;
+    /**
+     * The number of open connections using this quota.
+     */
+    private final AtomicInteger openConnections;
+
+    /**
+     * Constructs a `ClientQuota` with full buckets.
+     *
+     * @param connectionBucket The bucket limiting new connections, `null` if connections are not limited.
+     * @param requestBucket    The bucket limiting requests, `null` if requests are not limited.
+     */
+    ClientQuota(TokenBucket connectionBucket, TokenBucket requestBucket) {
+        this.connectionBucket = connectionBucket;
+        this.requestBucket = requestBucket;
+        this.openConnections = new AtomicInteger();
+    }
+
+    /**
+     * Takes a token for a new connection.
+     *
+     * @return 0 if the connection may be accepted, otherwise the number of milliseconds to wait before retrying.
+     */
+    long tryAcquireConnection() {
+        return connectionBucket == null ? 0 : connectionBucket.tryAcquire();
+    }
+
+    /**
+     * Takes a token for a request.
+     *
+     * @return 0 if the request may be processed, otherwise the number of milliseconds to wait before retrying.
+     */
+    public long tryAcquireRequest() {
+        return requestBucket == null ? 0 : requestBucket.tryAcquire();
+    }
+
+    /**
+     * Records that a connection using this quota was opened.
+     */
+    void connectionOpened() {
+        openConnections.incrementAndGet();
+    }
+
+    /**
+     * Records that a connection using this quota was closed.
+     */
+    public void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * Checks whether the quota can be dropped: no connection uses it and its buckets have refilled completely.
+     *
+     * @return `true` if the quota is idle, `false` otherwise.
+     */
+    boolean isIdle() {
+        return openConnections.get() == 0
+                && (connectionBucket == null || connectionBucket.isFull())
+                && (requestBucket == null || requestBucket.isFull());
+    }
+}
@@ -0,0 +1,75 @@
+package server.core.admission;
+
+/**
+ * The `TokenBucket` class limits the rate of an action. The bucket holds up to `capacity` tokens and is refilled at
+ * `ratePerSecond` tokens per second; every action takes one token, so short bursts up to the capacity are allowed
+ * while the long-term rate stays bounded.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class TokenBucket {
+    /**
+     * The maximum number of tokens.
+     */
+    private final double capacity;
+    /**
+     * The number of tokens added per nanosecond.
+     */
+    private final double tokensPerNano;
+    /**
+     * The number of tokens currently in the bucket.
+     */
+    private double tokens;
+    /**
+     * The time of the last refill, as returned by `System.nanoTime()`.
+     */
+    private long lastRefill;
+
+    /**
+     * Constructs a full `TokenBucket`.
+     *
+     * @param ratePerSecond The number of tokens added per second.
+     * @param capacity      The maximum number of tokens.
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the number of milliseconds until the next token is available.
+     */
+    public synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1_000_000.0));
+    }
+
+    /**
+     * Checks whether the bucket is full, in which case it is indistinguishable from a new bucket.
+     *
+     * @return `true` if the bucket is full, `false` otherwise.
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    /**
+     * Adds the tokens accumulated since the last refill.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,284 @@
+package server.core.connection;
+
+import protocol.FrameEncoder;
+import server.core.admission.ClientQuota;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `Connection` class represents a connected client, independent of the transport serving it. Every message sent
+ * to the client - responses, pings and broadcasts, from any thread - goes through its bounded outbound queue, and
+ * queued messages are written in batches so one write carries as many messages as are waiting. Messages are encoded
+ * by the thread sending them, as text lines or, once the client switched to the binary protocol, as frames, so the
+ * transports only ever write bytes.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public abstract class Connection {
+    /**
+     * The unique key identifying the client (ip:port).
+     */
+    private final String clientKey;
+    /**
+     * The collection of connected clients, the connection removes itself from it when closed.
+     */
+    private final Map<String, Connection> clients;
+    /**
+     * The maximum number of messages waiting in the outbound queue.
+     */
+    private final int outboundQueueSize;
+    /**
+     * The encoded messages waiting to be written to the client.
+     */
+    private final Queue<byte[]> outbound;
+    /**
+     * The number of messages in the outbound queue.
+     */
+    private final AtomicInteger outboundCount;
+    /**
+     * The number of requests of this connection currently being processed on worker threads.
+     */
+    private final AtomicInteger inFlight;
+    /**
+     * Whether the connection has been closed.
+     */
+    private final AtomicBoolean closed;
+    /**
+     * Whether the client switched to the binary protocol.
+     */
+    private volatile boolean binary;
+    /**
+     * The rate limits shared with the other connections from the same address, `null` if the connection is not limited.
+     */
+    private volatile ClientQuota quota;
+
+    /**
+     * Constructs a `Connection` for the given client.
+     *
+     * @param clientKey         The unique key identifying the client.
+     * @param clients           The collection of connected clients.
+     * @param outboundQueueSize The maximum number of messages waiting in the outbound queue.
+     */
+    protected Connection(String clientKey, Map<String, Connection> clients, int outboundQueueSize) {
+        this.clientKey = clientKey;
+        this.clients = clients;
+        this.outboundQueueSize = outboundQueueSize;
+        this.outbound = new ConcurrentLinkedQueue<>();
+        this.outboundCount = new AtomicInteger();
+        this.inFlight = new AtomicInteger();
+        this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Gets the unique key identifying the client.
+     *
+     * @return The client key.
+     */
+    public String getClientKey() {
+        return clientKey;
+    }
+
+    /**
+     * Checks if the connection has been closed.
+     *
+     * @return `true` if the connection is closed, `false` otherwise.
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Checks if the client switched to the binary protocol.
+     *
+     * @return `true` if the connection uses the binary protocol, `false` if it uses the text protocol.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Sets the rate limits of the connection, before it starts serving the client. The quota is released when the
+     * connection is closed.
+     *
+     * @param quota The quota granted by the `AdmissionController` when the connection was admitted.
+     */
+    public void setQuota(ClientQuota quota) {
+        this.quota = quota;
+    }
+
+    /**
+     * Takes a token for a request from the quota of the connection.
+     *
+     * @return 0 if the request may be processed, otherwise the number of milliseconds the client should wait.
+     */
+    public long tryAcquireRequest() {
+        ClientQuota quota = this.quota;
+        return quota == null ? 0 : quota.tryAcquireRequest();
+    }
+
+    /**
+     * Switches the connection to the binary protocol. Messages queued before the switch are still sent as text lines.
+     */
+    public void switchToBinary() {
+        binary = true;
+    }
+
+    /**
+     * Queues a message for the client and makes sure it gets written. Can be called from any thread. The message is
+     * sent as a text line, or as a string frame without a request id if the client uses the binary protocol.
+     *
+     * @param message The message to send, without the trailing newline.
+     * @return `true` if the message was queued, `false` if the connection is closed or the queue was full.
+     */
+    public boolean send(String message) {
+        if (binary) {
+            return sendFrame(FrameEncoder.encodeString(0, message));
+        }
+        byte[] line = (message + '\n').getBytes(StandardCharsets.UTF_8);
+        return enqueue(line);
+    }
+
+    /**
+     * Queues an encoded binary frame for the client and makes sure it gets written. Can be called from any thread.
+     *
+     * @param frame The frame, including its length prefix.
+     * @return `true` if the frame was queued, `false` if the connection is closed or the queue was full.
+     */
+    public boolean sendFrame(byte[] frame) {
+        return enqueue(frame);
+    }
+
+    /**
+     * Queues encoded bytes for the client and makes sure they get written. A client that lets its outbound queue fill
+     * up is not reading and is disconnected.
+     *
+     * @param bytes The encoded message.
+     * @return `true` if the message was queued, `false` if the connection is closed or the queue was full.
+     */
+    private boolean enqueue(byte[] bytes) {
+        if (closed.get()) {
+            return false;
+        }
+        if (outboundCount.incrementAndGet() > outboundQueueSize) {
+            outboundCount.decrementAndGet();
+            System.out.println("Client " + clientKey + " removed, outbound queue is full.");
+            close();
+            return false;
+        }
+        outbound.add(bytes);
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * Runs a request that is answered in order: the next message of the connection is only processed once it is done.
+     * By default the request runs right away on the thread that read it, which serves only this connection and may
+     * block on the databases.
+     *
+     * @param task     The request.
+     * @param executor The executor for requests that must not run on the thread that read them.
+     */
+    public void executeInOrder(Runnable task, Executor executor) {
+        task.run();
+    }
+
+    /**
+     * Reserves a slot for a request processed on a worker thread.
+     *
+     * @param maxInFlight The maximum number of requests the connection can have in flight.
+     * @return `true` if a slot was reserved, `false` if the connection already has `maxInFlight` requests in flight.
+     */
+    public boolean tryAcquireInFlight(int maxInFlight) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot reserved by `tryAcquireInFlight`.
+     */
+    public void releaseInFlight() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Takes the next message from the outbound queue.
+     *
+     * @return The next encoded message, or `null` if the queue is empty.
+     */
+    protected byte[] pollOutbound() {
+        byte[] message = outbound.poll();
+        if (message != null) {
+            outboundCount.decrementAndGet();
+        }
+        return message;
+    }
+
+    /**
+     * Checks if messages are waiting in the outbound queue.
+     *
+     * @return `true` if the outbound queue is not empty, `false` otherwise.
+     */
+    public boolean hasOutbound() {
+        return !outbound.isEmpty();
+    }
+
+    /**
+     * Makes sure the queued messages get written. Implementations coalesce concurrent calls into as few writes as
+     * possible.
+     */
+    protected abstract void scheduleFlush();
+
+    /**
+     * Closes the underlying transport.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    protected abstract void closeTransport() throws IOException;
+
+    /**
+     * Called when a write to the client failed. The client is considered unresponsive and disconnected.
+     */
+    protected void writeFailed() {
+        if (!closed.get()) {
+            System.out.println("Client " + clientKey + " removed due to unresponsiveness.");
+            close();
+        }
+    }
+
+    /**
+     * Closes the connection, drops the queued messages and removes the connection from the collection of clients.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        clients.remove(clientKey, this);
+        outbound.clear();
+        ClientQuota quota = this.quota;
+        if (quota != null) {
+            this.quota = null;
+            quota.connectionClosed();
+        }
+        try {
+            closeTransport();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package server.core.connection;
+
+import protocol.BinaryProtocol;
+import protocol.FrameDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `SocketConnection` class is a connection served by a blocking socket. It owns the only reader and the only
+ * writer of the socket. The reader works on bytes, so it can read text lines until the client switches to the binary
+ * protocol and frames afterwards without losing anything it has already buffered.
+ * <p>
+ * Threads queueing a message never write to the socket themselves, as a client that stops reading would block them;
+ * the heartbeats, for one, are sent from the timer thread, which must not block. The first message queued while no
+ * flush is running starts a flush on the writer executor, which writes everything queued up to that point, including
+ * messages queued meanwhile, with a single flush. A stalled client only ever blocks its own flush.
+ *
+ * @uses Connection
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class SocketConnection extends Connection {
+    /**
+     * The socket for communicating with the client.
+     */
+    private final Socket socket;
+    /**
+     * The maximum length of a single received line. Longer lines close the connection.
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * The stream of bytes received from the client.
+     */
+    private final InputStream in;
+    /**
+     * The stream of bytes sent to the client.
+     */
+    private final OutputStream out;
+    /**
+     * The bytes of the line currently being received.
+     */
+    private final ByteArrayOutputStream line;
+    /**
+     * The number of flush requests not yet handled by the current flusher; 0 when no flush is running.
+     */
+    private final AtomicInteger flushRequests;
+    /**
+     * The executor running the flushes, so they never block the thread that queued a message.
+     */
+    private final Executor writer;
+
+    /**
+     * Constructs a `SocketConnection` for the given socket.
+     *
+     * @param socket            The socket for communicating with the client.
+     * @param clientKey         The unique key identifying the client.
+     * @param clients           The collection of connected clients.
+     * @param outboundQueueSize The maximum number of messages waiting in the outbound queue.
+     * @param writer            The executor running the flushes.
+     * @throws IOException If the streams of the socket cannot be opened.
+     */
+    public SocketConnection(Socket socket, String clientKey, Map<String, Connection> clients, int outboundQueueSize, Executor writer) throws IOException {
+        super(clientKey, clients, outboundQueueSize);
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.line = new ByteArrayOutputStream();
+        this.flushRequests = new AtomicInteger();
+        this.writer = writer;
+    }
+
+    /**
+     * Reads the next line sent by the client. Only the thread serving the connection may call it.
+     *
+     * @return The line read, or `null` if the end of the stream has been reached.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String readLine() throws IOException {
+        line.reset();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.size() > 0 ? lineToString() : null;
+            }
+            if (line.size() >= MAX_LINE_LENGTH) {
+                throw new ProtocolException("Line too long");
+            }
+            line.write(b);
+        }
+        return lineToString();
+    }
+
+    /**
+     * Reads the next binary frame sent by the client. Only the thread serving the connection may call it.
+     *
+     * @return The frame without its length prefix, or `null` if the end of the stream has been reached.
+     * @throws IOException If an I/O error occurs or the frame is malformed.
+     */
+    public byte[] readFrame() throws IOException {
+        return FrameDecoder.readFrame(in, BinaryProtocol.MAX_REQUEST_LENGTH);
+    }
+
+    /**
+     * Decodes the received line, dropping a trailing carriage return.
+     *
+     * @return The received line.
+     */
+    private String lineToString() {
+        String received = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        return received.endsWith("\r") ? received.substring(0, received.length() - 1) : received;
+    }
+
+    /**
+     * Starts a flush on the writer executor, unless one is already running; in that case the running flush picks up
+     * the new messages before it finishes.
+     */
+    @Override
+    protected void scheduleFlush() {
+        if (flushRequests.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            writer.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            // The writers only reject flushes while the server shuts down
+            writeFailed();
+        }
+    }
+
+    /**
+     * Writes all queued messages and flushes them at once, then again as long as more flushes were requested
+     * meanwhile. Runs on the writer executor.
+     */
+    private void flush() {
+        int missed = flushRequests.get();
+        try {
+            do {
+                byte[] message;
+                while ((message = pollOutbound()) != null) {
+                    out.write(message);
+                }
+                out.flush();
+                missed = flushRequests.addAndGet(-missed);
+            } while (missed != 0);
+        } catch (IOException e) {
+            writeFailed();
+        }
+    }
+
+    /**
+     * Closes the socket.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    protected void closeTransport() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,127 @@
+package server.core.messages;
+
+import protocol.BinaryProtocol;
+import protocol.FrameDecoder;
+
+import java.net.ProtocolException;
+import java.util.NoSuchElementException;
+
+/**
+ * The `BinaryTokens` class reads the tagged values of a binary request frame. Keywords are read back as the shared
+ * keyword strings and ints are read without going through a string, while an int read as a string and a string read as
+ * an int are converted, so a request reads the same whichever way the client encoded its parts.
+ *
+ * @uses MessageTokens
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class BinaryTokens implements MessageTokens {
+    /**
+     * The decoder positioned at the next value of the frame.
+     */
+    private final FrameDecoder decoder;
+
+    /**
+     * Constructs `BinaryTokens` for the values of a frame.
+     *
+     * @param decoder The decoder positioned at the first value of the frame.
+     */
+    public BinaryTokens(FrameDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * Checks whether the frame has more values.
+     *
+     * @return `true` if there is another value, `false` otherwise.
+     */
+    @Override
+    public boolean hasNext() {
+        return decoder.hasRemaining();
+    }
+
+    /**
+     * Reads the next value as a string.
+     *
+     * @return The next value.
+     */
+    @Override
+    public String nextString() {
+        try {
+            byte tag = nextTag();
+            switch (tag) {
+                case BinaryProtocol.TAG_KEYWORD:
+                    return BinaryProtocol.KEYWORDS[decoder.readRawKeyword()];
+                case BinaryProtocol.TAG_INT:
+                    return Integer.toString(decoder.readRawInt());
+                case BinaryProtocol.TAG_STRING:
+                    return decoder.readRawString();
+                default:
+                    throw new IllegalArgumentException("Unexpected value tag: " + tag);
+            }
+        } catch (ProtocolException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the next value as an int.
+     *
+     * @return The next value.
+     */
+    @Override
+    public int nextInt() {
+        try {
+            byte tag = nextTag();
+            switch (tag) {
+                case BinaryProtocol.TAG_INT:
+                    return decoder.readRawInt();
+                case BinaryProtocol.TAG_STRING:
+                    return Integer.parseInt(decoder.readRawString());
+                default:
+                    throw new NumberFormatException("Value with tag " + tag + " is not an int");
+            }
+        } catch (ProtocolException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the next value as a keyword.
+     *
+     * @return The wire id of the keyword, or -1 if the next value is not a keyword.
+     */
+    @Override
+    public int nextKeyword() {
+        try {
+            byte tag = nextTag();
+            switch (tag) {
+                case BinaryProtocol.TAG_KEYWORD:
+                    return decoder.readRawKeyword();
+                case BinaryProtocol.TAG_INT:
+                    decoder.readRawInt();
+                    return -1;
+                case BinaryProtocol.TAG_STRING:
+                    return BinaryProtocol.keywordId(decoder.readRawString());
+                default:
+                    throw new IllegalArgumentException("Unexpected value tag: " + tag);
+            }
+        } catch (ProtocolException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the tag of the next value.
+     *
+     * @return The tag.
+     * @throws ProtocolException If the frame is truncated.
+     */
+    private byte nextTag() throws ProtocolException {
+        if (!decoder.hasRemaining()) {
+            throw new NoSuchElementException("Frame has no more values");
+        }
+        return decoder.readTag();
+    }
+}
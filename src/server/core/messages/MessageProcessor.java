@@ -1,12 +1,25 @@
 package server.core.messages;
 
+import server.core.messages.commands.Command;
+import server.core.messages.commands.CommandContext;
+import server.core.messages.commands.CommandRegistry;
 import server.database.questionDatabase.QuestionDatabaseHandler;
-import server.database.relationDatabase.Relation;
 import server.database.relationDatabase.RelationDatabaseHandler;
 import server.database.userDatabase.UserDatabaseHandler;
 
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * The `MessageProcessor` class is responsible for processing incoming messages and executing various server tasks based on message content.
+ * Messages are read through `MessageTokens`, so text and binary messages are processed alike, and results are returned
+ * as objects that each protocol encodes in its own way. Every message type is handled by a `Command` from the
+ * `CommandRegistry`, which also keeps the count and latency of every command.
+ * <p>
+ * When the server drains, messages are no longer processed and are answered with the drain reply, while the messages
+ * already being processed are counted so the server can wait for them before flushing the databases.
  *
  * @author Tomasz Zbroszczyk
  * @since 09.10.2023
@@ -14,18 +27,26 @@ import server.database.userDatabase.UserDatabaseHandler;
  */
 public class MessageProcessor {
     /**
-     * The handler for user database operations.
+     * The interval between checks for completed messages while draining, in milliseconds.
      */
-    private final UserDatabaseHandler userDatabaseHandler;
+    private static final long DRAIN_POLL_INTERVAL = 10;
+
     /**
-     * The handler for question database operations.
+     * The databases the commands work on.
      */
-    private static QuestionDatabaseHandler questionDatabaseHandler;
-
+    private final CommandContext commandContext;
+    /**
+     * The registry of the commands.
+     */
+    private final CommandRegistry commandRegistry;
+    /**
+     * The number of messages currently being processed.
+     */
+    private final AtomicInteger activeMessages;
     /**
-     * The handler for relation database operations.
+     * The reply to messages received while the server drains, `null` while the server is running.
      */
-    private static RelationDatabaseHandler relationDatabaseHandler;
+    private volatile String drainReply;
 
     /**
      * Constructs a `MessageProcessor` with the specified user database handler and question database handler.
@@ -33,177 +54,113 @@ public class MessageProcessor {
      * @param userDatabaseHandler       The handler for user database operations.
      * @param questionDatabaseHandler   The handler for question database operations.
      * @param relationDatabaseHandler   The handler for relation database operations.
+     * @param pageSize                  The maximum number of elements in a page of a bulk result.
      */
-    public MessageProcessor(UserDatabaseHandler userDatabaseHandler, QuestionDatabaseHandler questionDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler) {
-        this.userDatabaseHandler = userDatabaseHandler;
-        this.questionDatabaseHandler = questionDatabaseHandler;
-        this.relationDatabaseHandler = relationDatabaseHandler;
-        MessageProcessor.questionDatabaseHandler = questionDatabaseHandler;
+    public MessageProcessor(UserDatabaseHandler userDatabaseHandler, QuestionDatabaseHandler questionDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler, int pageSize) {
+        this.commandContext = new CommandContext(userDatabaseHandler, questionDatabaseHandler, relationDatabaseHandler, pageSize);
+        this.commandRegistry = CommandRegistry.createDefault();
+        this.activeMessages = new AtomicInteger();
     }
 
     /**
-     * Pre-processes an incoming message by splitting it into parts.
+     * Processes an incoming text message and performs appropriate actions based on the message content.
      *
-     * @param message The incoming message to be pre-processed.
-     * @return An array of message parts after pre-processing.
+     * @param message The incoming message to be processed.
+     * @return A response message based on the processing result.
      */
-    private String[] preProcessMessage(String message) {
-        String[] messageParts = message.split(":");
-        return messageParts;
+    public String processMessage(String message) {
+        return toText(process(new TextTokens(message)));
     }
 
     /**
-     * Processes an incoming message and performs appropriate actions based on the message content.
+     * Formats a result of `process` as a text response. Lists are sent as one element per line, pages as their header
+     * line followed by one element per line. The last line has no trailing newline, as the connection ends every
+     * response with one.
      *
-     * @param message The incoming message to be processed.
-     * @return A response message based on the processing result.
+     * @param result The result to format.
+     * @return The text response.
      */
-    public String processMessage(String message) {
-        String[] preProcessedMessage = preProcessMessage(message);
-        switch (preProcessedMessage[0]) {
-            case "newClient": {
-                System.out.println("New client connected " + preProcessedMessage[1]);
-                return "New client connected " + preProcessedMessage[1];
-            }
-            case "newUser": {
-                if (userDatabaseHandler.add(preProcessedMessage[1], preProcessedMessage[2])) {
-                    return "User added successfully";
-                } else {
-                    return "bad_request";
-                }
-            }
-            case "login": {
-                if (userDatabaseHandler.getByName(preProcessedMessage[1]) != null) {
-                    if (userDatabaseHandler.getByName(preProcessedMessage[1]).getPassword().equals(preProcessedMessage[2])) {
-                        return "User logged in";
-                    } else {
-                        return "bad_request";
-                    }
-                } else {
-                    return "bad_request";
-                }
+    private static String toText(Object result) {
+        if (result instanceof List) {
+            StringJoiner text = new StringJoiner("\n");
+            for (Object element : (List<?>) result) {
+                text.add(String.valueOf(element));
             }
-            case "getUser": {
-                if (preProcessedMessage[1].equals("username")) {
-                    if (userDatabaseHandler.getByName(preProcessedMessage[2]) != null) {
-                        return userDatabaseHandler.getByName(preProcessedMessage[2]).toString();
-                    } else {
-                        return "bad_request";
-                    }
-                } else if (preProcessedMessage[1].equals("id")) {
-                    if (userDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])) != null) {
-                        return userDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])).toString();
-                    } else {
-                        return "bad_request";
-                    }
-                } else {
-                    return "bad_request";
-                }
-            }
-            case "getQuestion": {
-                if (preProcessedMessage[1].equals("id")) {
-                    if (questionDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])) != null) {
-                        return questionDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])).toString();
-                    } else {
-                        return "bad_request";
-                    }
-                } else if (preProcessedMessage[1].equals("random")) {
-                    return questionDatabaseHandler.getAll().get((int) (Math.random() * questionDatabaseHandler.getAll().size())).toString();
-                } else {
-                    return "bad_request";
-                }
-            }
-            case "addQuestion": {
-                questionDatabaseHandler.add(preProcessedMessage[1], preProcessedMessage[2], preProcessedMessage[3], preProcessedMessage[4].split(";"));
-                return "Question added successfully";
+            return text.toString();
+        }
+        return result.toString();
+    }
+
+    /**
+     * Processes an incoming message by running the command it names and recording the command's metrics.
+     *
+     * @param message The parts of the incoming message to be processed.
+     * @return The result of the processing: a status message, or the `User`, `Question`, `Relation` or page of
+     * relations that was asked for; "bad_message" if the message is malformed or the command fails.
+     */
+    public Object process(MessageTokens message) {
+        // Count the message before checking for a drain, so a drain either sees it or rejects it
+        activeMessages.incrementAndGet();
+        try {
+            String drainReply = this.drainReply;
+            if (drainReply != null) {
+                return drainReply;
             }
-            case "answerQuestion": {
-                if (preProcessedMessage[1].equals("id")) {
-                    if (questionDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])) != null) {
-                        return questionDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])).compareAnswer(preProcessedMessage[3]) ? "Correct answer" : "Wrong answer";
-                    }
-                }
-                return "bad_request";
+            int keywordId = message.nextKeyword();
+            Command command = commandRegistry.get(keywordId);
+            if (command == null) {
+                return "bad_message";
             }
-            case "addRelation": {
-                if (relationDatabaseHandler.add(Integer.parseInt(preProcessedMessage[1]), Integer.parseInt(preProcessedMessage[2])))
-                    return "Relation added successfully";
-                else
-                    return "bad_request";
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = command.execute(message, commandContext);
+                failed = false;
+                return result;
+            } finally {
+                commandRegistry.getMetrics(keywordId).record(System.nanoTime() - start, failed);
             }
-            case "getRelation": {
-                if (preProcessedMessage[1].equals("id")) {
-                    return relationDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2])).toString();
-                } else if (preProcessedMessage[1].equals("users")) {
-                    return relationDatabaseHandler.getByName(preProcessedMessage[2], preProcessedMessage[3]).toString() == null ? "bad_request" : relationDatabaseHandler.getByName(preProcessedMessage[2], preProcessedMessage[3]).toString();
-                } else {
-                    return "bad_request";
-                }
+        } catch (RuntimeException e) {
+            // A malformed message, such as a number that does not parse or a missing part, fails the same way on every
+            // transport instead of dropping the connection of the handler it escapes from
+            System.out.println("Bad message: " + e);
+            return "bad_message";
+        } finally {
+            activeMessages.decrementAndGet();
+        }
+    }
 
-            }
-            //TODO updateRelation
-            case "updateRelation": {
-                if (preProcessedMessage[1].equals("id")) {
-                    return "Not yet implemented";
-                } else if (preProcessedMessage[1].equals("users")) {
-                    return "Not yet implemented";
-                } else {
-                    return "bad_request";
-                }
+    /**
+     * Stops processing new messages. Messages received from now on are answered with the given reply.
+     *
+     * @param reply The reply to messages received while the server drains.
+     */
+    public void beginDrain(String reply) {
+        drainReply = reply;
+    }
 
-            }
-            case "getRelations": {
-                if(preProcessedMessage[1].equals("userId"))
-                    return relationDatabaseHandler.getAll().stream().filter(relation -> relation.getUser1Id() == Integer.parseInt(preProcessedMessage[2]) || relation.getUser2Id() == Integer.parseInt(preProcessedMessage[2])).map(Object::toString).reduce("", (s, s2) -> s + s2 + "\n");
-                else if(preProcessedMessage[1].equals("all")) {
-                    return relationDatabaseHandler.getAll().stream().map(Object::toString).reduce("", (s, s2) -> s + s2 + "\n");
-                } else
-                    return "bad_request";
-            }
-            case "getRelationQuestions": {
-                if(preProcessedMessage[1].equals("id")) {
-                    Relation relation = relationDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2]));
-                    if(preProcessedMessage[5].equals("id") && relation != null && preProcessedMessage[3].equals("userId")) {
-                        int question;
-                        int count = 0;
-                        do {
-                        question = questionDatabaseHandler.getAll().get((int) (Math.random() * questionDatabaseHandler.getAll().size())).getId();
-                        } while ((relation.getQuestionsAnsweredByUser1().contains(question) && relation.getUser1Id() == Integer.parseInt(preProcessedMessage[4]))
-                                || (relation.getQuestionsAnsweredByUser2().contains(question) && relation.getUser2Id() == Integer.parseInt(preProcessedMessage[4]))
-                                || (relation.getQuestionsUnansweredByUser1().containsKey(question) && relation.getUser1Id() == Integer.parseInt(preProcessedMessage[4]))
-                                || (relation.getQuestionsUnansweredByUser2().containsKey(question) && relation.getUser2Id() == Integer.parseInt(preProcessedMessage[4]))
-                                || count++ > relationDatabaseHandler.getRelationsSize());
-                        return questionDatabaseHandler.getById(question).toString();
-                    } else
-                        return "bad_request";
-                } else
-                    return "bad_request";
-            }
-            case "relationAddQuestionAnswer": {
-                if(preProcessedMessage[1].equals("id")) {
-                    Relation relation = relationDatabaseHandler.getById(Integer.parseInt(preProcessedMessage[2]));
-                    if(relation != null && preProcessedMessage[3].equals("userId") && preProcessedMessage[5].equals("questionId")) {
-                        if(relation.getUser1Id() == Integer.parseInt(preProcessedMessage[4])) {
-                            relation.addQuestionAnsweredByUser1(Integer.parseInt(preProcessedMessage[6]), preProcessedMessage[7]);
-                            relationDatabaseHandler.update();
-                            return "Question answered successfully";
-                        } else if(relation.getUser2Id() == Integer.parseInt(preProcessedMessage[4])) {
-                            relation.addQuestionAnsweredByUser2(Integer.parseInt(preProcessedMessage[6]), preProcessedMessage[7]);
-                            relationDatabaseHandler.update();
-                            return "Question answered successfully";
-                        } else {
-                            return "bad_request";
-                        }
-                    } else
-                        return "bad_request";
-                } else
-                    return "bad_request";
-            }
-            case "answerRelationQuestion": {
-                //TODO implement answerRelationQuestion
-            }
-            default:
-                return "bad_message";
+    /**
+     * Waits until no message is being processed. Only meaningful after `beginDrain`, when no new messages start.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds.
+     * @return The number of messages still being processed when the wait ended, 0 if all of them completed.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public int awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int active;
+        while ((active = activeMessages.get()) > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(DRAIN_POLL_INTERVAL);
         }
+        return active;
+    }
+
+    /**
+     * Gets the registry of the commands, holding their metrics.
+     *
+     * @return The command registry.
+     */
+    public CommandRegistry getCommandRegistry() {
+        return commandRegistry;
     }
 }
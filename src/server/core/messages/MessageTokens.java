@@ -0,0 +1,43 @@
+package server.core.messages;
+
+/**
+ * The `MessageTokens` interface is a cursor over the parts of a received message. The text protocol and the binary
+ * protocol both provide one, so the `MessageProcessor` handles both without knowing how the message was encoded.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public interface MessageTokens {
+    /**
+     * Checks whether the message has more parts.
+     *
+     * @return `true` if there is another part, `false` otherwise.
+     */
+    boolean hasNext();
+
+    /**
+     * Reads the next part as a string.
+     *
+     * @return The next part.
+     * @throws java.util.NoSuchElementException If the message has no more parts.
+     */
+    String nextString();
+
+    /**
+     * Reads the next part as an int.
+     *
+     * @return The next part.
+     * @throws java.util.NoSuchElementException If the message has no more parts.
+     * @throws NumberFormatException           If the next part is not an int.
+     */
+    int nextInt();
+
+    /**
+     * Reads the next part as a keyword of the protocol.
+     *
+     * @return The wire id of the keyword (see `BinaryProtocol`), or -1 if the next part is not a keyword.
+     * @throws java.util.NoSuchElementException If the message has no more parts.
+     */
+    int nextKeyword();
+}
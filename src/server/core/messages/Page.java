@@ -0,0 +1,76 @@
+package server.core.messages;
+
+import java.util.List;
+
+/**
+ * The `Page` class is one page of the result of a bulk command, such as `getRelations`. Instead of building the whole
+ * result at once, the server sends a bounded number of elements and a cursor; the client asks for the next page with
+ * the cursor until it gets the last one, so neither side holds more than a page in memory.
+ * <p>
+ * As text a page is a header line `page:COUNT:NEXT`, `NEXT` being `end` on the last page, followed by one element per
+ * line, so the client knows how many lines belong to the response.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class Page {
+    /**
+     * The cursor of the last page.
+     */
+    public static final int END = -1;
+
+    /**
+     * The elements of the page.
+     */
+    private final List<?> elements;
+    /**
+     * The cursor of the next page, `END` if this is the last page.
+     */
+    private final int next;
+
+    /**
+     * Constructs a `Page` with the given elements and cursor.
+     *
+     * @param elements The elements of the page.
+     * @param next     The cursor of the next page, `END` if this is the last page.
+     */
+    public Page(List<?> elements, int next) {
+        this.elements = elements;
+        this.next = next;
+    }
+
+    /**
+     * Gets the elements of the page.
+     *
+     * @return The elements.
+     */
+    public List<?> getElements() {
+        return elements;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     *
+     * @return The cursor, `END` if this is the last page.
+     */
+    public int getNext() {
+        return next;
+    }
+
+    /**
+     * Formats the page as text, a header line followed by one element per line. The last line has no trailing newline,
+     * as the connection ends every response with one.
+     *
+     * @return The text of the page.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("page:").append(elements.size()).append(':').append(next == END ? "end" : String.valueOf(next));
+        for (Object element : elements) {
+            text.append('\n').append(element);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,198 @@
+package server.core.messages;
+
+import server.database.questionDatabase.QuestionDatabaseHandler;
+import server.database.relationDatabase.RelationDatabaseHandler;
+import server.database.userDatabase.UserDatabaseHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The `RequestAllocationBenchmark` class measures the bytes allocated and the time taken to serve typical text
+ * requests end to end: `MessageProcessor.process` parses the request with `TextTokens` and runs its command against
+ * real databases, and `MessageProcessor.processMessage` also formats the text response the connection sends. The
+ * databases are generated in an empty directory: users, questions and relations whose users have answered some of
+ * the questions. The requests only read, or are rejected without a write, so every iteration does the same work.
+ * Allocations of the current thread are read from the JVM, which HotSpot supports; every request is warmed up before
+ * it is measured, so the JIT has had the chance to remove the allocations it can.
+ * <p>
+ * Usage: `java server.core.messages.RequestAllocationBenchmark /tmp/requests 1000000`
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class RequestAllocationBenchmark {
+    /**
+     * The number of users, and of relations, generated.
+     */
+    private static final int USERS = 1000;
+    /**
+     * The number of questions generated.
+     */
+    private static final int QUESTIONS = 200;
+    /**
+     * The number of questions each user of a relation has answered.
+     */
+    private static final int ANSWERED = 20;
+
+    /**
+     * The requests measured.
+     */
+    private static final String[] REQUESTS = {
+            "getQuestion:id:42",
+            "getUser:id:7",
+            "getUser:username:user7",
+            "getRelation:id:3",
+            "getRelation:users:3:4",
+            "getRelations:userId:3",
+            "getRelationQuestions:id:3:userId:3:id:random",
+            "answerRelationQuestion:id:3:userId:3:questionId:5:Blue Whale",
+    };
+
+    /**
+     * Keeps the results of the requests alive, so they are not optimized away.
+     */
+    private static long sink;
+
+    /**
+     * Prevents instantiation.
+     */
+    private RequestAllocationBenchmark() {}
+
+    /**
+     * Generates the databases in the directory given as the first argument, serves every request the number of times
+     * given as the second argument and prints the bytes allocated and the time taken per request.
+     *
+     * @param args The empty directory and the number of iterations.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: RequestAllocationBenchmark <empty directory> <iterations>");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        int iterations = Integer.parseInt(args[1]);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("This JVM does not report allocated bytes per thread.");
+            System.exit(1);
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        MessageProcessor messageProcessor;
+        try {
+            messageProcessor = createProcessor(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        for (String request : REQUESTS) {
+            // Warm up both paths, so both are compiled before they are measured
+            process(messageProcessor, request, iterations);
+            processMessage(messageProcessor, request, iterations);
+            String response = messageProcessor.processMessage(request).replace('\n', ' ');
+            System.out.println(request + " -> " + (response.length() > 40 ? response.substring(0, 40) + "..." : response));
+            measure("process", allocations, () -> process(messageProcessor, request, iterations), iterations);
+            measure("+ text", allocations, () -> processMessage(messageProcessor, request, iterations), iterations);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Generates the databases in an empty directory and creates a processor serving them.
+     *
+     * @param directory The directory.
+     * @return The processor.
+     * @throws IOException If the directory is not empty or a database cannot be written.
+     */
+    private static MessageProcessor createProcessor(File directory) throws IOException {
+        File users = new File(directory, "users.txt");
+        File questions = new File(directory, "questions.txt");
+        File relations = new File(directory, "relations.txt");
+        if (users.exists() || questions.exists() || relations.exists()) {
+            throw new IOException("Refusing to overwrite the databases in " + directory + ", use an empty directory.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory + ".");
+        }
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            records.add(i + ":user" + i + ":password");
+        }
+        Files.write(users.toPath(), records, StandardCharsets.UTF_8);
+        records.clear();
+        for (int i = 0; i < QUESTIONS; i++) {
+            records.add(i + ":0:Which animal is the largest " + i + "?:Blue Whale:Blue Whale;Elephant;Giraffe");
+        }
+        Files.write(questions.toPath(), records, StandardCharsets.UTF_8);
+        records.clear();
+        for (int i = 0; i < USERS; i++) {
+            // Relation i joins users i and i + 1, who have both answered the first questions
+            StringBuilder answered = new StringBuilder(";");
+            for (int q = 0; q < ANSWERED; q++) {
+                answered.append(q).append(';');
+            }
+            records.add(i + ":" + i + ":" + (i + 1) % USERS + ":" + ANSWERED + ":" + ANSWERED / 2 + ":" + answered + ":" + answered + ":;:;");
+        }
+        Files.write(relations.toPath(), records, StandardCharsets.UTF_8);
+        return new MessageProcessor(new UserDatabaseHandler(users.getPath()), new QuestionDatabaseHandler(questions.getPath()),
+                new RelationDatabaseHandler(relations.getPath(), 0, false), 20);
+    }
+
+    /**
+     * Runs a request loop and prints the bytes allocated and the time taken per request.
+     *
+     * @param name        The name of the path measured.
+     * @param allocations The bean reporting the allocations of the thread.
+     * @param loop        The request loop.
+     * @param iterations  The number of requests the loop serves.
+     */
+    private static void measure(String name, com.sun.management.ThreadMXBean allocations, Runnable loop, int iterations) {
+        long thread = Thread.currentThread().getId();
+        long bytes = allocations.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        loop.run();
+        long nanos = System.nanoTime() - start;
+        bytes = allocations.getThreadAllocatedBytes(thread) - bytes;
+        System.out.printf("  %-8s %8.1f bytes/request %8.1f ns/request%n", name, bytes / (double) iterations, nanos / (double) iterations);
+    }
+
+    /**
+     * Serves a request without formatting its response, as the binary protocol does before encoding it.
+     *
+     * @param messageProcessor The processor.
+     * @param request          The request.
+     * @param iterations       The number of times it is served.
+     */
+    private static void process(MessageProcessor messageProcessor, String request, int iterations) {
+        long result = 0;
+        for (int n = 0; n < iterations; n++) {
+            result += System.identityHashCode(messageProcessor.process(new TextTokens(request)));
+        }
+        sink += result;
+    }
+
+    /**
+     * Serves a request and formats its text response, as the text protocol does.
+     *
+     * @param messageProcessor The processor.
+     * @param request          The request.
+     * @param iterations       The number of times it is served.
+     */
+    private static void processMessage(MessageProcessor messageProcessor, String request, int iterations) {
+        long result = 0;
+        for (int n = 0; n < iterations; n++) {
+            result += messageProcessor.processMessage(request).length();
+        }
+        sink += result;
+    }
+}
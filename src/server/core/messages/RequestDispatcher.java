@@ -0,0 +1,218 @@
+package server.core.messages;
+
+import protocol.BinaryProtocol;
+import protocol.FrameDecoder;
+import server.core.admission.AdmissionController;
+import server.core.connection.Connection;
+
+import java.net.ProtocolException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The `RequestDispatcher` class hands received lines to the `MessageProcessor` and sends the responses back.
+ * A plain line is processed before the next message of its connection is read, so plain requests are answered in order.
+ * On the blocking transports it runs on the thread that read it; an event loop hands it to a worker thread instead, so
+ * waiting for a database write never stalls the other connections of the loop.
+ * A line prefixed with a request id (`@17:getQuestion:random`) is processed on a worker thread, and its response is
+ * prefixed with the same id (`@17:Question [...]`), so a client can keep many requests in flight on one connection
+ * and match the responses, which may arrive in any order.
+ * <p>
+ * A client ending its `newClient` message with `protocol=binary` is switched to the binary protocol after the reply.
+ * Binary frames follow the same rules: a frame with request id 0 is answered in order, any other id on a worker thread.
+ * <p>
+ * A client sending requests faster than its quota allows gets `busy:retry_after:N` instead of a response.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class RequestDispatcher {
+    /**
+     * The prefix marking a request with an id.
+     */
+    private static final char REQUEST_ID_PREFIX = '@';
+    /**
+     * The maximum number of digits of a request id.
+     */
+    private static final int MAX_REQUEST_ID_LENGTH = 9;
+
+    /**
+     * The message processor shared by all clients.
+     */
+    private final MessageProcessor messageProcessor;
+    /**
+     * The executor running requests with an id.
+     */
+    private final ExecutorService workers;
+    /**
+     * The maximum number of requests with an id a single connection can have in flight.
+     */
+    private final int maxInFlight;
+    /**
+     * The admission controller counting rejected requests.
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * Constructs a `RequestDispatcher`.
+     *
+     * @param messageProcessor    The message processor shared by all clients.
+     * @param workers             The executor running requests with an id.
+     * @param maxInFlight         The maximum number of requests with an id a single connection can have in flight.
+     * @param admissionController The admission controller counting rejected requests.
+     */
+    public RequestDispatcher(MessageProcessor messageProcessor, ExecutorService workers, int maxInFlight, AdmissionController admissionController) {
+        this.messageProcessor = messageProcessor;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Processes a line received from a client and sends the response to the client's connection.
+     *
+     * @param connection The connection the line was received on.
+     * @param line       The received line.
+     */
+    public void dispatch(Connection connection, String line) {
+        long retryAfter = retryAfter(connection);
+        if (line.isEmpty() || line.charAt(0) != REQUEST_ID_PREFIX) {
+            if (retryAfter > 0) {
+                connection.send(AdmissionController.busyReply(retryAfter));
+                return;
+            }
+            connection.executeInOrder(() -> {
+                connection.send(messageProcessor.processMessage(line));
+                if (line.startsWith("newClient:") && line.endsWith(":" + BinaryProtocol.HANDSHAKE_FIELD)) {
+                    connection.switchToBinary();
+                }
+            }, workers);
+            return;
+        }
+
+        int separator = requestIdEnd(line);
+        if (separator < 0) {
+            connection.send("bad_message");
+            return;
+        }
+        String tag = line.substring(0, separator + 1);
+        String message = line.substring(separator + 1);
+
+        if (retryAfter > 0) {
+            connection.send(tag + AdmissionController.busyReply(retryAfter));
+            return;
+        }
+
+        if (!connection.tryAcquireInFlight(maxInFlight)) {
+            connection.send(tag + "busy");
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    connection.send(tag + messageProcessor.processMessage(message));
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    connection.send(tag + "bad_message");
+                } finally {
+                    connection.releaseInFlight();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            connection.releaseInFlight();
+            connection.send(tag + "busy");
+        }
+    }
+
+    /**
+     * Processes a binary frame received from a client and sends the response frame to the client's connection.
+     *
+     * @param connection The connection the frame was received on.
+     * @param frame      The received frame, without its length prefix.
+     */
+    public void dispatch(Connection connection, byte[] frame) {
+        FrameDecoder decoder;
+        try {
+            decoder = new FrameDecoder(frame);
+        } catch (ProtocolException e) {
+            connection.send("bad_message");
+            return;
+        }
+        int requestId = decoder.getRequestId();
+        long retryAfter = retryAfter(connection);
+        if (retryAfter > 0) {
+            connection.sendFrame(ResponseEncoder.encode(requestId, AdmissionController.busyReply(retryAfter)));
+            return;
+        }
+        if (requestId == 0) {
+            connection.executeInOrder(() ->
+                    connection.sendFrame(ResponseEncoder.encode(0, messageProcessor.process(new BinaryTokens(decoder)))), workers);
+            return;
+        }
+
+        if (!connection.tryAcquireInFlight(maxInFlight)) {
+            connection.sendFrame(ResponseEncoder.encode(requestId, "busy"));
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    connection.sendFrame(ResponseEncoder.encode(requestId, messageProcessor.process(new BinaryTokens(decoder))));
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    connection.sendFrame(ResponseEncoder.encode(requestId, "bad_message"));
+                } finally {
+                    connection.releaseInFlight();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            connection.releaseInFlight();
+            connection.sendFrame(ResponseEncoder.encode(requestId, "busy"));
+        }
+    }
+
+    /**
+     * Checks whether a binary frame asks to close the connection.
+     *
+     * @param frame The received frame, without its length prefix.
+     * @return `true` if the frame holds just the `exit` keyword, `false` otherwise.
+     */
+    public static boolean isExit(byte[] frame) {
+        return frame.length == 6 && frame[4] == BinaryProtocol.TAG_KEYWORD && frame[5] == BinaryProtocol.KEYWORD_EXIT;
+    }
+
+    /**
+     * Takes a token for a request from the quota of a connection.
+     *
+     * @param connection The connection the request was received on.
+     * @return 0 if the request may be processed, otherwise the number of milliseconds the client should wait.
+     */
+    private long retryAfter(Connection connection) {
+        long retryAfter = connection.tryAcquireRequest();
+        if (retryAfter > 0) {
+            admissionController.requestRejected();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Finds the end of the request id of a line starting with the request id prefix.
+     *
+     * @param line The received line.
+     * @return The index of the `:` following the request id, or -1 if the line has no valid request id.
+     */
+    private int requestIdEnd(String line) {
+        int length = Math.min(line.length(), MAX_REQUEST_ID_LENGTH + 2);
+        for (int i = 1; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == ':') {
+                return i > 1 ? i : -1;
+            }
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
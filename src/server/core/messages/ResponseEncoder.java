@@ -0,0 +1,122 @@
+package server.core.messages;
+
+import protocol.BinaryProtocol;
+import protocol.FrameEncoder;
+import server.database.SortedIntSet;
+import server.database.SortedIntStringMap;
+import server.database.questionDatabase.Question;
+import server.database.relationDatabase.Relation;
+import server.database.userDatabase.User;
+
+import java.util.List;
+
+/**
+ * The `ResponseEncoder` class turns the results of the `MessageProcessor` into binary response frames. Users,
+ * questions and relations are sent as typed fields instead of their `toString()` form, so their text may contain any
+ * character, including `:`.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class ResponseEncoder {
+    /**
+     * Prevents instantiation.
+     */
+    private ResponseEncoder() {}
+
+    /**
+     * Encodes a result as a response frame.
+     *
+     * @param requestId The request id of the request the result answers.
+     * @param result    The result returned by the `MessageProcessor`.
+     * @return The encoded frame.
+     */
+    public static byte[] encode(int requestId, Object result) {
+        FrameEncoder encoder = new FrameEncoder(requestId);
+        writeValue(encoder, result);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Writes a single tagged value.
+     *
+     * @param encoder The encoder of the frame.
+     * @param value   The value.
+     */
+    private static void writeValue(FrameEncoder encoder, Object value) {
+        if (value instanceof User) {
+            User user = (User) value;
+            encoder.writeTag(BinaryProtocol.TAG_USER);
+            encoder.writeRawInt(user.getId());
+            encoder.writeRawString(user.getUsername());
+        } else if (value instanceof Question) {
+            Question question = (Question) value;
+            encoder.writeTag(BinaryProtocol.TAG_QUESTION);
+            encoder.writeRawInt(question.getId());
+            encoder.writeRawString(question.getType());
+            encoder.writeRawString(question.getQuestion());
+            encoder.writeRawString(question.getCorrectAnswer());
+            encoder.writeRawShort(question.getAnswers().length);
+            for (String answer : question.getAnswers()) {
+                encoder.writeRawString(answer);
+            }
+        } else if (value instanceof Relation) {
+            Relation relation = (Relation) value;
+            encoder.writeTag(BinaryProtocol.TAG_RELATION);
+            encoder.writeRawInt(relation.getId());
+            encoder.writeRawInt(relation.getUser1Id());
+            encoder.writeRawInt(relation.getUser2Id());
+            encoder.writeRawInt(relation.getTotalQuestionsAnswered());
+            encoder.writeRawInt(relation.getCorrectQuestionsAnswered());
+            writeIds(encoder, relation.getQuestionsAnsweredByUser1());
+            writeIds(encoder, relation.getQuestionsAnsweredByUser2());
+            writeAnswers(encoder, relation.getQuestionsUnansweredByUser1());
+            writeAnswers(encoder, relation.getQuestionsUnansweredByUser2());
+        } else if (value instanceof Page) {
+            Page page = (Page) value;
+            encoder.writeTag(BinaryProtocol.TAG_PAGE);
+            encoder.writeRawInt(page.getNext());
+            encoder.writeRawInt(page.getElements().size());
+            for (Object element : page.getElements()) {
+                writeValue(encoder, element);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            encoder.writeTag(BinaryProtocol.TAG_LIST);
+            encoder.writeRawInt(list.size());
+            for (Object element : list) {
+                writeValue(encoder, element);
+            }
+        } else {
+            encoder.writeString(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Writes an untagged list of question ids.
+     *
+     * @param encoder The encoder of the frame.
+     * @param ids     The question ids.
+     */
+    private static void writeIds(FrameEncoder encoder, SortedIntSet ids) {
+        encoder.writeRawShort(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            encoder.writeRawInt(ids.get(i));
+        }
+    }
+
+    /**
+     * Writes an untagged map of question ids to answers.
+     *
+     * @param encoder The encoder of the frame.
+     * @param answers The answers by question id.
+     */
+    private static void writeAnswers(FrameEncoder encoder, SortedIntStringMap answers) {
+        encoder.writeRawShort(answers.size());
+        for (int i = 0; i < answers.size(); i++) {
+            encoder.writeRawInt(answers.keyAt(i));
+            encoder.writeRawString(answers.valueAt(i));
+        }
+    }
+}
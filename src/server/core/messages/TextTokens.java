@@ -0,0 +1,134 @@
+package server.core.messages;
+
+import protocol.BinaryProtocol;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The `TextTokens` class is a cursor over the `:` separated parts of a text message. It works on the received line in
+ * place: ints are parsed straight from its characters and keywords are matched against the line, so reading a
+ * command, its selectors and its numeric arguments allocates nothing. Only parts read with `nextString()` are copied.
+ *
+ * @uses MessageTokens
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class TextTokens implements MessageTokens {
+    /**
+     * The separator of the parts of a message.
+     */
+    private static final char SEPARATOR = ':';
+
+    /**
+     * The message.
+     */
+    private final String message;
+    /**
+     * The index of the first character of the next part.
+     */
+    private int position;
+
+    /**
+     * Constructs `TextTokens` for the given message.
+     *
+     * @param message The text message.
+     */
+    public TextTokens(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Checks whether the message has more parts.
+     *
+     * @return `true` if there is another part, `false` otherwise.
+     */
+    @Override
+    public boolean hasNext() {
+        return position < message.length();
+    }
+
+    /**
+     * Reads the next part as a string.
+     *
+     * @return The next part.
+     */
+    @Override
+    public String nextString() {
+        int end = partEnd();
+        String part = message.substring(position, end);
+        position = end + 1;
+        return part;
+    }
+
+    /**
+     * Reads the next part as an int, parsing it in place.
+     *
+     * @return The next part.
+     */
+    @Override
+    public int nextInt() {
+        int end = partEnd();
+        int i = position;
+        boolean negative = i < end && message.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number at index " + position);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + message.substring(position, end) + "\"");
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + message.substring(position, end) + "\"");
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + message.substring(position, end) + "\"");
+        }
+        position = end + 1;
+        return (int) value;
+    }
+
+    /**
+     * Reads the next part as a keyword, comparing it with the keywords in place.
+     *
+     * @return The wire id of the keyword, or -1 if the next part is not a keyword.
+     */
+    @Override
+    public int nextKeyword() {
+        int end = partEnd();
+        int length = end - position;
+        int keywordId = -1;
+        for (int i = 0; i < BinaryProtocol.KEYWORDS.length; i++) {
+            String keyword = BinaryProtocol.KEYWORDS[i];
+            if (keyword.length() == length && message.regionMatches(position, keyword, 0, length)) {
+                keywordId = i;
+                break;
+            }
+        }
+        position = end + 1;
+        return keywordId;
+    }
+
+    /**
+     * Finds the end of the next part.
+     *
+     * @return The index of the separator following the next part, or the length of the message for the last part.
+     */
+    private int partEnd() {
+        if (position > message.length()) {
+            throw new NoSuchElementException("Message has no more parts");
+        }
+        int end = message.indexOf(SEPARATOR, position);
+        return end < 0 ? message.length() : end;
+    }
+}
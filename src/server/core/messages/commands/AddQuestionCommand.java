@@ -0,0 +1,40 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+/**
+ * The `AddQuestionCommand` class handles the `addQuestion:type:question:correct_answer:answer;answer;...` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class AddQuestionCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final AddQuestionCommand INSTANCE = new AddQuestionCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private AddQuestionCommand() {}
+
+    /**
+     * Adds a new question.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Question added successfully", or "bad_request" if a field holds a separator of the question records or
+     * the question cannot be stored.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        if (context.getQuestionDatabaseHandler().add(message.nextString(), message.nextString(), message.nextString(), message.nextString().split(";"))) {
+            return "Question added successfully";
+        } else {
+            return "bad_request";
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+/**
+ * The `AddRelationCommand` class handles the `addRelation:userId1:userId2` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class AddRelationCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final AddRelationCommand INSTANCE = new AddRelationCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private AddRelationCommand() {}
+
+    /**
+     * Adds a relation between two users.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Relation added successfully", or "bad_request" if the relation cannot be added.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        if (context.getRelationDatabaseHandler().add(message.nextInt(), message.nextInt()))
+            return "Relation added successfully";
+        else
+            return "bad_request";
+    }
+}
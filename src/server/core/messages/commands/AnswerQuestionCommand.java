@@ -0,0 +1,44 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.questionDatabase.Question;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `AnswerQuestionCommand` class handles the `answerQuestion:id:ID:answer` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class AnswerQuestionCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final AnswerQuestionCommand INSTANCE = new AnswerQuestionCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private AnswerQuestionCommand() {}
+
+    /**
+     * Checks an answer to a question.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Correct answer" or "Wrong answer", or "bad_request" if there is no such question.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        if (message.nextKeyword() == KEYWORD_ID) {
+            Question question = context.getQuestionDatabaseHandler().getById(message.nextInt());
+            if (question != null) {
+                return question.compareAnswer(message.nextString()) ? "Correct answer" : "Wrong answer";
+            }
+        }
+        return "bad_request";
+    }
+}
@@ -0,0 +1,68 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.relationDatabase.RelationDatabaseHandler;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `AnswerRelationQuestionCommand` class handles the `answerRelationQuestion:id:RELATIONID:userId:ID:questionId:ID:answer` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class AnswerRelationQuestionCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final AnswerRelationQuestionCommand INSTANCE = new AnswerRelationQuestionCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private AnswerRelationQuestionCommand() {}
+
+    /**
+     * Answers a question of a relation, scoring it once both users have answered.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Waiting for the other user" if the other user has not answered yet, "Answers match" or "Answers differ"
+     * once the question is scored, "already_answered" if the user has already answered the question, or "bad_request"
+     * if the relation, user or question does not exist, the answer holds a separator of the relation records or the
+     * message is malformed.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        if (message.nextKeyword() != KEYWORD_ID) {
+            return "bad_request";
+        }
+        int relationId = message.nextInt();
+        if (message.nextKeyword() != KEYWORD_USER_ID) {
+            return "bad_request";
+        }
+        int userId = message.nextInt();
+        if (message.nextKeyword() != KEYWORD_QUESTION_ID) {
+            return "bad_request";
+        }
+        int questionId = message.nextInt();
+        String answer = message.nextString();
+        if (context.getQuestionDatabaseHandler().getById(questionId) == null) {
+            return "bad_request";
+        }
+        switch (context.getRelationDatabaseHandler().answerQuestion(relationId, userId, questionId, answer)) {
+            case RelationDatabaseHandler.ANSWER_PENDING:
+                return "Waiting for the other user";
+            case RelationDatabaseHandler.ANSWER_MATCHED:
+                return "Answers match";
+            case RelationDatabaseHandler.ANSWER_MISMATCHED:
+                return "Answers differ";
+            case RelationDatabaseHandler.ANSWER_REPEATED:
+                return "already_answered";
+            default:
+                return "bad_request";
+        }
+    }
+}
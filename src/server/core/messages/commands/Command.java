@@ -0,0 +1,24 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+/**
+ * The `Command` interface is the handler of a single message type. Handlers are stateless singletons registered once
+ * in the `CommandRegistry`; everything they work on comes from the message and the `CommandContext`, so one instance
+ * serves all clients and threads.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public interface Command {
+    /**
+     * Executes the command.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The result of the command: a status message, or the `User`, `Question`, `Relation` or list of relations
+     * that was asked for.
+     */
+    Object execute(MessageTokens message, CommandContext context);
+}
@@ -0,0 +1,85 @@
+package server.core.messages.commands;
+
+import server.database.questionDatabase.QuestionDatabaseHandler;
+import server.database.relationDatabase.RelationDatabaseHandler;
+import server.database.userDatabase.UserDatabaseHandler;
+
+/**
+ * The `CommandContext` class holds the databases the commands work on and the limits of their results.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class CommandContext {
+    /**
+     * The handler for user database operations.
+     */
+    private final UserDatabaseHandler userDatabaseHandler;
+    /**
+     * The handler for question database operations.
+     */
+    private final QuestionDatabaseHandler questionDatabaseHandler;
+    /**
+     * The handler for relation database operations.
+     */
+    private final RelationDatabaseHandler relationDatabaseHandler;
+    /**
+     * The maximum number of elements in a page of a bulk result, also the number sent when the client asks for none.
+     */
+    private final int pageSize;
+
+    /**
+     * Constructs a `CommandContext` with the given databases.
+     *
+     * @param userDatabaseHandler     The handler for user database operations.
+     * @param questionDatabaseHandler The handler for question database operations.
+     * @param relationDatabaseHandler The handler for relation database operations.
+     * @param pageSize                The maximum number of elements in a page of a bulk result.
+     */
+    public CommandContext(UserDatabaseHandler userDatabaseHandler, QuestionDatabaseHandler questionDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        this.userDatabaseHandler = userDatabaseHandler;
+        this.questionDatabaseHandler = questionDatabaseHandler;
+        this.relationDatabaseHandler = relationDatabaseHandler;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the handler for user database operations.
+     *
+     * @return The user database handler.
+     */
+    public UserDatabaseHandler getUserDatabaseHandler() {
+        return userDatabaseHandler;
+    }
+
+    /**
+     * Gets the handler for question database operations.
+     *
+     * @return The question database handler.
+     */
+    public QuestionDatabaseHandler getQuestionDatabaseHandler() {
+        return questionDatabaseHandler;
+    }
+
+    /**
+     * Gets the handler for relation database operations.
+     *
+     * @return The relation database handler.
+     */
+    public RelationDatabaseHandler getRelationDatabaseHandler() {
+        return relationDatabaseHandler;
+    }
+
+    /**
+     * Gets the maximum number of elements in a page of a bulk result.
+     *
+     * @return The page size.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,122 @@
+package server.core.messages.commands;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The `CommandMetrics` class counts the executions of one command and keeps a histogram of their latency. Buckets are
+ * powers of two of microseconds (bucket `i` holds latencies below 2^i microseconds), so recording is a couple of `LongAdder`
+ * increments and never contends between threads.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class CommandMetrics {
+    /**
+     * The number of latency buckets; the last one also holds everything above 2^(BUCKETS - 2) microseconds.
+     */
+    private static final int BUCKETS = 32;
+
+    /**
+     * The number of executions.
+     */
+    private final LongAdder count;
+    /**
+     * The number of executions that threw an exception.
+     */
+    private final LongAdder failures;
+    /**
+     * The total execution time in nanoseconds.
+     */
+    private final LongAdder totalNanos;
+    /**
+     * The number of executions per latency bucket.
+     */
+    private final LongAdder[] histogram;
+
+    /**
+     * Constructs empty `CommandMetrics`.
+     */
+    public CommandMetrics() {
+        this.count = new LongAdder();
+        this.failures = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.histogram = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param nanos  The execution time in nanoseconds.
+     * @param failed Whether the execution threw an exception.
+     */
+    public void record(long nanos, boolean failed) {
+        count.increment();
+        if (failed) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        histogram[Math.min(bucket, BUCKETS - 1)].increment();
+    }
+
+    /**
+     * Gets the number of executions.
+     *
+     * @return The number of executions.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the number of executions that threw an exception.
+     *
+     * @return The number of failed executions.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the mean execution time.
+     *
+     * @return The mean execution time in microseconds, or 0 if the command was never executed.
+     */
+    public double getMeanMicros() {
+        long executions = count.sum();
+        return executions == 0 ? 0 : totalNanos.sum() / 1000.0 / executions;
+    }
+
+    /**
+     * Gets an upper bound of a latency percentile from the histogram.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket holding the percentile in microseconds, or 0 if the command was never
+     * executed.
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+}
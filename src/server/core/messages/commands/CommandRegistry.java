@@ -0,0 +1,107 @@
+package server.core.messages.commands;
+
+import protocol.BinaryProtocol;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `CommandRegistry` class maps command keywords to their handlers and metrics. Commands are looked up by keyword
+ * id in an array, so dispatching a message is a single index operation. A new command is added by writing its
+ * `Command` and registering it in `createDefault()`.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class CommandRegistry {
+    /**
+     * The handlers by keyword id, `null` for keywords that are not commands.
+     */
+    private final Command[] commands;
+    /**
+     * The metrics by keyword id, `null` for keywords that are not commands.
+     */
+    private final CommandMetrics[] metrics;
+
+    /**
+     * Constructs an empty `CommandRegistry`.
+     */
+    public CommandRegistry() {
+        this.commands = new Command[BinaryProtocol.KEYWORDS.length];
+        this.metrics = new CommandMetrics[BinaryProtocol.KEYWORDS.length];
+    }
+
+    /**
+     * Creates a registry holding all commands of the server.
+     *
+     * @return The registry.
+     */
+    public static CommandRegistry createDefault() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register(KEYWORD_NEW_CLIENT, NewClientCommand.INSTANCE);
+        registry.register(KEYWORD_NEW_USER, NewUserCommand.INSTANCE);
+        registry.register(KEYWORD_LOGIN, LoginCommand.INSTANCE);
+        registry.register(KEYWORD_GET_USER, GetUserCommand.INSTANCE);
+        registry.register(KEYWORD_GET_QUESTION, GetQuestionCommand.INSTANCE);
+        registry.register(KEYWORD_ADD_QUESTION, AddQuestionCommand.INSTANCE);
+        registry.register(KEYWORD_ANSWER_QUESTION, AnswerQuestionCommand.INSTANCE);
+        registry.register(KEYWORD_ADD_RELATION, AddRelationCommand.INSTANCE);
+        registry.register(KEYWORD_GET_RELATION, GetRelationCommand.INSTANCE);
+        registry.register(KEYWORD_UPDATE_RELATION, UpdateRelationCommand.INSTANCE);
+        registry.register(KEYWORD_GET_RELATIONS, GetRelationsCommand.INSTANCE);
+        registry.register(KEYWORD_GET_RELATION_QUESTIONS, GetRelationQuestionsCommand.INSTANCE);
+        registry.register(KEYWORD_RELATION_ADD_QUESTION_ANSWER, RelationAddQuestionAnswerCommand.INSTANCE);
+        registry.register(KEYWORD_ANSWER_RELATION_QUESTION, AnswerRelationQuestionCommand.INSTANCE);
+        return registry;
+    }
+
+    /**
+     * Registers the handler of a command. Must be called before the registry is shared between threads.
+     *
+     * @param keywordId The wire id of the command keyword.
+     * @param command   The handler of the command.
+     * @throws IllegalStateException If the command is already registered.
+     */
+    public void register(int keywordId, Command command) {
+        if (commands[keywordId] != null) {
+            throw new IllegalStateException("Command already registered: " + BinaryProtocol.KEYWORDS[keywordId]);
+        }
+        commands[keywordId] = command;
+        metrics[keywordId] = new CommandMetrics();
+    }
+
+    /**
+     * Gets the handler of a command.
+     *
+     * @param keywordId The wire id of the command keyword, or -1 for an unknown command.
+     * @return The handler, or `null` if the keyword is not a registered command.
+     */
+    public Command get(int keywordId) {
+        return keywordId < 0 ? null : commands[keywordId];
+    }
+
+    /**
+     * Gets the metrics of a command.
+     *
+     * @param keywordId The wire id of the command keyword.
+     * @return The metrics, or `null` if the keyword is not a registered command.
+     */
+    public CommandMetrics getMetrics(int keywordId) {
+        return keywordId < 0 ? null : metrics[keywordId];
+    }
+
+    /**
+     * Prints the count, failures and latency of every command executed at least once.
+     */
+    public void printMetrics() {
+        for (int i = 0; i < commands.length; i++) {
+            CommandMetrics commandMetrics = metrics[i];
+            if (commandMetrics == null || commandMetrics.getCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-26s count: %d, failed: %d, mean: %.1f us, p50 < %d us, p99 < %d us%n",
+                    BinaryProtocol.KEYWORDS[i], commandMetrics.getCount(), commandMetrics.getFailures(),
+                    commandMetrics.getMeanMicros(), commandMetrics.getPercentileMicros(50), commandMetrics.getPercentileMicros(99));
+        }
+    }
+}
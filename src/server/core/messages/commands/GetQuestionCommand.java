@@ -0,0 +1,49 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.questionDatabase.Question;
+import server.database.questionDatabase.QuestionDatabaseHandler;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `GetQuestionCommand` class handles the `getQuestion` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class GetQuestionCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final GetQuestionCommand INSTANCE = new GetQuestionCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private GetQuestionCommand() {}
+
+    /**
+     * Gets a question by id or a random question.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The question, or "bad_request" if there is no such question.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        QuestionDatabaseHandler questionDatabaseHandler = context.getQuestionDatabaseHandler();
+        int by = message.nextKeyword();
+        if (by == KEYWORD_ID) {
+            Question question = questionDatabaseHandler.getById(message.nextInt());
+            return question != null ? question : "bad_request";
+        } else if (by == KEYWORD_RANDOM) {
+            Question question = questionDatabaseHandler.getRandom();
+            return question != null ? question : "bad_request";
+        } else {
+            return "bad_request";
+        }
+    }
+}
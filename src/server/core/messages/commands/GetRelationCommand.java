@@ -0,0 +1,47 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.relationDatabase.Relation;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `GetRelationCommand` class handles the `getRelation` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class GetRelationCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final GetRelationCommand INSTANCE = new GetRelationCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private GetRelationCommand() {}
+
+    /**
+     * Gets a relation by id or by the ids of its users.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The relation, or "bad_request" if there is no such relation.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        int by = message.nextKeyword();
+        Relation relation;
+        if (by == KEYWORD_ID) {
+            relation = context.getRelationDatabaseHandler().getById(message.nextInt());
+        } else if (by == KEYWORD_USERS) {
+            relation = context.getRelationDatabaseHandler().getByName(message.nextString(), message.nextString());
+        } else {
+            return "bad_request";
+        }
+        return relation != null ? relation : "bad_request";
+    }
+}
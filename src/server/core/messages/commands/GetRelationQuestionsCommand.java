@@ -0,0 +1,65 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.questionDatabase.QuestionCatalogue;
+import server.database.questionDatabase.QuestionDatabaseHandler;
+import server.database.relationDatabase.RelationDatabaseHandler;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `GetRelationQuestionsCommand` class handles the `getRelationQuestions:id:RELATIONID:userId:ID:id:random` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class GetRelationQuestionsCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final GetRelationQuestionsCommand INSTANCE = new GetRelationQuestionsCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private GetRelationQuestionsCommand() {}
+
+    /**
+     * Picks a random question the user of a relation has neither answered nor has a pending answer to.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The question, "no_questions_left" if the user has seen every question, or "bad_request" if the relation
+     * does not exist, the user is not in it or the message is malformed.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        QuestionDatabaseHandler questionDatabaseHandler = context.getQuestionDatabaseHandler();
+        RelationDatabaseHandler relationDatabaseHandler = context.getRelationDatabaseHandler();
+        if (message.nextKeyword() == KEYWORD_ID) {
+            int relationId = message.nextInt();
+            if (message.nextKeyword() == KEYWORD_USER_ID) {
+                int userId = message.nextInt();
+                if (message.nextKeyword() != KEYWORD_ID) {
+                    return "bad_request";
+                }
+                QuestionCatalogue catalogue = questionDatabaseHandler.getCatalogue();
+                if (catalogue.size() == 0) {
+                    return "bad_request";
+                }
+                int question = relationDatabaseHandler.getRandomUnseenQuestionId(relationId, userId, catalogue);
+                if (question == RelationDatabaseHandler.NOT_IN_RELATION) {
+                    return "bad_request";
+                }
+                if (question == RelationDatabaseHandler.NO_QUESTIONS_LEFT) {
+                    return "no_questions_left";
+                }
+                return catalogue.getById(question);
+            } else
+                return "bad_request";
+        } else
+            return "bad_request";
+    }
+}
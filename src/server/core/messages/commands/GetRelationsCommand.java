@@ -0,0 +1,60 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.core.messages.Page;
+import server.database.relationDatabase.Relation;
+
+import java.util.List;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `GetRelationsCommand` class handles the `getRelations` message. Relations are sent a page at a time: the message
+ * may end with the cursor of the page and the number of relations wanted, and the result holds the cursor of the next
+ * page. For `all` the cursor is the lowest relation id of the page, for `userId` the position among the relations of the
+ * user; it starts at 0 either way.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class GetRelationsCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final GetRelationsCommand INSTANCE = new GetRelationsCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private GetRelationsCommand() {}
+
+    /**
+     * Gets a page of the relations of a user or of all relations.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The page of relations, or "bad_request" for an unknown selector, a negative cursor or a page size
+     * below 1.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        int by = message.nextKeyword();
+        if (by != KEYWORD_USER_ID && by != KEYWORD_ALL) {
+            return "bad_request";
+        }
+        int userId = by == KEYWORD_USER_ID ? message.nextInt() : 0;
+        int cursor = message.hasNext() ? message.nextInt() : 0;
+        int limit = message.hasNext() ? Math.min(message.nextInt(), context.getPageSize()) : context.getPageSize();
+        if (cursor < 0 || limit < 1) {
+            return "bad_request";
+        }
+        if (by == KEYWORD_USER_ID) {
+            List<Relation> relations = context.getRelationDatabaseHandler().getByUser(userId, cursor, limit);
+            return new Page(relations, relations.size() < limit ? Page.END : cursor + limit);
+        }
+        List<Relation> relations = context.getRelationDatabaseHandler().getAll(cursor, limit);
+        return new Page(relations, relations.size() < limit ? Page.END : relations.get(relations.size() - 1).getId() + 1);
+    }
+}
@@ -0,0 +1,47 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.userDatabase.User;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `GetUserCommand` class handles the `getUser` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class GetUserCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final GetUserCommand INSTANCE = new GetUserCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private GetUserCommand() {}
+
+    /**
+     * Gets a user by id or by username.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return The user, or "bad_request" if there is no such user.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        int by = message.nextKeyword();
+        User user;
+        if (by == KEYWORD_USERNAME) {
+            user = context.getUserDatabaseHandler().getByName(message.nextString());
+        } else if (by == KEYWORD_ID) {
+            user = context.getUserDatabaseHandler().getById(message.nextInt());
+        } else {
+            return "bad_request";
+        }
+        return user != null ? user : "bad_request";
+    }
+}
@@ -0,0 +1,41 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.userDatabase.User;
+
+/**
+ * The `LoginCommand` class handles the `login:username:password` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class LoginCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final LoginCommand INSTANCE = new LoginCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private LoginCommand() {}
+
+    /**
+     * Checks the credentials of a user.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "User logged in", or "bad_request" if the user does not exist or the password is wrong.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        User user = context.getUserDatabaseHandler().getByName(message.nextString());
+        if (user != null && user.getPassword().equals(message.nextString())) {
+            return "User logged in";
+        } else {
+            return "bad_request";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+/**
+ * The `NewClientCommand` class handles the `newClient:os:...` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class NewClientCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final NewClientCommand INSTANCE = new NewClientCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private NewClientCommand() {}
+
+    /**
+     * Logs the newly connected client.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return A greeting naming the operating system of the client.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        String os = message.nextString();
+        System.out.println("New client connected " + os);
+        return "New client connected " + os;
+    }
+}
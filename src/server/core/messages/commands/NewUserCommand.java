@@ -0,0 +1,39 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+/**
+ * The `NewUserCommand` class handles the `newUser:username:password` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class NewUserCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final NewUserCommand INSTANCE = new NewUserCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private NewUserCommand() {}
+
+    /**
+     * Adds a new user.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "User added successfully", or "bad_request" if the user cannot be added.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        if (context.getUserDatabaseHandler().add(message.nextString(), message.nextString())) {
+            return "User added successfully";
+        } else {
+            return "bad_request";
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+import server.database.relationDatabase.Relation;
+import server.database.relationDatabase.RelationDatabaseHandler;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `RelationAddQuestionAnswerCommand` class handles the `relationAddQuestionAnswer:id:RELATIONID:userId:ID:questionId:ID:answer` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class RelationAddQuestionAnswerCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final RelationAddQuestionAnswerCommand INSTANCE = new RelationAddQuestionAnswerCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private RelationAddQuestionAnswerCommand() {}
+
+    /**
+     * Stores the answer of a user of a relation to a question, scoring the question if the other user has already
+     * answered it.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Question answered successfully", or "bad_request" if the relation or user does not exist, the answer
+     * holds a separator of the relation records or the message is malformed.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        RelationDatabaseHandler relationDatabaseHandler = context.getRelationDatabaseHandler();
+        if (message.nextKeyword() == KEYWORD_ID) {
+            Relation relation = relationDatabaseHandler.getById(message.nextInt());
+            if (relation != null && message.nextKeyword() == KEYWORD_USER_ID) {
+                int userId = message.nextInt();
+                if (message.nextKeyword() != KEYWORD_QUESTION_ID) {
+                    return "bad_request";
+                }
+                int questionId = message.nextInt();
+                String answer = message.nextString();
+                if (relationDatabaseHandler.addQuestionAnswer(relation.getId(), userId, questionId, answer)) {
+                    return "Question answered successfully";
+                } else {
+                    return "bad_request";
+                }
+            } else
+                return "bad_request";
+        } else
+            return "bad_request";
+    }
+}
@@ -0,0 +1,45 @@
+package server.core.messages.commands;
+
+import server.core.messages.MessageTokens;
+
+import static protocol.BinaryProtocol.*;
+
+/**
+ * The `UpdateRelationCommand` class handles the `updateRelation` message.
+ *
+ * @uses Command
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class UpdateRelationCommand implements Command {
+    /**
+     * The only instance of the command.
+     */
+    public static final UpdateRelationCommand INSTANCE = new UpdateRelationCommand();
+
+    /**
+     * Prevents instantiation, the command is a singleton.
+     */
+    private UpdateRelationCommand() {}
+
+    /**
+     * Updates a relation. Not implemented yet.
+     *
+     * @param message The parts of the message following the command name.
+     * @param context The databases the command works on.
+     * @return "Not yet implemented", or "bad_request" for an unknown selector.
+     */
+    @Override
+    public Object execute(MessageTokens message, CommandContext context) {
+        //TODO updateRelation
+        int by = message.nextKeyword();
+        if (by == KEYWORD_ID) {
+            return "Not yet implemented";
+        } else if (by == KEYWORD_USERS) {
+            return "Not yet implemented";
+        } else {
+            return "bad_request";
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package server.core.nio;
+
+import protocol.BinaryProtocol;
+import server.core.connection.Connection;
+import server.core.messages.RequestDispatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The `ChannelConnection` class is a connection served by a non-blocking channel. It holds the channel, its read
+ * buffer, the line or frame being received and its write buffer. All reads and writes happen on the owning event loop;
+ * messages queued from other threads are handed to the loop, and everything queued by the time the loop flushes is
+ * copied into one buffer and written with a single call. Received bytes are split into lines until the client
+ * switches to the binary protocol and into frames afterwards, so bytes following the switch are never misread.
+ * <p>
+ * The loop never processes a request that is answered in order itself, as the request may wait for a database write.
+ * It hands the request to a worker thread and stops reading the connection until the request is done; bytes already
+ * read stay in the read buffer and are processed when reading resumes.
+ *
+ * @uses Connection
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class ChannelConnection extends Connection {
+    /**
+     * The maximum length of a single received line. Longer lines close the connection.
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    /**
+     * The size of the per-connection read and write buffers.
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The channel for communicating with the client.
+     */
+    private final SocketChannel channel;
+    /**
+     * The event loop that owns this connection.
+     */
+    private final EventLoop eventLoop;
+    /**
+     * The dispatcher processing the messages received on this connection.
+     */
+    private final RequestDispatcher requestDispatcher;
+    /**
+     * The selection key of the channel, set when the channel is registered.
+     */
+    private SelectionKey selectionKey;
+    /**
+     * The buffer for bytes read from the channel.
+     */
+    private final ByteBuffer readBuffer;
+    /**
+     * The bytes of the line currently being received.
+     */
+    private final ByteArrayOutputStream line;
+    /**
+     * The length of the frame currently being received, as far as its length prefix has been read.
+     */
+    private int frameLength;
+    /**
+     * The number of bytes of the length prefix of the current frame read so far.
+     */
+    private int frameHeaderRead;
+    /**
+     * The frame currently being received, `null` while its length prefix is being read.
+     */
+    private byte[] frame;
+    /**
+     * The number of bytes of the current frame received so far.
+     */
+    private int frameRead;
+    /**
+     * The buffer for bytes waiting to be written to the channel, kept in fill mode between flushes.
+     */
+    private final ByteBuffer writeBuffer;
+    /**
+     * The remaining bytes of the outbound message that did not fit in the write buffer.
+     */
+    private ByteBuffer pendingMessage;
+    /**
+     * Whether a flush has already been handed to the event loop.
+     */
+    private final AtomicBoolean flushScheduled;
+    /**
+     * Whether the connection is processing received lines, in which case replies are flushed once afterwards.
+     */
+    private boolean reading;
+    /**
+     * Whether reading is suspended while a request answered in order runs on a worker thread.
+     */
+    private boolean suspended;
+
+    /**
+     * Constructs a `ChannelConnection` for the given channel.
+     *
+     * @param clientKey         The unique key identifying the client.
+     * @param channel           The channel for communicating with the client.
+     * @param eventLoop         The event loop that owns this connection.
+     * @param requestDispatcher The dispatcher processing the messages received on this connection.
+     * @param clients           The collection of connected clients.
+     * @param outboundQueueSize The maximum number of messages waiting in the outbound queue.
+     */
+    ChannelConnection(String clientKey, SocketChannel channel, EventLoop eventLoop, RequestDispatcher requestDispatcher, Map<String, Connection> clients, int outboundQueueSize) {
+        super(clientKey, clients, outboundQueueSize);
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.requestDispatcher = requestDispatcher;
+        this.readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.line = new ByteArrayOutputStream();
+        this.writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.flushScheduled = new AtomicBoolean();
+    }
+
+    /**
+     * Sets the selection key of the channel. Called by the event loop on registration.
+     *
+     * @param selectionKey The selection key of the channel.
+     */
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    /**
+     * Hands a flush to the event loop, unless one is already pending or the loop is processing this connection's
+     * input, in which case the replies are flushed together when it is done.
+     */
+    @Override
+    protected void scheduleFlush() {
+        if (eventLoop.inEventLoop() && reading) {
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+    }
+
+    /**
+     * Reads available bytes from the channel, splits them into lines or frames and processes every complete one.
+     * Replies to all messages of one read are flushed together. Called by the event loop when the channel is readable.
+     */
+    void onReadable() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (read < 0) {
+            close();
+            return;
+        }
+
+        processBuffered();
+        flush();
+    }
+
+    /**
+     * Splits the bytes in the read buffer into lines or frames and processes every complete one, until the buffer is
+     * empty or a request suspends reading. Unprocessed bytes are kept for when reading resumes.
+     */
+    private void processBuffered() {
+        readBuffer.flip();
+        reading = true;
+        try {
+            while (readBuffer.hasRemaining() && !isClosed() && !suspended) {
+                if (isBinary()) {
+                    readFrameBytes();
+                } else {
+                    readLineBytes();
+                }
+            }
+        } finally {
+            reading = false;
+            readBuffer.compact();
+        }
+    }
+
+    /**
+     * Runs a request that is answered in order on a worker thread. Reading is suspended until the request is done, so
+     * the next message is processed after it, and after a switch to the binary protocol it requested.
+     *
+     * @param task     The request.
+     * @param executor The executor the request runs on.
+     */
+    @Override
+    public void executeInOrder(Runnable task, Executor executor) {
+        suspended = true;
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Like a request failing on the loop, it only takes its own connection down
+                    e.printStackTrace();
+                    close();
+                } finally {
+                    eventLoop.execute(this::resumeReading);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The workers only reject requests while the server shuts down
+            suspended = false;
+            close();
+        }
+    }
+
+    /**
+     * Resumes reading after a request answered in order is done, processing the bytes read before it first. Called on
+     * the event loop.
+     */
+    private void resumeReading() {
+        suspended = false;
+        if (isClosed() || !selectionKey.isValid()) {
+            return;
+        }
+        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+        processBuffered();
+        flush();
+    }
+
+    /**
+     * Takes bytes of the current line from the read buffer and processes the line once it is complete.
+     */
+    private void readLineBytes() {
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                int length = line.size();
+                byte[] bytes = line.toByteArray();
+                if (length > 0 && bytes[length - 1] == '\r') {
+                    length--;
+                }
+                line.reset();
+                onLine(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                return;
+            } else if (line.size() < MAX_LINE_LENGTH) {
+                line.write(b);
+            } else {
+                System.out.println("Client " + getClientKey() + " exceeded maximum line length.");
+                close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes bytes of the current frame from the read buffer and processes the frame once it is complete.
+     */
+    private void readFrameBytes() {
+        while (frame == null && frameHeaderRead < 4 && readBuffer.hasRemaining()) {
+            frameLength = (frameLength << 8) | (readBuffer.get() & 0xFF);
+            if (++frameHeaderRead == 4) {
+                if (frameLength < 0 || frameLength > BinaryProtocol.MAX_REQUEST_LENGTH) {
+                    System.out.println("Client " + getClientKey() + " exceeded maximum frame length.");
+                    close();
+                    return;
+                }
+                frame = new byte[frameLength];
+                frameRead = 0;
+            }
+        }
+        if (frame == null) {
+            return;
+        }
+        int n = Math.min(readBuffer.remaining(), frame.length - frameRead);
+        readBuffer.get(frame, frameRead, n);
+        frameRead += n;
+        if (frameRead == frame.length) {
+            byte[] received = frame;
+            frame = null;
+            frameLength = 0;
+            frameHeaderRead = 0;
+            onFrame(received);
+        }
+    }
+
+    /**
+     * Handles a single complete line received from the client.
+     *
+     * @param received The received line, without the line terminator.
+     */
+    private void onLine(String received) {
+        if ("exit".equals(received)) {
+            close();
+            System.out.println("Client " + getClientKey() + " exited.");
+            return;
+        }
+        System.out.printf("Received from %s: %s%n", getClientKey(), received);
+        requestDispatcher.dispatch(this, received);
+    }
+
+    /**
+     * Handles a single complete binary frame received from the client.
+     *
+     * @param received The received frame, without its length prefix.
+     */
+    private void onFrame(byte[] received) {
+        if (RequestDispatcher.isExit(received)) {
+            close();
+            System.out.println("Client " + getClientKey() + " exited.");
+            return;
+        }
+        requestDispatcher.dispatch(this, received);
+    }
+
+    /**
+     * Copies queued messages into the write buffer and writes as much as the channel accepts. If the channel cannot
+     * take everything, write interest is registered and the rest is written when the channel becomes writable again.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        if (isClosed() || selectionKey == null) {
+            return;
+        }
+        try {
+            boolean more = true;
+            while (more) {
+                more = fillWriteBuffer();
+                writeBuffer.flip();
+                channel.write(writeBuffer);
+                boolean written = !writeBuffer.hasRemaining();
+                writeBuffer.compact();
+                if (!written) {
+                    break;
+                }
+            }
+            boolean pending = writeBuffer.position() > 0 || pendingMessage != null || hasOutbound();
+            int interestOps = selectionKey.interestOps();
+            if (pending && (interestOps & SelectionKey.OP_WRITE) == 0) {
+                selectionKey.interestOps(interestOps | SelectionKey.OP_WRITE);
+            } else if (!pending && (interestOps & SelectionKey.OP_WRITE) != 0) {
+                selectionKey.interestOps(interestOps & ~SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            writeFailed();
+        }
+    }
+
+    /**
+     * Copies as many queued messages as fit into the write buffer.
+     *
+     * @return `true` if the write buffer filled up before the queue was drained, `false` otherwise.
+     */
+    private boolean fillWriteBuffer() {
+        while (true) {
+            if (pendingMessage == null) {
+                byte[] message = pollOutbound();
+                if (message == null) {
+                    return false;
+                }
+                pendingMessage = ByteBuffer.wrap(message);
+            }
+            if (pendingMessage.remaining() > writeBuffer.remaining()) {
+                int limit = pendingMessage.limit();
+                pendingMessage.limit(pendingMessage.position() + writeBuffer.remaining());
+                writeBuffer.put(pendingMessage);
+                pendingMessage.limit(limit);
+                return true;
+            }
+            writeBuffer.put(pendingMessage);
+            pendingMessage = null;
+        }
+    }
+
+    /**
+     * Cancels the selection key and closes the channel.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    protected void closeTransport() throws IOException {
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,153 @@
+package server.core.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The `EventLoop` class runs a single selector thread that performs reads, line framing and writes for all connections
+ * registered with it. Work from other threads is handed to the loop through its task queue.
+ *
+ * @uses Runnable
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class EventLoop implements Runnable {
+    /**
+     * The selector watching the channels of this loop.
+     */
+    private final Selector selector;
+    /**
+     * The tasks submitted to this loop from other threads.
+     */
+    private final Queue<Runnable> tasks;
+    /**
+     * The thread running this loop.
+     */
+    private volatile Thread thread;
+    /**
+     * Whether the loop should keep running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructs an `EventLoop`.
+     *
+     * @throws IOException If the selector cannot be opened.
+     */
+    EventLoop() throws IOException {
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.running = true;
+    }
+
+    /**
+     * Registers a freshly accepted channel with this loop.
+     *
+     * @param connection The connection wrapping the channel.
+     * @param channel    The accepted channel.
+     */
+    void register(ChannelConnection connection, SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                connection.setSelectionKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                // Write anything queued before the channel was registered
+                connection.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                connection.close();
+            }
+        });
+    }
+
+    /**
+     * Submits a task to be run on the loop thread.
+     *
+     * @param task The task to run.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Checks if the calling thread is the loop thread.
+     *
+     * @return `true` if called from the loop thread, `false` otherwise.
+     */
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Stops the loop and closes its selector.
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the loop: waits for ready channels, dispatches reads and writes and runs submitted tasks.
+     */
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        while (running) {
+            try {
+                selector.select();
+                runTasks();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    ChannelConnection connection = (ChannelConnection) key.attachment();
+                    if (!key.isValid()) {
+                        connection.close();
+                        continue;
+                    }
+                    try {
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (RuntimeException e) {
+                        // A failing request must not take the whole loop down, only its own connection
+                        e.printStackTrace();
+                        connection.close();
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs all tasks submitted to the loop since the last iteration.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
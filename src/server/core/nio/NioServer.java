@@ -0,0 +1,208 @@
+package server.core.nio;
+
+import server.core.Heartbeat;
+import server.core.admission.AdmissionController;
+import server.core.admission.ClientQuota;
+import server.core.connection.Connection;
+import server.core.messages.RequestDispatcher;
+import server.core.timer.HashedWheelTimer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The `NioServer` class is the non-blocking transport of the server. It accepts connections on a `ServerSocketChannel`
+ * and spreads them over a small, fixed number of event loops, so the number of connections is no longer tied to the
+ * number of threads.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class NioServer {
+    /**
+     * The address the server listens on.
+     */
+    private final InetSocketAddress address;
+    /**
+     * The maximum number of pending connections waiting to be accepted.
+     */
+    private final int acceptBacklog;
+    /**
+     * The admission controller deciding which connections are accepted.
+     */
+    private final AdmissionController admissionController;
+    /**
+     * The event loops handling the connections.
+     */
+    private final EventLoop[] eventLoops;
+    /**
+     * The dispatcher processing the messages of all connections.
+     */
+    private final RequestDispatcher requestDispatcher;
+    /**
+     * The collection of connected clients.
+     */
+    private final ConcurrentHashMap<String, Connection> clients;
+    /**
+     * The maximum number of messages waiting in the outbound queue of a connection.
+     */
+    private final int outboundQueueSize;
+    /**
+     * The timer the heartbeats of the connections are scheduled on.
+     */
+    private final HashedWheelTimer timer;
+    /**
+     * The interval between pings in milliseconds.
+     */
+    private final long pingInterval;
+    /**
+     * The index of the event loop that receives the next accepted connection.
+     */
+    private int nextLoop;
+    /**
+     * The channel accepting connections, `null` until the server is started.
+     */
+    private volatile ServerSocketChannel serverChannel;
+    /**
+     * Whether the server stopped accepting connections on purpose.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a `NioServer` with the specified address, limits and request dispatcher.
+     *
+     * @param address             The address the server listens on.
+     * @param acceptBacklog       The maximum number of pending connections waiting to be accepted.
+     * @param admissionController The admission controller deciding which connections are accepted.
+     * @param eventLoopThreads    The number of event loop threads.
+     * @param requestDispatcher   The dispatcher processing the messages of all connections.
+     * @param clients             The collection of connected clients.
+     * @param outboundQueueSize   The maximum number of messages waiting in the outbound queue of a connection.
+     * @param timer               The timer the heartbeats of the connections are scheduled on.
+     * @param pingInterval        The interval between pings in milliseconds.
+     * @throws IOException If a selector cannot be opened.
+     */
+    public NioServer(InetSocketAddress address, int acceptBacklog, AdmissionController admissionController, int eventLoopThreads, RequestDispatcher requestDispatcher, ConcurrentHashMap<String, Connection> clients, int outboundQueueSize, HashedWheelTimer timer, long pingInterval) throws IOException {
+        this.address = address;
+        this.acceptBacklog = acceptBacklog;
+        this.admissionController = admissionController;
+        this.requestDispatcher = requestDispatcher;
+        this.clients = clients;
+        this.outboundQueueSize = outboundQueueSize;
+        this.timer = timer;
+        this.pingInterval = pingInterval;
+        this.eventLoops = new EventLoop[Math.max(1, eventLoopThreads)];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop();
+        }
+    }
+
+    /**
+     * Starts the event loops and accepts connections on the calling thread until `stopAccepting` is called. The event
+     * loops keep serving the connected clients after that.
+     *
+     * @throws IOException If the server channel cannot be opened or bound.
+     */
+    public void start() throws IOException {
+        for (int i = 0; i < eventLoops.length; i++) {
+            Thread thread = new Thread(eventLoops[i], "nio-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            serverChannel = server;
+            server.socket().setReuseAddress(true);
+            server.bind(address, acceptBacklog);
+
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (ClosedChannelException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    throw e;
+                }
+                Socket socket = channel.socket();
+                ClientQuota quota = admissionController.admitConnection(socket.getInetAddress(), clients.size());
+                if (quota == null) {
+                    // Tell the client when to come back instead of silently closing the channel
+                    reject(channel);
+                    continue;
+                }
+                String clientKey = getClientKey(socket);
+
+                EventLoop eventLoop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+
+                ChannelConnection connection = new ChannelConnection(clientKey, channel, eventLoop, requestDispatcher, clients, outboundQueueSize);
+                connection.setQuota(quota);
+                clients.put(clientKey, connection);
+                System.out.println("New client connected " + clientKey);
+                eventLoop.register(connection, channel);
+
+                // Spread the first pings of all clients over the ping interval
+                new Heartbeat(connection, timer, pingInterval).start(ThreadLocalRandom.current().nextLong(pingInterval));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (EventLoop eventLoop : eventLoops) {
+                eventLoop.shutdown();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting connections and makes `start` return. Connected clients are still served.
+     *
+     * @throws IOException If the server channel cannot be closed.
+     */
+    public void stopAccepting() throws IOException {
+        stopped = true;
+        ServerSocketChannel server = serverChannel;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Rejects a connection refused by the admission controller. The accepted channel is still blocking, and the
+     * `busy:retry_after:N` line fits in the empty socket buffer, so the write does not stall the accept loop.
+     *
+     * @param channel The channel of the rejected client.
+     */
+    private void reject(SocketChannel channel) {
+        try {
+            long retryAfter = admissionController.connectionRetryAfter(channel.socket().getInetAddress(), clients.size());
+            channel.write(ByteBuffer.wrap(AdmissionController.busyLine(retryAfter)));
+        } catch (IOException e) {
+            // The client is gone already
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Generates a unique key for identifying a client based on their IP address and port.
+     *
+     * @param socket The socket associated with the client.
+     * @return A unique key for identifying the client.
+     */
+    private String getClientKey(Socket socket) {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+}
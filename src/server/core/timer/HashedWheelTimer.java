@@ -0,0 +1,231 @@
+package server.core.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The `HashedWheelTimer` class schedules large numbers of short tasks, such as heartbeats and timeouts, on a single
+ * thread. Timeouts are hashed into the buckets of a wheel by their deadline; every tick only the bucket under the
+ * cursor is visited, so the cost of a tick does not depend on how many timeouts are waiting in other buckets.
+ * The precision of a deadline is one tick. Tasks run on the timer thread and must not block.
+ *
+ * @uses Runnable
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class HashedWheelTimer implements Runnable {
+    /**
+     * The duration of a tick in nanoseconds.
+     */
+    private final long tickDuration;
+    /**
+     * The buckets of the wheel. The length is always a power of two.
+     */
+    private final Bucket[] wheel;
+    /**
+     * The mask used to map a tick to its bucket.
+     */
+    private final int mask;
+    /**
+     * The timeouts added since the last tick, waiting to be placed in their buckets by the timer thread.
+     */
+    private final Queue<Timeout> pendingTimeouts;
+    /**
+     * The start time of the timer, as returned by `System.nanoTime()`.
+     */
+    private final long startTime;
+    /**
+     * The number of ticks processed so far.
+     */
+    private long tick;
+    /**
+     * The thread running the timer.
+     */
+    private final Thread workerThread;
+    /**
+     * Whether the timer should keep running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructs and starts a `HashedWheelTimer`.
+     *
+     * @param name         The name of the timer thread.
+     * @param tickDuration The duration of a tick.
+     * @param unit         The time unit of `tickDuration`.
+     * @param wheelSize    The number of buckets in the wheel, rounded up to a power of two.
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickDuration = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.pendingTimeouts = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.workerThread = new Thread(this, name);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay. Can be called from any thread, including from a task
+     * running on the timer.
+     *
+     * @param task  The task to run.
+     * @param delay The delay after which the task runs.
+     * @param unit  The time unit of `delay`.
+     * @return A handle that can be used to cancel the task.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer. Timeouts that have not expired yet are never run.
+     */
+    public void stop() {
+        running = false;
+        workerThread.interrupt();
+    }
+
+    /**
+     * Runs the timer: on every tick places new timeouts in their buckets and expires the bucket under the cursor.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                continue;
+            }
+            transferPendingTimeouts();
+            wheel[(int) (tick & mask)].expireTimeouts(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the start of the next tick.
+     *
+     * @return The time of the tick relative to the start of the timer, or -1 if the sleep was interrupted.
+     */
+    private long waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepTime = deadline - currentTime;
+            if (sleepTime <= 0) {
+                return currentTime;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the timeouts added since the last tick into the buckets matching their deadlines.
+     */
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Deadlines already in the past are expired on the current tick
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * The `Bucket` class is a doubly linked list of the timeouts hashed to one slot of the wheel.
+     */
+    private static class Bucket {
+        /**
+         * The first timeout in the bucket.
+         */
+        private Timeout head;
+        /**
+         * The last timeout in the bucket.
+         */
+        private Timeout tail;
+
+        /**
+         * Adds a timeout at the end of the bucket.
+         *
+         * @param timeout The timeout to add.
+         */
+        void add(Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Expires all timeouts of the bucket whose rounds have run out and drops cancelled ones.
+         *
+         * @param deadline The time of the current tick relative to the start of the timer.
+         */
+        void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        /**
+         * Unlinks a timeout from the bucket.
+         *
+         * @param timeout The timeout to remove.
+         */
+        private void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
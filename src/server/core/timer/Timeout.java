@@ -0,0 +1,104 @@
+package server.core.timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `Timeout` class is a handle to a task scheduled on a `HashedWheelTimer`. It can be used to cancel the task
+ * before it runs.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class Timeout {
+    /**
+     * The task is waiting for its deadline.
+     */
+    private static final int STATE_WAITING = 0;
+    /**
+     * The task has been cancelled.
+     */
+    private static final int STATE_CANCELLED = 1;
+    /**
+     * The task has been run.
+     */
+    private static final int STATE_EXPIRED = 2;
+
+    /**
+     * The task to run when the timeout expires.
+     */
+    final Runnable task;
+    /**
+     * The deadline of the timeout, in nanoseconds relative to the start of the timer.
+     */
+    final long deadline;
+    /**
+     * The number of full wheel rotations left before the timeout expires.
+     */
+    long remainingRounds;
+    /**
+     * The next timeout in the same bucket.
+     */
+    Timeout next;
+    /**
+     * The previous timeout in the same bucket.
+     */
+    Timeout prev;
+    /**
+     * The state of the timeout.
+     */
+    private final AtomicInteger state;
+
+    /**
+     * Constructs a `Timeout` for the given task and deadline.
+     *
+     * @param task     The task to run when the timeout expires.
+     * @param deadline The deadline, in nanoseconds relative to the start of the timer.
+     */
+    Timeout(Runnable task, long deadline) {
+        this.task = task;
+        this.deadline = deadline;
+        this.state = new AtomicInteger(STATE_WAITING);
+    }
+
+    /**
+     * Cancels the timeout. A cancelled task is never run; it is dropped from the wheel when its bucket is reached.
+     *
+     * @return `true` if the timeout was cancelled, `false` if it has already expired or been cancelled.
+     */
+    public boolean cancel() {
+        return state.compareAndSet(STATE_WAITING, STATE_CANCELLED);
+    }
+
+    /**
+     * Checks if the timeout has been cancelled.
+     *
+     * @return `true` if the timeout is cancelled, `false` otherwise.
+     */
+    public boolean isCancelled() {
+        return state.get() == STATE_CANCELLED;
+    }
+
+    /**
+     * Checks if the timeout has expired and its task has been run.
+     *
+     * @return `true` if the timeout has expired, `false` otherwise.
+     */
+    public boolean isExpired() {
+        return state.get() == STATE_EXPIRED;
+    }
+
+    /**
+     * Runs the task if the timeout has not been cancelled.
+     */
+    void expire() {
+        if (!state.compareAndSet(STATE_WAITING, STATE_EXPIRED)) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package server.database;
+
+/**
+ * A database whose storage can be compacted: its current state is written as a snapshot and the records appended
+ * since the last snapshot are dropped, so the time to load the database and the disk it uses stay bounded.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public interface Compactable {
+    /**
+     * Gets the file the snapshot of the database is stored in.
+     *
+     * @return The filename.
+     */
+    String getFilename();
+
+    /**
+     * Gets the number of bytes appended to the storage of the database since its last snapshot.
+     *
+     * @return The number of bytes.
+     */
+    long getLogSize();
+
+    /**
+     * Writes a consistent snapshot of the database to a temporary file, renames it over the database file and drops
+     * the records the snapshot contains. Changes made while the snapshot is written are kept.
+     *
+     * @return true if the database is compacted, false if an error occurs
+     */
+    boolean compact();
+}
@@ -0,0 +1,162 @@
+package server.database;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The `DatabaseCompactor` class compacts databases in the background. At every interval it checks the log of every
+ * database and compacts those that have grown past the threshold, on its own thread, so request threads never wait for
+ * a snapshot to be written. Every compaction is reported with its duration and the sizes before and after.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class DatabaseCompactor {
+    /**
+     * The databases compacted.
+     */
+    private final List<? extends Compactable> databases;
+    /**
+     * The interval between checks of the databases, in milliseconds, 0 to compact only on request.
+     */
+    private final long interval;
+    /**
+     * The number of log bytes after which a database is compacted.
+     */
+    private final long threshold;
+    /**
+     * The thread compacting the databases.
+     */
+    private final ScheduledExecutorService executor;
+    /**
+     * The number of compactions run.
+     */
+    private final AtomicLong compactions;
+    /**
+     * The total time spent compacting, in milliseconds.
+     */
+    private final AtomicLong compactionMillis;
+    /**
+     * The total number of log bytes folded into snapshots by compactions.
+     */
+    private final AtomicLong compactedBytes;
+
+    /**
+     * Constructs a `DatabaseCompactor` for the given databases.
+     *
+     * @param databases The databases compacted.
+     * @param interval  The interval between checks of the databases, in milliseconds, 0 to compact only on request.
+     * @param threshold The number of log bytes after which a database is compacted.
+     */
+    public DatabaseCompactor(List<? extends Compactable> databases, long interval, long threshold) {
+        this.databases = databases;
+        this.interval = interval;
+        this.threshold = threshold;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "db-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactions = new AtomicLong();
+        this.compactionMillis = new AtomicLong();
+        this.compactedBytes = new AtomicLong();
+    }
+
+    /**
+     * Starts checking the databases at every interval.
+     */
+    public void start() {
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(() -> compactAll(false), interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops checking the databases. A compaction already running is finished.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Compacts every database with a non-empty log in the background, regardless of the threshold.
+     */
+    public void compactNow() {
+        executor.execute(() -> compactAll(true));
+    }
+
+    /**
+     * Compacts the databases whose log has grown past the threshold.
+     *
+     * @param force Whether every database with a non-empty log is compacted, regardless of the threshold.
+     */
+    private void compactAll(boolean force) {
+        for (Compactable database : databases) {
+            long logSize = database.getLogSize();
+            if (logSize > 0 && (force || logSize >= threshold)) {
+                compact(database, logSize);
+            }
+        }
+    }
+
+    /**
+     * Compacts a database and reports it.
+     *
+     * @param database The database.
+     * @param logSize  The size of its log before the compaction.
+     */
+    private void compact(Compactable database, long logSize) {
+        File file = new File(database.getFilename());
+        long fileSize = file.length();
+        long start = System.nanoTime();
+        boolean compacted;
+        try {
+            compacted = database.compact();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            compacted = false;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!compacted) {
+            System.out.println("Failed to compact " + file.getName() + ".");
+            return;
+        }
+        compactions.incrementAndGet();
+        compactionMillis.addAndGet(millis);
+        compactedBytes.addAndGet(logSize);
+        System.out.println("Compacted " + file.getName() + " in " + millis + " ms: " + logSize + " log bytes folded in, file "
+                + fileSize + " -> " + file.length() + " bytes.");
+    }
+
+    /**
+     * Gets the number of compactions run.
+     *
+     * @return The number of compactions.
+     */
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Gets the total time spent compacting.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getCompactionMillis() {
+        return compactionMillis.get();
+    }
+
+    /**
+     * Gets the total number of log bytes folded into snapshots by compactions.
+     *
+     * @return The number of bytes.
+     */
+    public long getCompactedBytes() {
+        return compactedBytes.get();
+    }
+}
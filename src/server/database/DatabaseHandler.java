@@ -1,6 +1,6 @@
 package server.database;
 
-import java.util.LinkedList;
+import java.util.List;
 
 /**
  * @author Tomasz Zbroszczyk on 16.10.2023
@@ -56,9 +56,9 @@ public interface DatabaseHandler<T> {
 
     /**
      * Gets all records from the database.
-     * @return LinkedList<T> all
+     * @return List<T> all
      */
-    LinkedList<T> getAll();
+    List<T> getAll();
 
     /**
      * Updates the database file.
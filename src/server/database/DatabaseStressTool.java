@@ -0,0 +1,439 @@
+package server.database;
+
+import server.database.relationDatabase.Relation;
+import server.database.relationDatabase.RelationDatabaseHandler;
+import server.database.userDatabase.User;
+import server.database.userDatabase.UserDatabaseHandler;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The `DatabaseStressTool` class checks the user and relation databases under concurrent use and measures how their
+ * reads scale with threads. It creates fresh databases in the given directory, then:
+ * <ul>
+ *     <li>registers users from every thread at once, every thread also trying the same shared usernames, and checks
+ *     that each username is registered once and ids are unique and dense;</li>
+ *     <li>adds relations from every thread at once, every pair in both orders, and checks that each pair has one
+ *     relation and ids are unique and dense;</li>
+ *     <li>answers questions for both users of every relation at once and checks that every question is scored
+ *     exactly once;</li>
+ *     <li>reloads both databases from their files and checks they hold the same state;</li>
+ *     <li>reads relations and users with 1, 2, 4, ... threads while a writer keeps changing relations, and prints the
+ *     reads per second and the speedup over one thread.</li>
+ * </ul>
+ * It exits with status 1 if a check fails. It must not be pointed at the directory of a running server.
+ * <p>
+ * Usage: `java server.database.DatabaseStressTool /tmp/stress 8 2`
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class DatabaseStressTool {
+    /**
+     * The number of users every thread registers under its own usernames.
+     */
+    private static final int USERS_PER_THREAD = 2000;
+    /**
+     * The number of usernames every thread tries to register.
+     */
+    private static final int SHARED_USERS = 500;
+    /**
+     * The number of relations added.
+     */
+    private static final int RELATIONS = 2000;
+    /**
+     * The number of questions both users of every relation answer.
+     */
+    private static final int QUESTIONS = 50;
+
+    /**
+     * The number of checks that failed.
+     */
+    private static int failures;
+
+    /**
+     * Prevents instantiation.
+     */
+    private DatabaseStressTool() {}
+
+    /**
+     * Stresses fresh databases in the directory given as the first argument with up to the number of threads given as
+     * the second argument, measuring every step of the read throughput for the number of seconds given as the third.
+     *
+     * @param args The directory, the maximum number of threads and the seconds of every throughput step.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: DatabaseStressTool <directory> <threads> <seconds>");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        File users = new File(directory, "users.txt");
+        File relations = new File(directory, "relations.txt");
+        if (users.exists() || relations.exists()) {
+            System.out.println("Refusing to overwrite the databases in " + directory + ", use an empty directory.");
+            System.exit(1);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Cannot create " + directory + ".");
+            System.exit(1);
+        }
+        int threads = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            UserDatabaseHandler userDatabaseHandler = new UserDatabaseHandler(users.getPath(), 4, 0, false);
+            RelationDatabaseHandler relationDatabaseHandler = new RelationDatabaseHandler(relations.getPath(), 0, false);
+            stressUsers(userDatabaseHandler, executor, threads);
+            stressRelations(relationDatabaseHandler, executor, threads);
+            stressAnswers(relationDatabaseHandler, executor, threads);
+            checkReload(userDatabaseHandler, relationDatabaseHandler, users.getPath(), relations.getPath());
+            measureReads(userDatabaseHandler, relationDatabaseHandler, executor, threads, seconds);
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            failures++;
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println(failures == 0 ? "All checks passed." : failures + " checks failed.");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Registers users from every thread at once and checks them.
+     *
+     * @param handler  The user database.
+     * @param executor The executor running the threads.
+     * @param threads  The number of threads.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws ExecutionException   If a thread fails.
+     */
+    private static void stressUsers(UserDatabaseHandler handler, ExecutorService executor, int threads) throws InterruptedException, ExecutionException {
+        AtomicInteger added = new AtomicInteger();
+        long start = System.nanoTime();
+        // Every rejected duplicate is logged by the handler, so the output is muted while the shared names are tried
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new NullOutputStream()));
+        try {
+            runAll(executor, threads, thread -> {
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    if (handler.add("user" + thread + "_" + i, "password")) {
+                        added.incrementAndGet();
+                    }
+                    if (i < SHARED_USERS && handler.add("shared" + i, "password" + thread)) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+        } finally {
+            System.setOut(out);
+        }
+        int expected = threads * USERS_PER_THREAD + SHARED_USERS;
+        check("registered users", expected, added.get());
+        check("stored users", expected, handler.getAll().size());
+        Set<Integer> ids = new HashSet<>();
+        int mismatched = 0;
+        for (User user : handler.getAll()) {
+            ids.add(user.getId());
+            User byId = handler.getById(user.getId());
+            User byName = handler.getByName(user.getUsername());
+            if (byId != user || byName != user) {
+                mismatched++;
+            }
+        }
+        check("distinct user ids", expected, ids.size());
+        check("highest user id", expected, ids.isEmpty() ? 0 : maxOf(ids));
+        check("users found by id and name", 0, mismatched);
+        System.out.println("Registered " + added.get() + " users with " + threads + " threads in " + millisSince(start) + " ms.");
+    }
+
+    /**
+     * Adds relations from every thread at once, every pair in both orders, and checks them.
+     *
+     * @param handler  The relation database.
+     * @param executor The executor running the threads.
+     * @param threads  The number of threads.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws ExecutionException   If a thread fails.
+     */
+    private static void stressRelations(RelationDatabaseHandler handler, ExecutorService executor, int threads) throws InterruptedException, ExecutionException {
+        AtomicInteger added = new AtomicInteger();
+        long start = System.nanoTime();
+        runAll(executor, threads, thread -> {
+            for (int i = 0; i < RELATIONS; i++) {
+                // Half the threads add the pair in the other order, all of them race for every pair
+                boolean swapped = thread % 2 == 1;
+                if (handler.add(swapped ? 2 * i + 1 : 2 * i, swapped ? 2 * i : 2 * i + 1)) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+        check("added relations", RELATIONS, added.get());
+        check("stored relations", RELATIONS, handler.getAll().size());
+        Set<Integer> ids = new HashSet<>();
+        int mismatched = 0;
+        for (Relation relation : handler.getAll()) {
+            ids.add(relation.getId());
+            Relation reversed = handler.getByUsers(relation.getUser2Id(), relation.getUser1Id());
+            if (reversed == null || reversed.getId() != relation.getId()) {
+                mismatched++;
+            }
+        }
+        check("distinct relation ids", RELATIONS, ids.size());
+        check("highest relation id", RELATIONS, ids.isEmpty() ? 0 : maxOf(ids));
+        check("relations found in both orders", 0, mismatched);
+        System.out.println("Added " + added.get() + " relations with " + threads + " threads in " + millisSince(start) + " ms.");
+    }
+
+    /**
+     * Answers every question for both users of every relation at once and checks the counters.
+     *
+     * @param handler  The relation database.
+     * @param executor The executor running the threads.
+     * @param threads  The number of threads, at least 2 so both users answer at once.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws ExecutionException   If a thread fails.
+     */
+    private static void stressAnswers(RelationDatabaseHandler handler, ExecutorService executor, int threads) throws InterruptedException, ExecutionException {
+        List<Relation> relations = handler.getAll();
+        int workers = Math.max(threads, 2);
+        long start = System.nanoTime();
+        runAll(executor, workers, thread -> {
+            // Even threads answer for the first user and odd ones for the second, each over its part of the relations
+            int side = thread % 2;
+            int parts = (workers + 1 - side) / 2;
+            for (int question = 0; question < QUESTIONS; question++) {
+                for (int i = thread / 2; i < relations.size(); i += parts) {
+                    Relation relation = relations.get(i);
+                    int userId = side == 0 ? relation.getUser1Id() : relation.getUser2Id();
+                    // Every third question gets different answers from the two users
+                    String answer = question % 3 == 0 && side == 1 ? "no" : "yes";
+                    handler.answerQuestion(relation.getId(), userId, question, answer);
+                }
+            }
+        });
+        int wrong = 0;
+        for (Relation relation : handler.getAll()) {
+            if (!isFullyScored(relation)) {
+                wrong++;
+            }
+        }
+        check("relations scored exactly once per question", 0, wrong);
+        System.out.println("Answered " + 2 * QUESTIONS * relations.size() + " questions with " + workers + " threads in "
+                + millisSince(start) + " ms.");
+    }
+
+    /**
+     * Reloads both databases from their files and checks they hold the same state.
+     *
+     * @param userDatabaseHandler     The user database.
+     * @param relationDatabaseHandler The relation database.
+     * @param users                   The user database file.
+     * @param relations               The relation database file.
+     */
+    private static void checkReload(UserDatabaseHandler userDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler, String users, String relations) {
+        userDatabaseHandler.flush();
+        UserDatabaseHandler reloadedUsers = new UserDatabaseHandler(users, 4, 0, false);
+        RelationDatabaseHandler reloadedRelations = new RelationDatabaseHandler(relations, 0, false);
+        check("reloaded users", userDatabaseHandler.getAll().size(), reloadedUsers.getAll().size());
+        check("reloaded relations", relationDatabaseHandler.getAll().size(), reloadedRelations.getAll().size());
+        int wrong = 0;
+        for (Relation relation : reloadedRelations.getAll()) {
+            if (!isFullyScored(relation)) {
+                wrong++;
+            }
+        }
+        check("reloaded relations scored exactly once per question", 0, wrong);
+    }
+
+    /**
+     * Measures reads of relations and users with 1, 2, 4, ... threads, while one writer keeps changing relations.
+     *
+     * @param userDatabaseHandler     The user database.
+     * @param relationDatabaseHandler The relation database.
+     * @param executor                The executor running the threads.
+     * @param threads                 The maximum number of reading threads.
+     * @param seconds                 The time every step is measured for.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws ExecutionException   If a thread fails.
+     */
+    private static void measureReads(UserDatabaseHandler userDatabaseHandler, RelationDatabaseHandler relationDatabaseHandler, ExecutorService executor, int threads, int seconds) throws InterruptedException, ExecutionException {
+        int users = userDatabaseHandler.getAll().size();
+        System.out.println("Measuring reads on " + Runtime.getRuntime().availableProcessors() + " processors.");
+        double single = 0;
+        // The first step only warms up the code paths and is not reported
+        for (int readers = 1, step = 0; readers <= threads; readers = step++ == 0 ? 1 : readers * 2) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            Future<?> writer = executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int id = 1 + random.nextInt(RELATIONS);
+                    relationDatabaseHandler.updateCounters(id, QUESTIONS, random.nextInt(QUESTIONS));
+                }
+            });
+            List<Future<Long>> counts = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < readers; i++) {
+                counts.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long reads = 0;
+                    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+                    while (System.nanoTime() < end) {
+                        for (int j = 0; j < 1000; j++) {
+                            Relation relation = relationDatabaseHandler.getById(1 + random.nextInt(RELATIONS));
+                            User user = userDatabaseHandler.getById(1 + random.nextInt(users));
+                            if (relation != null && user != null) {
+                                reads++;
+                            }
+                        }
+                    }
+                    return reads;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> count : counts) {
+                total += count.get();
+            }
+            running.set(false);
+            writer.get();
+            double perSecond = total / (double) seconds;
+            if (step == 0) {
+                continue;
+            }
+            if (readers == 1) {
+                single = perSecond;
+            }
+            System.out.printf("%2d readers: %,12.0f reads/s, speedup %.2fx%n", readers, perSecond, perSecond / single);
+        }
+    }
+
+    /**
+     * Checks whether a relation has every question scored exactly once and no pending answer.
+     *
+     * @param relation The relation.
+     * @return `true` if the counters and questions match the answers given, `false` otherwise.
+     */
+    private static boolean isFullyScored(Relation relation) {
+        int mismatched = (QUESTIONS + 2) / 3;
+        return relation.getTotalQuestionsAnswered() == QUESTIONS
+                && relation.getCorrectQuestionsAnswered() == QUESTIONS - mismatched
+                && relation.getQuestionsAnsweredByUser1().size() == QUESTIONS
+                && relation.getQuestionsAnsweredByUser2().size() == QUESTIONS
+                && relation.getQuestionsUnansweredByUser1().size() == 0
+                && relation.getQuestionsUnansweredByUser2().size() == 0;
+    }
+
+    /**
+     * Runs a task on every thread at once and waits for all of them.
+     *
+     * @param executor The executor running the threads.
+     * @param threads  The number of threads.
+     * @param task     The task, given the index of its thread.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws ExecutionException   If a thread fails.
+     */
+    private static void runAll(ExecutorService executor, int threads, ThreadTask task) throws InterruptedException, ExecutionException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            tasks.add(() -> {
+                task.run(thread);
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    /**
+     * Compares a measured value with the expected one and reports a mismatch.
+     *
+     * @param what     What was measured.
+     * @param expected The expected value.
+     * @param actual   The measured value.
+     */
+    private static void check(String what, int expected, int actual) {
+        if (expected != actual) {
+            System.out.println("FAILED: " + what + ": expected " + expected + ", got " + actual + ".");
+            failures++;
+        }
+    }
+
+    /**
+     * Gets the largest of a set of ints.
+     *
+     * @param values The ints, not empty.
+     * @return The largest one.
+     */
+    private static int maxOf(Set<Integer> values) {
+        int max = Integer.MIN_VALUE;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the time elapsed since a point in time.
+     *
+     * @param start The point in time, from `System.nanoTime()`.
+     * @return The elapsed time in milliseconds.
+     */
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * A task run on one of several threads.
+     */
+    private interface ThreadTask {
+        /**
+         * Runs the task.
+         *
+         * @param thread The index of the thread running it.
+         */
+        void run(int thread);
+    }
+
+    /**
+     * An output stream discarding everything written to it.
+     */
+    private static final class NullOutputStream extends OutputStream {
+        /**
+         * Discards a byte.
+         *
+         * @param b The byte.
+         */
+        @Override
+        public void write(int b) {
+        }
+
+        /**
+         * Discards a range of bytes.
+         *
+         * @param b   The bytes.
+         * @param off The offset of the first byte.
+         * @param len The number of bytes.
+         */
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package server.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The `GroupCommitWriter` class owns a database file and writes to it on a single background thread. Request threads
+ * only enqueue records; the writer takes everything queued - waiting up to the commit window for more - and writes it
+ * with one write and, if enabled, one `force()`. Every caller gets a future that completes once its record is written,
+ * so many concurrent appends share the cost of a single commit. Rewrites go to a temporary file that is forced and
+ * renamed over the file, so a crash never leaves a half-written file behind.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class GroupCommitWriter implements Runnable {
+    /**
+     * The line separator written after every record, the same `BufferedWriter.newLine()` writes.
+     */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The file written.
+     */
+    private final String filename;
+    /**
+     * The time to wait for more records after the first one of a commit, in nanoseconds.
+     */
+    private final long commitWindow;
+    /**
+     * Whether every commit is forced to the storage device.
+     */
+    private final boolean forceWrites;
+    /**
+     * The writes waiting to be committed.
+     */
+    private final LinkedBlockingQueue<Write> queue;
+    /**
+     * The channel of the file, opened by the writer thread when records are appended, `null` while closed.
+     */
+    private FileChannel channel;
+    /**
+     * The size to truncate the file to when it is next opened, after a failed commit could not be cut off the file,
+     * -1 if the file is whole.
+     */
+    private long truncateTo = -1;
+    /**
+     * The number of bytes appended since the file was last rewritten or rotated.
+     */
+    private volatile long appendedBytes;
+
+    /**
+     * Constructs a `GroupCommitWriter` for the given file and starts its writer thread.
+     *
+     * @param filename           The file written.
+     * @param commitWindowMillis The time to wait for more records after the first one of a commit, in milliseconds,
+     *                           0 to commit whatever is queued right away.
+     * @param forceWrites        Whether every commit is forced to the storage device.
+     */
+    public GroupCommitWriter(String filename, long commitWindowMillis, boolean forceWrites) {
+        this.filename = filename;
+        this.commitWindow = TimeUnit.MILLISECONDS.toNanos(commitWindowMillis);
+        this.forceWrites = forceWrites;
+        this.queue = new LinkedBlockingQueue<>();
+        Thread thread = new Thread(this, "db-writer-" + Paths.get(filename).getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Appends a record to the end of the file.
+     *
+     * @param record The record, without the trailing line separator.
+     * @return A future completed with `true` once the record is written, or `false` if the write failed, in which case
+     * the record is not in the file.
+     */
+    public CompletableFuture<Boolean> append(String record) {
+        Write write = new Write(record, null, null);
+        queue.add(write);
+        return write.future;
+    }
+
+    /**
+     * Replaces the content of the file with the given records, after all records appended before are written.
+     *
+     * @param records The new records of the file.
+     * @return A future completed with `true` once the file is rewritten, or `false` if the write failed.
+     */
+    public CompletableFuture<Boolean> rewrite(List<String> records) {
+        Write write = new Write(null, records, null);
+        queue.add(write);
+        return write.future;
+    }
+
+    /**
+     * Moves the file to the given archive after all records appended before are written. Records appended afterwards
+     * go to a new, empty file.
+     *
+     * @param archive The file the current file is moved to, replaced if it exists.
+     * @return A future completed with `true` once the file is moved, or `false` if the move failed.
+     */
+    public CompletableFuture<Boolean> rotate(String archive) {
+        Write write = new Write(null, null, archive);
+        queue.add(write);
+        return write.future;
+    }
+
+    /**
+     * Gets the number of bytes appended since the file was last rewritten or rotated by this writer.
+     *
+     * @return The number of bytes.
+     */
+    public long getAppendedBytes() {
+        return appendedBytes;
+    }
+
+    /**
+     * Waits until every record appended so far is written.
+     *
+     * @return A future completed with `true` once all previous records are written, `false` if a write failed.
+     */
+    public CompletableFuture<Boolean> flush() {
+        return append(null);
+    }
+
+    /**
+     * Commits the queued writes until the JVM exits.
+     */
+    @Override
+    public void run() {
+        List<Write> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                if (commitWindow > 0) {
+                    long deadline = System.nanoTime() + commitWindow;
+                    long remaining;
+                    Write write;
+                    while ((remaining = deadline - System.nanoTime()) > 0 && (write = queue.poll(remaining, TimeUnit.NANOSECONDS)) != null) {
+                        batch.add(write);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch of writes and completes the future of each by whether its own change reached the file. Appends are
+     * written together up to the next rewrite or rotation, and a failed group of appends is cut off the file again, so
+     * a write reported as not written is never found in the file on the next load.
+     *
+     * @param batch The writes, in the order they were queued.
+     */
+    private void commit(List<Write> batch) {
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        List<Write> appends = new ArrayList<>();
+        boolean allWritten = true;
+        for (Write write : batch) {
+            if (write.records != null || write.archive != null) {
+                // Appends queued before a rewrite still go to the old content first
+                allWritten &= commitAppends(appends, appended, allWritten);
+                boolean written;
+                try {
+                    if (write.records != null) {
+                        replace(write.records);
+                    } else {
+                        archive(write.archive);
+                    }
+                    written = true;
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    closeChannel();
+                    written = false;
+                }
+                allWritten &= written;
+                write.future.complete(written);
+            } else {
+                if (write.record != null) {
+                    encode(write.record, appended);
+                }
+                appends.add(write);
+            }
+        }
+        commitAppends(appends, appended, allWritten);
+    }
+
+    /**
+     * Writes a group of appends with one write and, if enabled, one `force()`, and completes their futures. If the
+     * write or the force fails, the file is truncated back to its size before the group.
+     *
+     * @param appends    The appends and flushes of the group, emptied afterwards.
+     * @param appended   Their encoded records, emptied afterwards.
+     * @param allWritten Whether every write of the batch before the group was written, which a flush also reports.
+     * @return `true` if the group was written, `false` otherwise.
+     */
+    private boolean commitAppends(List<Write> appends, ByteArrayOutputStream appended, boolean allWritten) {
+        if (appends.isEmpty()) {
+            return true;
+        }
+        long start = -1;
+        boolean written;
+        try {
+            if (appended.size() > 0) {
+                if (channel == null) {
+                    open();
+                }
+                start = channel.position();
+                writeFully(channel, ByteBuffer.wrap(appended.toByteArray()));
+                if (forceWrites) {
+                    channel.force(false);
+                }
+                appendedBytes += appended.size();
+            }
+            written = true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            rollBack(start);
+            written = false;
+        }
+        for (Write write : appends) {
+            // A flush is only written if everything queued before it is
+            write.future.complete(written && (write.record != null || allWritten));
+        }
+        appends.clear();
+        appended.reset();
+        return written;
+    }
+
+    /**
+     * Cuts the records of a failed group of appends off the file. If that fails too, the file is closed and cut when
+     * it is next opened, before anything else is appended to it.
+     *
+     * @param start The size of the file before the group, -1 if nothing was written.
+     */
+    private void rollBack(long start) {
+        if (start < 0 || channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+            if (forceWrites) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            truncateTo = start;
+            closeChannel();
+        }
+    }
+
+    /**
+     * Opens the file and moves to its end. If the file does not end with a line separator, one is written first, so the
+     * first record does not end up on the last line of the file.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (truncateTo >= 0) {
+            // Records of a failed commit are still in the file, so they are cut off before anything is appended
+            channel.truncate(truncateTo);
+            channel.force(false);
+            truncateTo = -1;
+        }
+        // Only the writer thread writes the file, so keeping the position at the end appends
+        long size = channel.size();
+        channel.position(size);
+        if (size > 0) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            if (last.get(0) != '\n') {
+                writeFully(channel, ByteBuffer.wrap(LINE_SEPARATOR));
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the file: the records are written to a temporary file, which is forced and renamed over
+     * the file.
+     *
+     * @param records The new records of the file.
+     * @throws IOException If the temporary file cannot be written or renamed.
+     */
+    private void replace(List<String> records) throws IOException {
+        Path path = Paths.get(filename);
+        Path temporary = Paths.get(filename + ".tmp");
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String record : records) {
+                encode(record, encoded);
+                // Written in chunks, so a large snapshot is never held in memory twice
+                if (encoded.size() >= 64 * 1024) {
+                    writeFully(out, ByteBuffer.wrap(encoded.toByteArray()));
+                    encoded.reset();
+                }
+            }
+            writeFully(out, ByteBuffer.wrap(encoded.toByteArray()));
+            out.force(false);
+        }
+        closeChannel();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        truncateTo = -1;
+        appendedBytes = 0;
+    }
+
+    /**
+     * Moves the file to an archive. The next append opens a new file.
+     *
+     * @param archive The file the current file is moved to, replaced if it exists.
+     * @throws IOException If the file cannot be moved.
+     */
+    private void archive(String archive) throws IOException {
+        if (channel == null && truncateTo >= 0) {
+            // Cut off the records of a failed commit, so they are not archived with the others
+            open();
+        }
+        if (channel != null) {
+            channel.force(false);
+        }
+        closeChannel();
+        Path path = Paths.get(filename);
+        if (Files.exists(path)) {
+            Files.move(path, Paths.get(archive), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        truncateTo = -1;
+        appendedBytes = 0;
+    }
+
+    /**
+     * Writes a buffer completely at the position of a channel.
+     *
+     * @param out    The channel.
+     * @param buffer The buffer.
+     * @throws IOException If the write fails.
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Closes the channel, so the next commit reopens the file.
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Encodes a record as a line.
+     *
+     * @param record The record.
+     * @param out    The buffer the line is written to.
+     */
+    private static void encode(String record, ByteArrayOutputStream out) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        out.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * A write waiting to be committed: a record to append, the records replacing the file or the archive the file is
+     * moved to.
+     */
+    private static final class Write {
+        /**
+         * The record to append, `null` for a rewrite, a rotation or a flush.
+         */
+        final String record;
+        /**
+         * The records replacing the content of the file, `null` for anything else.
+         */
+        final List<String> records;
+        /**
+         * The archive the file is moved to, `null` for anything else.
+         */
+        final String archive;
+        /**
+         * The future completed once the write is committed.
+         */
+        final CompletableFuture<Boolean> future;
+
+        /**
+         * Constructs a `Write`.
+         *
+         * @param record  The record to append, `null` for a rewrite, a rotation or a flush.
+         * @param records The records replacing the content of the file, `null` for anything else.
+         * @param archive The archive the file is moved to, `null` for anything else.
+         */
+        Write(String record, List<String> records, String archive) {
+            this.record = record;
+            this.records = records;
+            this.archive = archive;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
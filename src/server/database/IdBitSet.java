@@ -0,0 +1,173 @@
+package server.database;
+
+import java.util.Arrays;
+
+/**
+ * The `IdBitSet` class is an immutable set of non-negative ids, one bit per id up to the highest id it holds, with a
+ * rank directory: the number of ids before each word of bits. The directory answers how many ids are smaller than an
+ * id in constant time and finds the id of a given rank with a binary search over the words, which is what picking a
+ * random question a user has not seen needs without a scan of the whole set.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class IdBitSet {
+    /**
+     * An empty set.
+     */
+    public static final IdBitSet EMPTY = new IdBitSet(new long[0]);
+
+    /**
+     * The words of the set, bit `id % 64` of word `id / 64` is set if the id is in the set.
+     */
+    private final long[] words;
+    /**
+     * The rank directory, element `i` is the number of ids in the words before word `i`; the last element is the
+     * number of ids in the set.
+     */
+    private final int[] ranks;
+
+    /**
+     * Constructs an `IdBitSet` holding the given words. The array is owned by the set afterwards.
+     *
+     * @param words The words.
+     */
+    private IdBitSet(long[] words) {
+        this.words = words;
+        this.ranks = new int[words.length + 1];
+        for (int i = 0; i < words.length; i++) {
+            ranks[i + 1] = ranks[i] + Long.bitCount(words[i]);
+        }
+    }
+
+    /**
+     * Creates a set holding the given ids.
+     *
+     * @param ids The ids, in any order; negative ids are left out.
+     * @return The set.
+     */
+    public static IdBitSet of(int[] ids) {
+        int max = -1;
+        for (int id : ids) {
+            max = Math.max(max, id);
+        }
+        long[] words = new long[(max >> 6) + 1];
+        for (int id : ids) {
+            if (id >= 0) {
+                words[id >> 6] |= 1L << id;
+            }
+        }
+        return new IdBitSet(words);
+    }
+
+    /**
+     * Creates a set holding the ids of this one and the given id. This set does not change.
+     *
+     * @param id The id to add, not negative.
+     * @return The new set.
+     */
+    public IdBitSet with(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        long[] added = Arrays.copyOf(words, Math.max(words.length, (id >> 6) + 1));
+        added[id >> 6] |= 1L << id;
+        return new IdBitSet(added);
+    }
+
+    /**
+     * Checks whether the set holds an id.
+     *
+     * @param id The id.
+     * @return `true` if the set holds the id, `false` otherwise or if the id is negative.
+     */
+    public boolean get(int id) {
+        int word = id >> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Gets the number of ids in the set.
+     *
+     * @return The number of ids.
+     */
+    public int size() {
+        return ranks[words.length];
+    }
+
+    /**
+     * Gets the number of words of the set.
+     *
+     * @return The number of words.
+     */
+    int wordCount() {
+        return words.length;
+    }
+
+    /**
+     * Gets a word of the set.
+     *
+     * @param index The index of the word.
+     * @return The word, bit `id % 64` set if the id `64 * index + id % 64` is in the set.
+     */
+    long word(int index) {
+        return words[index];
+    }
+
+    /**
+     * Gets the number of ids in the words before a word.
+     *
+     * @param index The index of the word, up to `wordCount()`.
+     * @return The number of ids before the word.
+     */
+    int rankOfWord(int index) {
+        return ranks[index];
+    }
+
+    /**
+     * Counts the ids of the set smaller than an id, in constant time.
+     *
+     * @param id The id.
+     * @return The number of smaller ids, which is the rank of the id if the set holds it.
+     */
+    public int rank(int id) {
+        if (id <= 0) {
+            return 0;
+        }
+        int word = id >> 6;
+        if (word >= words.length) {
+            return size();
+        }
+        return ranks[word] + Long.bitCount(words[word] & ((1L << id) - 1));
+    }
+
+    /**
+     * Finds the id of a rank, the ids being ordered, with a binary search over the rank directory.
+     *
+     * @param rank The rank, from 0 to `size() - 1`.
+     * @return The id, or -1 if there are not that many ids.
+     */
+    public int select(int rank) {
+        if (rank < 0 || rank >= size()) {
+            return -1;
+        }
+        // Find the last word with fewer ids before it than the rank
+        int low = 0;
+        int high = words.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (ranks[middle] <= rank) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        long word = words[low];
+        // Drop the lowest set bits until the one with the rank is the lowest
+        for (int left = rank - ranks[low]; left > 0; left--) {
+            word &= word - 1;
+        }
+        return (low << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,156 @@
+package server.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The `ParallelFileLoader` class loads the records of a database file, one per line, on all processors. The file is
+ * mapped into memory and split into chunks ending on line boundaries; the chunks are parsed in parallel and their
+ * records are returned in file order. Small files are parsed as a single chunk.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class ParallelFileLoader {
+    /**
+     * The minimum size of a chunk, smaller files are not split.
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    /**
+     * The maximum size of a chunk, larger chunks could not be mapped or decoded at once.
+     */
+    private static final long MAX_CHUNK_SIZE = 1 << 29;
+
+    /**
+     * Prevents instantiation.
+     */
+    private ParallelFileLoader() {}
+
+    /**
+     * Loads the records of a file. Empty lines are skipped, a line feed may be preceded by a carriage return.
+     *
+     * @param filename The file.
+     * @param parser   The parser of a line, called concurrently; lines it returns `null` for are skipped.
+     * @param <T>      The type of the records.
+     * @return The records in file order, empty if the file does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    public static <T> List<T> load(String filename, Function<String, T> parser) throws IOException {
+        if (!new File(filename).exists()) {
+            return new ArrayList<>();
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int processors = Runtime.getRuntime().availableProcessors();
+            long chunks = Math.max(Math.min(processors, size / MIN_CHUNK_SIZE), size / MAX_CHUNK_SIZE + 1);
+            long[] bounds = new long[(int) chunks + 1];
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = nextLine(channel, Math.max(bounds[i - 1], size * i / chunks));
+            }
+            bounds[(int) chunks] = size;
+            List<List<T>> parsed = IntStream.range(0, (int) chunks).parallel()
+                    .mapToObj(i -> parse(channel, bounds[i], bounds[i + 1], parser))
+                    .collect(Collectors.toList());
+            List<T> records = new ArrayList<>(parsed.stream().mapToInt(List::size).sum());
+            parsed.forEach(records::addAll);
+            return records;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Finds the start of the line following a position.
+     *
+     * @param channel  The file.
+     * @param position The position.
+     * @return The position after the next line feed at or after the position, or the size of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return channel.size();
+    }
+
+    /**
+     * Parses the lines of a chunk of a file.
+     *
+     * @param channel The file.
+     * @param start   The start of the chunk, the start of a line.
+     * @param end     The end of the chunk, the start of a line or the end of the file.
+     * @param parser  The parser of a line.
+     * @param <T>     The type of the records.
+     * @return The records of the chunk in file order.
+     */
+    private static <T> List<T> parse(FileChannel channel, long start, long end, Function<String, T> parser) {
+        List<T> records = new ArrayList<>();
+        if (start == end) {
+            return records;
+        }
+        String text;
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            text = StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int from = 0;
+        while (from < text.length()) {
+            int to = text.indexOf('\n', from);
+            if (to < 0) {
+                to = text.length();
+            }
+            int lineEnd = to > from && text.charAt(to - 1) == '\r' ? to - 1 : to;
+            if (lineEnd > from) {
+                T record = parser.apply(text.substring(from, lineEnd));
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+            from = to + 1;
+        }
+        return records;
+    }
+
+    /**
+     * Prints how long loading a database took and its throughput.
+     *
+     * @param database The name of the database.
+     * @param records  The number of records loaded.
+     * @param bytes    The number of bytes read.
+     * @param start    The value of `System.nanoTime()` when loading started.
+     */
+    public static void report(String database, int records, long bytes, long start) {
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        double seconds = nanos / 1e9;
+        System.out.println(String.format("Loaded %d %s in %d ms (%.1f MB/s, %.0f records/s).", records, database,
+                TimeUnit.NANOSECONDS.toMillis(nanos), bytes / 1e6 / seconds, records / seconds));
+    }
+}
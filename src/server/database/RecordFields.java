@@ -0,0 +1,66 @@
+package server.database;
+
+/**
+ * The `RecordFields` class checks strings before they are stored in a field of a text record. The databases store
+ * their records one per line with `:` between the fields and `;` between the elements of a list, and a relation stores
+ * pending answers as `questionId-answer`, so a value holding one of these characters or a line break would be read
+ * back as a different record, or not at all. The binary protocol can carry any character, so every stored string is
+ * checked here rather than relying on the text protocol splitting messages at `:`.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class RecordFields {
+    /**
+     * The characters separating records, fields and list elements.
+     */
+    private static final String SEPARATORS = ":;\n\r";
+    /**
+     * The character separating the question id from the answer of a pending relation answer.
+     */
+    private static final char ANSWER_SEPARATOR = '-';
+
+    /**
+     * Prevents instantiation.
+     */
+    private RecordFields() {}
+
+    /**
+     * Checks whether a string can be stored in a field of a record.
+     *
+     * @param value The string.
+     * @return `true` if the string holds no separator, `false` otherwise or if it is `null`.
+     */
+    public static boolean isValid(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (SEPARATORS.indexOf(value.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a string can be stored in a field of a record and is not empty.
+     *
+     * @param value The string.
+     * @return `true` if the string is not empty and holds no separator, `false` otherwise.
+     */
+    public static boolean isValidNonEmpty(String value) {
+        return isValid(value) && !value.isEmpty();
+    }
+
+    /**
+     * Checks whether a string can be stored as the pending answer of a relation.
+     *
+     * @param value The string.
+     * @return `true` if the string holds no separator and no `-`, `false` otherwise.
+     */
+    public static boolean isValidAnswer(String value) {
+        return isValid(value) && value.indexOf(ANSWER_SEPARATOR) < 0;
+    }
+}
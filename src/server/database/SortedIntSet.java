@@ -0,0 +1,133 @@
+package server.database;
+
+import java.util.Arrays;
+
+/**
+ * The `SortedIntSet` class is a compact set of ints kept as a sorted array, 4 bytes per element instead of the boxed
+ * node of a `LinkedList<Integer>`. Lookups are binary searches; adding an element larger than all others, the usual
+ * case when loading a sorted record, is an append.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class SortedIntSet {
+    /**
+     * The shared array of empty sets.
+     */
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * The elements in ascending order, followed by unused slots.
+     */
+    private int[] values;
+    /**
+     * The number of elements.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty `SortedIntSet`.
+     */
+    public SortedIntSet() {
+        this.values = EMPTY;
+    }
+
+    /**
+     * Constructs a `SortedIntSet` holding the given elements. The array is owned by the set afterwards.
+     *
+     * @param values The elements in ascending order, without duplicates.
+     * @param size   The number of elements.
+     */
+    private SortedIntSet(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Adds an element to the set.
+     *
+     * @param value The element.
+     * @return `true` if the element is added, `false` if the set already holds it.
+     */
+    public boolean add(int value) {
+        int index = size > 0 && values[size - 1] < value ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an element from the set.
+     *
+     * @param value The element.
+     * @return `true` if the element is removed, `false` if the set does not hold it.
+     */
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks whether the set holds an element.
+     *
+     * @param value The element.
+     * @return `true` if the set holds the element, `false` otherwise.
+     */
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Gets the number of elements.
+     *
+     * @return The number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the element at the given position.
+     *
+     * @param index The position, from 0 to `size() - 1`.
+     * @return The element, the elements being in ascending order.
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Drops the unused slots of the array.
+     */
+    public void trimToSize() {
+        if (values.length > size) {
+            values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Creates a copy of the set that does not change when the set does.
+     *
+     * @return The copy.
+     */
+    public SortedIntSet copy() {
+        return new SortedIntSet(size == 0 ? EMPTY : Arrays.copyOf(values, size), size);
+    }
+}
@@ -0,0 +1,182 @@
+package server.database;
+
+import java.util.Arrays;
+
+/**
+ * The `SortedIntStringMap` class is a compact map from ints to strings, kept as a sorted array of keys and a parallel
+ * array of values, instead of the boxed keys and entry nodes of a `HashMap<Integer, String>`. Values are interned, so
+ * the same answer stored in many maps is held once. Lookups are binary searches.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class SortedIntStringMap {
+    /**
+     * The shared key array of empty maps.
+     */
+    private static final int[] NO_KEYS = new int[0];
+    /**
+     * The shared value array of empty maps.
+     */
+    private static final String[] NO_VALUES = new String[0];
+
+    /**
+     * The keys in ascending order, followed by unused slots.
+     */
+    private int[] keys;
+    /**
+     * The values, the value of a key is at the same position as the key.
+     */
+    private String[] values;
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty `SortedIntStringMap`.
+     */
+    public SortedIntStringMap() {
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+    }
+
+    /**
+     * Constructs a `SortedIntStringMap` holding the given entries. The arrays are owned by the map afterwards.
+     *
+     * @param keys   The keys in ascending order, without duplicates.
+     * @param values The values.
+     * @param size   The number of entries.
+     */
+    private SortedIntStringMap(int[] keys, String[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Maps a key to a value, replacing the value the key had.
+     *
+     * @param key   The key.
+     * @param value The value, interned before it is stored.
+     * @return The previous value of the key, or `null` if it had none.
+     */
+    public String put(int key, String value) {
+        value = value.intern();
+        int index = size > 0 && keys[size - 1] < key ? -size - 1 : Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            String previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        index = -index - 1;
+        if (size == keys.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or `null` if the key has none.
+     */
+    public String get(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index < 0 ? null : values[index];
+    }
+
+    /**
+     * Checks whether a key has a value.
+     *
+     * @param key The key.
+     * @return `true` if the key has a value, `false` otherwise.
+     */
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, key) >= 0;
+    }
+
+    /**
+     * Removes a key and its value.
+     *
+     * @param key The key.
+     * @return The value of the key, or `null` if it had none.
+     */
+    public String remove(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            return null;
+        }
+        String previous = values[index];
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[--size] = null;
+        return previous;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the key at the given position.
+     *
+     * @param index The position, from 0 to `size() - 1`.
+     * @return The key, the keys being in ascending order.
+     */
+    public int keyAt(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return keys[index];
+    }
+
+    /**
+     * Gets the value at the given position.
+     *
+     * @param index The position, from 0 to `size() - 1`.
+     * @return The value of the key at the position.
+     */
+    public String valueAt(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Drops the unused slots of the arrays.
+     */
+    public void trimToSize() {
+        if (keys.length > size) {
+            keys = size == 0 ? NO_KEYS : Arrays.copyOf(keys, size);
+            values = size == 0 ? NO_VALUES : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Creates a copy of the map that does not change when the map does.
+     *
+     * @return The copy.
+     */
+    public SortedIntStringMap copy() {
+        if (size == 0) {
+            return new SortedIntStringMap();
+        }
+        return new SortedIntStringMap(Arrays.copyOf(keys, size), Arrays.copyOf(values, size), size);
+    }
+}
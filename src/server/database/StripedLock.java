@@ -0,0 +1,112 @@
+package server.database;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * The `StripedLock` class spreads the records of a database over a fixed number of `StampedLock` stripes, so writes to
+ * records on different stripes never contend. Reads are optimistic: they run without locking and are only repeated
+ * under a read lock if a write to the same stripe happened meanwhile. A consistent snapshot of the whole database is
+ * taken by locking every stripe, always in the same order.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class StripedLock {
+    /**
+     * The stripes.
+     */
+    private final StampedLock[] stripes;
+    /**
+     * The mask selecting a stripe from a spread key, the number of stripes is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Constructs a `StripedLock` with at least the given number of stripes.
+     *
+     * @param stripes The minimum number of stripes, rounded up to a power of two.
+     */
+    public StripedLock(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new StampedLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the stripe guarding the given key. Writers lock it with `writeLock()` and unlock it with `unlockWrite()`.
+     *
+     * @param key The key, such as the id of a record or the hash of its name.
+     * @return The stripe.
+     */
+    public StampedLock stripe(int key) {
+        // Spread the bits, so keys differing only in their high bits do not share a stripe
+        int h = key * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Reads a value guarded by the stripe of the given key. The reader first runs without locking; if a write to the
+     * stripe happened meanwhile, its result is discarded and it runs again under a read lock. An exception thrown by a
+     * reader that saw a concurrent write, such as a collection changing while it is copied, is discarded the same way.
+     * The reader must not have side effects, as it may run twice.
+     *
+     * @param key    The key.
+     * @param reader The reader.
+     * @param <T>    The type of the value read.
+     * @return The value read.
+     */
+    public <T> T read(int key, Supplier<T> reader) {
+        StampedLock lock = stripe(key);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Write-locks every stripe, in order, so no record changes until `unlockAll()`.
+     *
+     * @return The stamps of the stripes, to pass to `unlockAll()`.
+     */
+    public long[] lockAll() {
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].writeLock();
+        }
+        return stamps;
+    }
+
+    /**
+     * Unlocks every stripe locked by `lockAll()`.
+     *
+     * @param stamps The stamps returned by `lockAll()`.
+     */
+    public void unlockAll(long[] stamps) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlockWrite(stamps[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package server.database;
+
+/**
+ * The `UnseenIds` class tracks which ids of an `IdBitSet` a user has not seen yet, so an unseen id of a given rank is
+ * found without looking at the ids the user has seen. It keeps one bit per id of the set, set once the user has seen
+ * the id, and a rank directory of blocks of 64 words holding how many seen ids each block has; with the rank directory
+ * of the set itself, that gives the number of unseen ids of every block. Finding the unseen id of a rank walks the
+ * block counts and then the words of one block, O(n / 4096 + 64) for a set of `n` ids whatever the number of seen ids,
+ * and marking an id as seen takes constant time.
+ * <p>
+ * An `UnseenIds` belongs to one snapshot of the set; ids the set does not hold are ignored. It is not thread-safe.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class UnseenIds {
+    /**
+     * The number of words counted by one entry of the rank directory.
+     */
+    private static final int BLOCK_WORDS = 64;
+
+    /**
+     * The ids tracked.
+     */
+    private final IdBitSet all;
+    /**
+     * The seen ids, bit `id % 64` of word `id / 64` set if the id is seen.
+     */
+    private final long[] seen;
+    /**
+     * The rank directory, element `i` is the number of seen ids in the words of block `i`.
+     */
+    private final int[] seenInBlock;
+    /**
+     * The number of seen ids.
+     */
+    private int seenCount;
+
+    /**
+     * Constructs an `UnseenIds` with every id of the set unseen.
+     *
+     * @param all The ids tracked.
+     */
+    public UnseenIds(IdBitSet all) {
+        this.all = all;
+        this.seen = new long[all.wordCount()];
+        this.seenInBlock = new int[(all.wordCount() + BLOCK_WORDS - 1) / BLOCK_WORDS];
+    }
+
+    /**
+     * Gets the ids tracked.
+     *
+     * @return The set the ids are tracked for.
+     */
+    public IdBitSet getAll() {
+        return all;
+    }
+
+    /**
+     * Marks an id as seen. Ids the set does not hold and ids already seen are ignored.
+     *
+     * @param id The id.
+     */
+    public void see(int id) {
+        if (!all.get(id)) {
+            return;
+        }
+        long bit = 1L << id;
+        if ((seen[id >> 6] & bit) == 0) {
+            seen[id >> 6] |= bit;
+            seenInBlock[(id >> 6) / BLOCK_WORDS]++;
+            seenCount++;
+        }
+    }
+
+    /**
+     * Gets the number of unseen ids.
+     *
+     * @return The number of ids of the set not seen.
+     */
+    public int size() {
+        return all.size() - seenCount;
+    }
+
+    /**
+     * Finds the unseen id of a rank, the unseen ids being ordered.
+     *
+     * @param rank The rank, from 0 to `size() - 1`.
+     * @return The id, or -1 if there are not that many unseen ids.
+     */
+    public int select(int rank) {
+        if (rank < 0 || rank >= size()) {
+            return -1;
+        }
+        int words = all.wordCount();
+        int block = 0;
+        while (true) {
+            int end = Math.min((block + 1) * BLOCK_WORDS, words);
+            int unseen = all.rankOfWord(end) - all.rankOfWord(block * BLOCK_WORDS) - seenInBlock[block];
+            if (rank < unseen) {
+                break;
+            }
+            rank -= unseen;
+            block++;
+        }
+        int index = block * BLOCK_WORDS;
+        long word = all.word(index) & ~seen[index];
+        while (rank >= Long.bitCount(word)) {
+            rank -= Long.bitCount(word);
+            index++;
+            word = all.word(index) & ~seen[index];
+        }
+        // Drop the lowest unseen ids until the one with the rank is the lowest
+        for (; rank > 0; rank--) {
+            word &= word - 1;
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
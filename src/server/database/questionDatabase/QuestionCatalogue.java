@@ -0,0 +1,323 @@
+package server.database.questionDatabase;
+
+import server.database.IdBitSet;
+import server.database.SortedIntSet;
+import server.database.SortedIntStringMap;
+import server.database.UnseenIds;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The `QuestionCatalogue` class is an immutable snapshot of the question database. Questions are kept in an array in
+ * insertion order, for the list view and random picks, and in a dense array indexed by id, so both lookups take
+ * constant time. Adding a question creates a new catalogue, which the `QuestionDatabaseHandler` publishes in place of
+ * the old one, so readers never lock and never see a half-added question.
+ * <p>
+ * A catalogue may also hold a memory-mapped `QuestionPack`. The questions of the pack are decoded only when asked for;
+ * the questions in the arrays are the overlay read from the text file, i.e. the questions added after the pack was
+ * built. The pack comes first in every view and the overlay never holds an id of the pack.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public final class QuestionCatalogue {
+    /**
+     * An empty catalogue.
+     */
+    static final QuestionCatalogue EMPTY = new QuestionCatalogue(new Question[0]);
+    /**
+     * The number of random picks tried before a user is picked for from the tracker of the questions they have not seen.
+     */
+    private static final int SAMPLE_TRIES = 16;
+
+    /**
+     * The mapped question pack, `null` if there is none.
+     */
+    private final QuestionPack pack;
+    /**
+     * The questions of the overlay in insertion order.
+     */
+    private final Question[] questions;
+    /**
+     * The questions of the overlay by id, the index of a question in the array is its id.
+     */
+    private final Question[] questionsById;
+    /**
+     * The immutable list view of the questions of the overlay.
+     */
+    private final List<Question> view;
+    /**
+     * The ids of all questions, built when first needed.
+     */
+    private volatile IdBitSet ids;
+
+    /**
+     * Constructs a `QuestionCatalogue` holding the given questions. The array is owned by the catalogue afterwards.
+     *
+     * @param questions The questions in insertion order.
+     */
+    QuestionCatalogue(Question[] questions) {
+        this(null, questions);
+    }
+
+    /**
+     * Constructs a `QuestionCatalogue` holding a question pack and an overlay of questions. The array is owned by the
+     * catalogue afterwards.
+     *
+     * @param pack      The question pack, `null` if there is none.
+     * @param questions The questions of the overlay in insertion order, none of them with an id of the pack.
+     */
+    QuestionCatalogue(QuestionPack pack, Question[] questions) {
+        this.pack = pack;
+        this.questions = questions;
+        int maxId = -1;
+        for (Question question : questions) {
+            maxId = Math.max(maxId, question.getId());
+        }
+        this.questionsById = new Question[maxId + 1];
+        for (Question question : questions) {
+            // If two questions share an id the first one wins, as a scan of the list would find it first
+            if (question.getId() >= 0 && questionsById[question.getId()] == null) {
+                questionsById[question.getId()] = question;
+            }
+        }
+        this.view = Collections.unmodifiableList(Arrays.asList(questions));
+    }
+
+    /**
+     * Creates a new catalogue holding the questions of this one followed by the given question.
+     *
+     * @param question The question to add.
+     * @return The new catalogue.
+     */
+    QuestionCatalogue with(Question question) {
+        Question[] added = Arrays.copyOf(questions, questions.length + 1);
+        added[questions.length] = question;
+        QuestionCatalogue catalogue = new QuestionCatalogue(pack, added);
+        IdBitSet current = ids;
+        if (current != null && question.getId() >= 0) {
+            catalogue.ids = current.with(question.getId());
+        }
+        return catalogue;
+    }
+
+    /**
+     * Gets a question by its id.
+     *
+     * @param id The id of the question.
+     * @return The question, or `null` if there is no question with the id.
+     */
+    public Question getById(int id) {
+        if (id >= 0 && id < questionsById.length && questionsById[id] != null) {
+            return questionsById[id];
+        }
+        return pack == null ? null : pack.getById(id);
+    }
+
+    /**
+     * Checks whether the catalogue has a question with the given id, without decoding it.
+     *
+     * @param id The id of the question.
+     * @return `true` if there is a question with the id, `false` otherwise.
+     */
+    public boolean contains(int id) {
+        return (id >= 0 && id < questionsById.length && questionsById[id] != null) || (pack != null && pack.contains(id));
+    }
+
+    /**
+     * Gets a random question, every question being equally likely.
+     *
+     * @return A random question, or `null` if the catalogue is empty.
+     */
+    public Question getRandom() {
+        int size = size();
+        return size == 0 ? null : get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Tries to pick a random question id a user has neither answered nor has a pending answer to, every such question
+     * being equally likely. A few random picks are tried, each a binary search of the seen questions, which almost
+     * always succeed unless the user has seen most questions; for a user who has, `getUnseenIds` picks in time
+     * independent of the number of seen questions.
+     *
+     * @param answered The questions the user has answered.
+     * @param pending  The questions the user has a pending answer to.
+     * @return The id, or -1 if every pick was a seen question or the catalogue is empty.
+     */
+    public int sampleIdExcept(SortedIntSet answered, SortedIntStringMap pending) {
+        int size = size();
+        if (size == 0) {
+            return -1;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SAMPLE_TRIES; i++) {
+            int id = getIdAt(random.nextInt(size));
+            if (id >= 0 && !answered.contains(id) && !pending.containsKey(id)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the tracker of the questions of the catalogue a user has not seen, which picks an unseen question in time
+     * independent of the number of seen ones. Creating it costs O(s + n / 64) for a user who has seen `s` of `n`
+     * questions, so it is meant to be kept with the user and told about every question the user sees afterwards.
+     *
+     * @param answered The questions the user has answered.
+     * @param pending  The questions the user has a pending answer to.
+     * @return The tracker.
+     */
+    public UnseenIds getUnseenIds(SortedIntSet answered, SortedIntStringMap pending) {
+        UnseenIds unseen = new UnseenIds(getIds());
+        for (int i = 0; i < answered.size(); i++) {
+            unseen.see(answered.get(i));
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            unseen.see(pending.keyAt(i));
+        }
+        return unseen;
+    }
+
+    /**
+     * Checks whether a tracker of unseen questions was created from this catalogue or one with the same questions, so
+     * no question added since is missing from it.
+     *
+     * @param unseen The tracker.
+     * @return `true` if the tracker holds every question of the catalogue, `false` otherwise.
+     */
+    public boolean isCurrent(UnseenIds unseen) {
+        return unseen.getAll() == getIds();
+    }
+
+    /**
+     * Gets the highest id of a question in the catalogue.
+     *
+     * @return The highest id, or -1 if the catalogue is empty.
+     */
+    public int getMaxId() {
+        return Math.max(questionsById.length - 1, pack == null ? -1 : pack.getMaxId());
+    }
+
+    /**
+     * Gets the number of questions in the catalogue.
+     *
+     * @return The number of questions.
+     */
+    public int size() {
+        return packSize() + questions.length;
+    }
+
+    /**
+     * Gets the questions, those of the pack ordered by id followed by the overlay in insertion order. Questions of the
+     * pack are decoded as the list is read.
+     *
+     * @return An immutable list of the questions.
+     */
+    public List<Question> asList() {
+        return pack == null ? view : new CatalogueList();
+    }
+
+    /**
+     * Gets the mapped question pack.
+     *
+     * @return The question pack, `null` if there is none.
+     */
+    QuestionPack getPack() {
+        return pack;
+    }
+
+    /**
+     * Gets the questions of the overlay, i.e. those stored in the text file.
+     *
+     * @return An immutable list of the questions of the overlay in insertion order.
+     */
+    List<Question> getOverlay() {
+        return view;
+    }
+
+    /**
+     * Gets the question at the given position of the list view.
+     *
+     * @param index The position.
+     * @return The question.
+     */
+    private Question get(int index) {
+        int packSize = packSize();
+        return index < packSize ? pack.get(index) : questions[index - packSize];
+    }
+
+    /**
+     * Gets the id of the question at the given position of the list view, without decoding it.
+     *
+     * @param index The position.
+     * @return The id.
+     */
+    private int getIdAt(int index) {
+        int packSize = packSize();
+        return index < packSize ? pack.idAt(index) : questions[index - packSize].getId();
+    }
+
+    /**
+     * Gets the ids of all questions, building the set on first use.
+     *
+     * @return The ids.
+     */
+    private IdBitSet getIds() {
+        IdBitSet all = ids;
+        if (all == null) {
+            int[] allIds = new int[size()];
+            for (int i = 0; i < allIds.length; i++) {
+                allIds[i] = getIdAt(i);
+            }
+            all = IdBitSet.of(allIds);
+            // Building twice in a race is harmless, both sets are equal
+            ids = all;
+        }
+        return all;
+    }
+
+    /**
+     * Gets the number of questions in the pack.
+     *
+     * @return The number of questions in the pack, 0 if there is none.
+     */
+    private int packSize() {
+        return pack == null ? 0 : pack.size();
+    }
+
+    /**
+     * The list view of a catalogue with a pack, decoding the questions of the pack on access.
+     */
+    private final class CatalogueList extends AbstractList<Question> implements RandomAccess {
+        /**
+         * Gets the question at the given position.
+         *
+         * @param index The position.
+         * @return The question.
+         */
+        @Override
+        public Question get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            return QuestionCatalogue.this.get(index);
+        }
+
+        /**
+         * Gets the number of questions.
+         *
+         * @return The number of questions.
+         */
+        @Override
+        public int size() {
+            return QuestionCatalogue.this.size();
+        }
+    }
+}
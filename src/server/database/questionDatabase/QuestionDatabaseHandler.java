@@ -1,17 +1,27 @@
 package server.database.questionDatabase;
 
 import server.database.DatabaseHandler;
+import server.database.GroupCommitWriter;
+import server.database.ParallelFileLoader;
+import server.database.RecordFields;
 import server.database.userDatabase.User;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 
 import java.io.*;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
  * The `QuestionDatabaseHandler` class manages a collection of questions and provides methods for adding, retrieving,
  * and managing questions in a database. It also allows loading questions from a file and appending new questions to it.
+ * The questions are held in an immutable `QuestionCatalogue`; every change publishes a new catalogue, so reads never
+ * lock. The file is written by a `GroupCommitWriter`. If a question pack built by `QuestionPackConverter` exists, it is
+ * mapped into memory instead of being parsed, and the text file only holds the questions added after the pack was built.
  *
  * @uses DatabaseHandler
  * @author Tomasz Zbroszczyk
@@ -20,13 +30,25 @@ import java.util.stream.Collectors;
  */
 public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
     /**
-     * The collection of questions.
+     * The current snapshot of the questions, replaced as a whole whenever a question is added.
      */
-    private final LinkedList<Question> questions;
+    private volatile QuestionCatalogue catalogue;
     /**
      * The filename for question storage.
      */
     private final String filename;
+    /**
+     * The filename of the question pack, `null` if questions are only stored in the text file.
+     */
+    private final String packFilename;
+    /**
+     * The writer of the question storage file.
+     */
+    private final GroupCommitWriter writer;
+    /**
+     * Whether the questions were reordered in memory since they were loaded, so the file no longer holds their order.
+     */
+    private boolean reordered;
 
     /**
      * Constructs a `QuestionDatabaseHandler` with the specified filename for question storage.
@@ -34,8 +56,33 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      * @param filename The filename for question storage.
      */
     public QuestionDatabaseHandler(String filename) {
+        this(filename, 0, false);
+    }
+
+    /**
+     * Constructs a `QuestionDatabaseHandler` with the specified filename for question storage and commit settings.
+     *
+     * @param filename     The filename for question storage.
+     * @param commitWindow The time the writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites  Whether every commit is forced to the storage device.
+     */
+    public QuestionDatabaseHandler(String filename, int commitWindow, boolean forceWrites) {
+        this(filename, null, commitWindow, forceWrites);
+    }
+
+    /**
+     * Constructs a `QuestionDatabaseHandler` with the specified filenames for question storage and commit settings.
+     *
+     * @param filename     The filename for question storage.
+     * @param packFilename The filename of the question pack, used if the file exists; `null` for none.
+     * @param commitWindow The time the writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites  Whether every commit is forced to the storage device.
+     */
+    public QuestionDatabaseHandler(String filename, String packFilename, int commitWindow, boolean forceWrites) {
         this.filename = filename;
-        this.questions = new LinkedList<>();
+        this.packFilename = packFilename;
+        this.catalogue = QuestionCatalogue.EMPTY;
+        this.writer = new GroupCommitWriter(filename, commitWindow, forceWrites);
         loadFromFile();
     }
 
@@ -45,9 +92,16 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      * @param questionText
      * @param correct_answer
      * @param answers
-     * @return
+     * @return true if the question is successfully added, false if a field holds a separator of the question records or
+     * it could not be stored in the file
      */
     public boolean add(String type, String questionText, String correct_answer, String[] answers) {
+        for (String answer : answers) {
+            // Joined with ';' an answer holding one would be stored as several answers
+            if (!RecordFields.isValid(answer)) {
+                return false;
+            }
+        }
         return add(type + ":" + questionText + ":" + correct_answer + ":" + String.join(";", answers));
     }
 
@@ -55,20 +109,32 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      * Adds a new question to the database from the given string
      * @uses DatabaseHandler
      * @param str
-     * @return true if the question is successfully added, false if an error occurs
+     * @return true if the question is successfully added, false if the record is malformed or it could not be stored in
+     * the file
      */
     @Override
     public boolean add(String str) {
-        String[] parts = str.split(":");
+        String[] parts = str.split(":", -1);
+        if (parts.length != 4 || !RecordFields.isValid(parts[0]) || !RecordFields.isValid(parts[1]) || !RecordFields.isValid(parts[2])) {
+            return false;
+        }
         String[] ans = parts[3].split(";");
-        // Generate a unique ID for the new question
-        int id = questions.isEmpty() ? 1 : questions.getLast().getId() + 1;
+        for (String answer : ans) {
+            if (!RecordFields.isValid(answer)) {
+                return false;
+            }
+        }
         LinkedList<String> answerList = new LinkedList<>();
         Collections.addAll(answerList, ans);
-        Question question = new Question(id, parts[0], parts[1], parts[2], answerList);
-        questions.add(question);
-        appendToFile(question);
-        return true;
+        CompletableFuture<Boolean> written;
+        synchronized (this) {
+            // Generate a unique ID for the new question
+            int id = Math.max(catalogue.getMaxId(), 0) + 1;
+            Question question = new Question(id, parts[0], parts[1], parts[2], answerList);
+            catalogue = catalogue.with(question);
+            written = appendAsync(question);
+        }
+        return written.join();
     }
 
     /**
@@ -79,12 +145,26 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      */
     @Override
     public Question getById(int id) {
-        for (Question question : questions) {
-            if (question.getId() == id) {
-                return question;
-            }
-        }
-        return null; // Question with the specified ID not found
+        return catalogue.getById(id);
+    }
+
+    /**
+     * Retrieves a random question, every question being equally likely.
+     *
+     * @return A random question, or `null` if the database is empty.
+     */
+    public Question getRandom() {
+        return catalogue.getRandom();
+    }
+
+    /**
+     * Gets the current snapshot of the questions. The snapshot never changes, questions added later are only in newer
+     * snapshots.
+     *
+     * @return The question catalogue.
+     */
+    public QuestionCatalogue getCatalogue() {
+        return catalogue;
     }
 
     /**
@@ -92,8 +172,12 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      * @uses DatabaseHandler
      */
     @Override
-    public void sortById() {
-        Collections.sort(questions, (q1, q2) -> Integer.compare(q1.getId(), q2.getId()));
+    public synchronized void sortById() {
+        // The questions of the pack are already ordered by id and come first
+        Question[] sorted = catalogue.getOverlay().toArray(new Question[0]);
+        Arrays.sort(sorted, (q1, q2) -> Integer.compare(q1.getId(), q2.getId()));
+        catalogue = new QuestionCatalogue(catalogue.getPack(), sorted);
+        reordered = true;
     }
 
     /**
@@ -102,21 +186,31 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      * @return `true` if the questions are loaded successfully, `false` if an error occurs.
      */
     @Override
-    public boolean loadFromFile() {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(":");
-                int id = Integer.parseInt(parts[0].trim());
-                String type = parts[1].trim();
-                String questionText = parts[2].trim();
-                String correct_answer = parts[3].trim();
-                String[] answers = parts[4].split(";");
-                LinkedList<String> answerList = new LinkedList<>();
-                Collections.addAll(answerList, answers);
-                Question question = new Question(id, type, questionText, correct_answer, answerList);
-                questions.add(question);
+    public synchronized boolean loadFromFile() {
+        long start = System.nanoTime();
+        QuestionPack pack = catalogue.getPack();
+        if (pack == null && packFilename != null && new File(packFilename).exists()) {
+            try {
+                pack = QuestionPack.open(packFilename);
+                System.out.println("Mapped question pack " + packFilename + " with " + pack.size() + " questions.");
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }
+        List<Question> questions = new ArrayList<>(catalogue.getOverlay());
+        try {
+            QuestionPack mapped = pack;
+            List<Question> parsed = ParallelFileLoader.load(filename, line -> {
+                if (line.trim().isEmpty()) {
+                    return null;
+                }
+                Question question = parse(line);
+                // Questions converted into the pack may still be in the text file
+                return mapped == null || !mapped.contains(question.getId()) ? question : null;
+            });
+            questions.addAll(parsed);
+            catalogue = new QuestionCatalogue(pack, questions.toArray(new Question[0]));
+            ParallelFileLoader.report("questions", catalogue.size(), new File(filename).length(), start);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -124,6 +218,58 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
         return false;
     }
 
+    /**
+     * Parses a record of the question storage file in a single pass.
+     *
+     * @param line The record.
+     * @return The question.
+     */
+    static Question parse(String line) {
+        int idEnd = field(line, 0);
+        int typeEnd = field(line, idEnd + 1);
+        int questionEnd = field(line, typeEnd + 1);
+        int correctEnd = field(line, questionEnd + 1);
+        int answersEnd = line.indexOf(':', correctEnd + 1);
+        if (answersEnd < 0) {
+            answersEnd = line.length();
+        }
+        int id = Integer.parseInt(line.substring(0, idEnd).trim());
+        String type = line.substring(idEnd + 1, typeEnd).trim();
+        String questionText = line.substring(typeEnd + 1, questionEnd).trim();
+        String correct_answer = line.substring(questionEnd + 1, correctEnd).trim();
+        LinkedList<String> answerList = new LinkedList<>();
+        int from = correctEnd + 1;
+        while (from <= answersEnd) {
+            int to = line.indexOf(';', from);
+            if (to < 0 || to > answersEnd) {
+                to = answersEnd;
+            }
+            answerList.add(line.substring(from, to));
+            from = to + 1;
+        }
+        // Like String.split(), trailing empty answers are dropped
+        while (answerList.size() > 1 && answerList.getLast().isEmpty()) {
+            answerList.removeLast();
+        }
+        return new Question(id, type, questionText, correct_answer, answerList);
+    }
+
+    /**
+     * Finds the end of a field of a record of the question storage file.
+     *
+     * @param line The record.
+     * @param from The start of the field.
+     * @return The position of the colon ending the field.
+     * @throws IllegalArgumentException If the field is the last one of the record.
+     */
+    private static int field(String line, int from) {
+        int end = line.indexOf(':', from);
+        if (end < 0) {
+            throw new IllegalArgumentException("Question record has too few fields: " + line);
+        }
+        return end;
+    }
+
     /**
      * Appends a new question to the end of the question storage file.
      * @uses DatabaseHandler
@@ -132,14 +278,27 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      */
     @Override
     public boolean appendToFile(Question question) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filename, true))) {
-            bw.write(question.getId() + ":" + question.getType() + ":" + question.getQuestion() + ":" + question.getCorrectAnswer() + ":" + String.join(";", question.getAnswers()));
-            bw.newLine();
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return appendAsync(question).join();
+    }
+
+    /**
+     * Queues a new question to be appended to the end of the question storage file.
+     *
+     * @param question The question to append to the file.
+     * @return A future completed with `true` once the question is written, or `false` if an error occurs.
+     */
+    public CompletableFuture<Boolean> appendAsync(Question question) {
+        return writer.append(toRecord(question));
+    }
+
+    /**
+     * Formats a question as a record of the question storage file.
+     *
+     * @param question The question.
+     * @return The record.
+     */
+    private static String toRecord(Question question) {
+        return question.getId() + ":" + question.getType() + ":" + question.getQuestion() + ":" + question.getCorrectAnswer() + ":" + String.join(";", question.getAnswers());
     }
 
     /**
@@ -163,36 +322,44 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
 
     @Override
     public Question getByName(String... str) {
-        return questions.stream().filter(question -> question.getQuestion().equals(str[0])).collect(Collectors.toList()).get(0);
+        return catalogue.asList().stream().filter(question -> question.getQuestion().equals(str[0])).findFirst().orElse(null);
     }
 
     /**
      * Gets a list of all questions stored in the database.
      * @uses DatabaseHandler
-     * @return A linked list of all questions.
+     * @return An immutable list of all questions.
      */
-    public LinkedList<Question> getAll() {
-        return questions;
+    @Override
+    public List<Question> getAll() {
+        return catalogue.asList();
     }
 
     /**
-     * Saves the list of questions to the question storage file.
+     * Saves the list of questions to the question storage file. Questions are only ever appended and never change, so
+     * the file already holds every question once the queued appends are written, and it is only rewritten if the
+     * questions were reordered. With a question pack it is never rewritten, as the overlay in memory lacks the records
+     * converted into the pack that the file keeps.
      * @uses DatabaseHandler
      * @return `true` if the questions are saved successfully, `false` if an error occurs.
      */
     @Override
     public boolean update() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (Question question : questions) {
-                writer.write(question.getId() + ":" + question.getType() + ":" + question.getQuestion() + ":" + question.getCorrectAnswer() + ":" + String.join(";", question.getAnswers()));
-                writer.newLine();
+        CompletableFuture<Boolean> written;
+        synchronized (this) {
+            if (!reordered || catalogue.getPack() != null) {
+                written = writer.flush();
+            } else {
+                List<String> records = new ArrayList<>();
+                for (Question question : catalogue.getOverlay()) {
+                    records.add(toRecord(question));
+                }
+                // Queued under the lock, so questions added later are appended after the rewrite
+                written = writer.rewrite(records);
+                reordered = false;
             }
-            writer.flush();
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
         }
+        return written.join();
     }
 
     /**
@@ -202,7 +369,7 @@ public class QuestionDatabaseHandler implements DatabaseHandler<Question> {
      */
     @Override
     public String toString() {
-        return questions.stream().map(Question::toString).collect(Collectors.joining("\n"));
+        return catalogue.asList().stream().map(Question::toString).collect(Collectors.joining("\n"));
     }
 }
 
@@ -0,0 +1,215 @@
+package server.database.questionDatabase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+
+/**
+ * The `QuestionPack` class is a read-only question database in a compact binary file, mapped into memory with
+ * `FileChannel.map`. Opening a pack only checks its header, the questions stay in the file and a `Question` is decoded
+ * each time one is asked for, so neither startup time nor heap grow with the number of questions.
+ * <p>
+ * File format, all numbers big-endian:
+ * <pre>
+ * int32 magic | int32 version | int32 count
+ * count * (int32 id | int32 offset)       index sorted by id, offset of the record from the start of the file
+ * records: string type | string question | string correct answer | u16 count | strings answers
+ * </pre>
+ * where a string is its unsigned 16-bit UTF-8 length followed by the UTF-8 bytes, like in the binary protocol. Packs
+ * are written by `QuestionPackConverter`.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+final class QuestionPack {
+    /**
+     * The first four bytes of a pack, "QPAK".
+     */
+    static final int MAGIC = 0x5150414B;
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+    /**
+     * The length of the header.
+     */
+    static final int HEADER_LENGTH = 12;
+    /**
+     * The length of an index entry.
+     */
+    static final int INDEX_ENTRY_LENGTH = 8;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer file;
+    /**
+     * The number of questions in the pack.
+     */
+    private final int count;
+
+    /**
+     * Constructs a `QuestionPack` over a mapped file.
+     *
+     * @param file  The mapped file.
+     * @param count The number of questions in the pack.
+     */
+    private QuestionPack(ByteBuffer file, int count) {
+        this.file = file;
+        this.count = count;
+    }
+
+    /**
+     * Maps a pack into memory.
+     *
+     * @param filename The pack file.
+     * @return The pack.
+     * @throws IOException If the file cannot be mapped or is not a valid pack.
+     */
+    static QuestionPack open(String filename) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Question pack larger than 2 GB: " + filename);
+            }
+            // The mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.limit() < HEADER_LENGTH || file.getInt(0) != MAGIC) {
+            throw new IOException("Not a question pack: " + filename);
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported question pack version " + file.getInt(4) + ": " + filename);
+        }
+        int count = file.getInt(8);
+        if (count < 0 || HEADER_LENGTH + (long) count * INDEX_ENTRY_LENGTH > file.limit()) {
+            throw new IOException("Question pack index truncated: " + filename);
+        }
+        return new QuestionPack(file, count);
+    }
+
+    /**
+     * Gets the number of questions in the pack.
+     *
+     * @return The number of questions.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Gets the highest id of a question in the pack.
+     *
+     * @return The highest id, or -1 if the pack is empty.
+     */
+    int getMaxId() {
+        return count == 0 ? -1 : idAt(count - 1);
+    }
+
+    /**
+     * Decodes the question at the given position of the index.
+     *
+     * @param index The position in the index, from 0 to `size() - 1`; questions are ordered by id.
+     * @return The question.
+     */
+    Question get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+        }
+        return decode(idAt(index), file.getInt(HEADER_LENGTH + index * INDEX_ENTRY_LENGTH + 4));
+    }
+
+    /**
+     * Decodes a question by its id, found by a binary search of the index.
+     *
+     * @param id The id of the question.
+     * @return The question, or `null` if the pack has no question with the id.
+     */
+    Question getById(int id) {
+        int index = indexOf(id);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Checks whether the pack has a question with the given id.
+     *
+     * @param id The id of the question.
+     * @return `true` if the pack has the question, `false` otherwise.
+     */
+    boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Finds the position of an id in the index.
+     *
+     * @param id The id of the question.
+     * @return The position, or -1 if the pack has no question with the id.
+     */
+    private int indexOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = idAt(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the id at the given position of the index.
+     *
+     * @param index The position in the index.
+     * @return The id.
+     */
+    int idAt(int index) {
+        return file.getInt(HEADER_LENGTH + index * INDEX_ENTRY_LENGTH);
+    }
+
+    /**
+     * Decodes the record at the given offset.
+     *
+     * @param id     The id of the question.
+     * @param offset The offset of the record.
+     * @return The question.
+     */
+    private Question decode(int id, int offset) {
+        // A private view, so concurrent readers do not share a position
+        ByteBuffer record = file.duplicate();
+        record.position(offset);
+        String type = readString(record);
+        String question = readString(record);
+        String correctAnswer = readString(record);
+        int answerCount = record.getShort() & 0xFFFF;
+        LinkedList<String> answers = new LinkedList<>();
+        for (int i = 0; i < answerCount; i++) {
+            answers.add(readString(record));
+        }
+        return new Question(id, type, question, correctAnswer, answers);
+    }
+
+    /**
+     * Reads a string at the position of a buffer.
+     *
+     * @param buffer The buffer.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
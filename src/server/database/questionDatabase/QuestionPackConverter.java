@@ -0,0 +1,189 @@
+package server.database.questionDatabase;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The `QuestionPackConverter` class converts a question database in the text format into a `QuestionPack`. Lines are
+ * streamed, so only the index is held in memory while converting. If ids repeat, the first question with the id is
+ * kept, as the text database would find it first.
+ * <p>
+ * Usage: `java server.database.questionDatabase.QuestionPackConverter questions.txt questions.pack`
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class QuestionPackConverter {
+    /**
+     * Prevents instantiation.
+     */
+    private QuestionPackConverter() {}
+
+    /**
+     * Converts the text file given as the first argument into the pack given as the second one.
+     *
+     * @param args The text file and the pack file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: QuestionPackConverter <questions.txt> <questions.pack>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        try {
+            int count = convert(args[0], args[1]);
+            System.out.println("Converted " + count + " questions into " + args[1] + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts a question database in the text format into a question pack. The pack is written to a temporary file
+     * first and moved in place when complete, so a running server never maps a half-written pack.
+     *
+     * @param textFilename The question database in the text format.
+     * @param packFilename The question pack to write.
+     * @return The number of questions in the pack.
+     * @throws IOException If a file cannot be read or written, or a question does not fit the format.
+     */
+    public static int convert(String textFilename, String packFilename) throws IOException {
+        Path pack = Paths.get(packFilename);
+        Path records = Paths.get(packFilename + ".records.tmp");
+        Path temporary = Paths.get(packFilename + ".tmp");
+        try {
+            // Index entries as id << 32 | offset in the record section, so sorting orders them by id and then by offset
+            long[] index = writeRecords(textFilename, records);
+            int count = 0;
+            for (int i = 0; i < index.length; i++) {
+                if (count == 0 || id(index[i]) != id(index[count - 1])) {
+                    index[count++] = index[i];
+                }
+            }
+            long recordsStart = QuestionPack.HEADER_LENGTH + (long) count * QuestionPack.INDEX_ENTRY_LENGTH;
+            if (recordsStart + Files.size(records) > Integer.MAX_VALUE) {
+                throw new IOException("Question pack would be larger than 2 GB");
+            }
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 FileChannel in = FileChannel.open(records, StandardOpenOption.READ)) {
+                ByteBuffer head = ByteBuffer.allocate((int) recordsStart);
+                head.putInt(QuestionPack.MAGIC).putInt(QuestionPack.VERSION).putInt(count);
+                for (int i = 0; i < count; i++) {
+                    head.putInt(id(index[i])).putInt((int) (recordsStart + (int) index[i]));
+                }
+                head.flip();
+                while (head.hasRemaining()) {
+                    out.write(head);
+                }
+                long position = 0;
+                while (position < in.size()) {
+                    position += in.transferTo(position, in.size() - position, out);
+                }
+                out.force(false);
+            }
+            Files.move(temporary, pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(records);
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the records of all questions of a text file and builds the sorted index.
+     *
+     * @param textFilename The question database in the text format.
+     * @param records      The file to write the records to.
+     * @return The sorted index entries, one for every question.
+     * @throws IOException If a file cannot be read or written, or a question does not fit the format.
+     */
+    private static long[] writeRecords(String textFilename, Path records) throws IOException {
+        long[] index = new long[1024];
+        int count = 0;
+        long offset = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(textFilename), StandardCharsets.UTF_8));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records)))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Question pack would be larger than 2 GB");
+                }
+                Question question = QuestionDatabaseHandler.parse(line);
+                if (count == index.length) {
+                    index = Arrays.copyOf(index, count * 2);
+                }
+                index[count++] = ((long) question.getId() << 32) | offset;
+                int start = out.size();
+                try {
+                    writeString(out, question.getType());
+                    writeString(out, question.getQuestion());
+                    writeString(out, question.getCorrectAnswer());
+                    String[] answers = question.getAnswers();
+                    writeShort(out, answers.length);
+                    for (String answer : answers) {
+                        writeString(out, answer);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+                }
+                // DataOutputStream.size() wraps around after 2 GB, the difference of two sizes does not
+                offset += out.size() - start;
+            }
+        }
+        index = Arrays.copyOf(index, count);
+        Arrays.sort(index);
+        return index;
+    }
+
+    /**
+     * Gets the id of an index entry.
+     *
+     * @param entry The index entry.
+     * @return The id.
+     */
+    private static int id(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * Writes a string as its unsigned 16-bit UTF-8 length followed by the UTF-8 bytes.
+     *
+     * @param out   The stream.
+     * @param value The string.
+     * @throws IOException If the write fails.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeShort(out, utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Writes an unsigned 16-bit number.
+     *
+     * @param out   The stream.
+     * @param value The number.
+     * @throws IOException If the write fails.
+     */
+    private static void writeShort(DataOutputStream out, int value) throws IOException {
+        if (value > 0xFFFF) {
+            throw new IllegalArgumentException("Value does not fit in 16 bits: " + value);
+        }
+        out.writeShort(value);
+    }
+}
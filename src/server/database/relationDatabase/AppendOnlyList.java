@@ -0,0 +1,81 @@
+package server.database.relationDatabase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The `AppendOnlyList` class is a list that only ever grows, read without locking while it is appended to. Elements are
+ * kept in an array that doubles when full, so an append costs amortized constant time instead of the copy of the whole
+ * list a `CopyOnWriteArrayList` makes on every add. Appends are serialized on the list; the size is published after the
+ * element, so a reader sees every element below the size it read, and an element once stored never changes, so a
+ * reader holding the array of before a growth still reads the right elements.
+ *
+ * @param <E> The type of the elements.
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+    /**
+     * The capacity of the array when the first element is appended.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The elements, followed by unused slots.
+     */
+    private volatile Object[] elements;
+    /**
+     * The number of elements, written after the element it counts.
+     */
+    private volatile int size;
+
+    /**
+     * Constructs an empty `AppendOnlyList`.
+     */
+    AppendOnlyList() {
+        this.elements = new Object[0];
+    }
+
+    /**
+     * Appends an element to the end of the list.
+     *
+     * @param element The element.
+     */
+    synchronized void append(E element) {
+        Object[] current = elements;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, INITIAL_CAPACITY));
+            elements = current;
+        }
+        current[size] = element;
+        size = size + 1;
+    }
+
+    /**
+     * Gets the element at a position.
+     *
+     * @param index The position.
+     * @return The element.
+     * @throws IndexOutOfBoundsException If there is no element at the position.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return (E) elements[index];
+    }
+
+    /**
+     * Gets the number of elements.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -1,17 +1,29 @@
 package server.database.relationDatabase;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import server.database.SortedIntSet;
+import server.database.SortedIntStringMap;
+import server.database.UnseenIds;
 
 /**
  * The `Relation` class represents a relation entity with its associated properties
  * It is used to store relation between two users (questions answered by both users, questions answered correctly by both users, questions answered by one user and not answered by second user)
+ * Question ids are kept in sorted primitive arrays and answers in maps with sorted int keys and interned values, as
+ * millions of relations with hundreds of questions each would otherwise fill the heap with boxed nodes.
+ * The record of a relation is encoded once and cached until the relation changes, so rewriting the database or sending
+ * relations only encodes those that changed; a relation must therefore only be changed through its own methods.
  *
  * @author Tomasz Zbroszczyk on 16.10.2023
  * @version 1.0
  */
 public class Relation {
+    /**
+     * The builders the records are encoded with, one per thread, so encoding does not allocate a builder per relation.
+     */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    /**
+     * The capacity above which a pooled builder is dropped after use instead of being kept for the next record.
+     */
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
 
     /**
      * The unique identifier for the relation.
@@ -34,21 +46,33 @@ public class Relation {
      */
     private int correctQuestionsAnswered;
     /**
-     * The list of questions answered by the first user.
+     * The set of questions answered by the first user.
+     */
+    private SortedIntSet questionsAnsweredByUser1;
+    /**
+     * The set of questions answered by the second user.
+     */
+    private SortedIntSet questionsAnsweredByUser2;
+    /**
+     * The answers to questions answered by the first user and not answered by second user.
      */
-    private LinkedList<Integer> questionsAnsweredByUser1;
+    private SortedIntStringMap questionsUnansweredByUser2;
     /**
-     * The list of questions answered by the second user.
+     * The answers to questions answered by the second user and not answered by first user.
      */
-    private LinkedList<Integer> questionsAnsweredByUser2;
+    private SortedIntStringMap questionsUnansweredByUser1;
     /**
-     * The list of questions answered by the first user and not answered by second user.
+     * The cached record of the relation in the database format, `null` if the relation changed since it was encoded.
      */
-    private Map<Integer, String> questionsUnansweredByUser2;
+    private volatile String encoded;
     /**
-     * The list of questions answered by the second user and not answered by first user.
+     * The questions the first user has not seen, created once random picks keep hitting seen questions, `null` before.
      */
-    private Map<Integer, String> questionsUnansweredByUser1;
+    private volatile UnseenIds unseenByUser1;
+    /**
+     * The questions the second user has not seen, created once random picks keep hitting seen questions, `null` before.
+     */
+    private volatile UnseenIds unseenByUser2;
 
     /**
      * Default constructor of the Relation class.
@@ -64,10 +88,10 @@ public class Relation {
      * @param correctQuestionsAnswered
      * @param questionsAnsweredByUser1
      * @param questionsAnsweredByUser2
-     * @param questionsUnansweredByUser2
      * @param questionsUnansweredByUser1
+     * @param questionsUnansweredByUser2
      */
-    public Relation(int id, int user1Id, int user2Id, int totalQuestionsAnswered, int correctQuestionsAnswered, LinkedList<Integer> questionsAnsweredByUser1, LinkedList<Integer> questionsAnsweredByUser2, Map<Integer, String> questionsUnansweredByUser2, Map<Integer, String> questionsUnansweredByUser1) {
+    public Relation(int id, int user1Id, int user2Id, int totalQuestionsAnswered, int correctQuestionsAnswered, SortedIntSet questionsAnsweredByUser1, SortedIntSet questionsAnsweredByUser2, SortedIntStringMap questionsUnansweredByUser1, SortedIntStringMap questionsUnansweredByUser2) {
         this.id = id;
         this.user1Id = user1Id;
         this.user2Id = user2Id;
@@ -80,20 +104,119 @@ public class Relation {
     }
 
     /**
-     * Constructor of the Relation class from a string (database format).
+     * Constructor of the Relation class from a string (database format). The string is parsed in a single pass,
+     * straight into the fields.
      * @param str
      */
     public Relation(String str) {
-        Relation relation = fromString(str);
-        this.id = relation.getId();
-        this.user1Id = relation.getUser1Id();
-        this.user2Id = relation.getUser2Id();
-        this.totalQuestionsAnswered = relation.getTotalQuestionsAnswered();
-        this.correctQuestionsAnswered = relation.getCorrectQuestionsAnswered();
-        this.questionsAnsweredByUser1 = relation.getQuestionsAnsweredByUser1();
-        this.questionsAnsweredByUser2 = relation.getQuestionsAnsweredByUser2();
-        this.questionsUnansweredByUser2 = relation.getQuestionsUnansweredByUser2();
-        this.questionsUnansweredByUser1 = relation.getQuestionsUnansweredByUser1();
+        int[] bounds = new int[10];
+        bounds[0] = -1;
+        for (int i = 1; i < bounds.length - 1; i++) {
+            bounds[i] = str.indexOf(':', bounds[i - 1] + 1);
+            if (bounds[i] < 0) {
+                throw new IllegalArgumentException("Relation record has too few fields: " + str);
+            }
+        }
+        int end = str.indexOf(':', bounds[8] + 1);
+        bounds[9] = end < 0 ? str.length() : end;
+        this.id = parseInt(str, bounds[0] + 1, bounds[1]);
+        this.user1Id = parseInt(str, bounds[1] + 1, bounds[2]);
+        this.user2Id = parseInt(str, bounds[2] + 1, bounds[3]);
+        this.totalQuestionsAnswered = parseInt(str, bounds[3] + 1, bounds[4]);
+        this.correctQuestionsAnswered = parseInt(str, bounds[4] + 1, bounds[5]);
+        this.questionsAnsweredByUser1 = parseIds(str, bounds[5] + 1, bounds[6]);
+        this.questionsAnsweredByUser2 = parseIds(str, bounds[6] + 1, bounds[7]);
+        this.questionsUnansweredByUser1 = parseAnswers(str, bounds[7] + 1, bounds[8]);
+        this.questionsUnansweredByUser2 = parseAnswers(str, bounds[8] + 1, bounds[9]);
+    }
+
+    /**
+     * Parses a decimal number in a part of a string, ignoring surrounding whitespace.
+     *
+     * @param str  The string.
+     * @param from The start of the number.
+     * @param to   The end of the number.
+     * @return The number.
+     */
+    private static int parseInt(String str, int from, int to) {
+        while (from < to && Character.isWhitespace(str.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(str.charAt(to - 1))) {
+            to--;
+        }
+        boolean negative = from < to && str.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 10) {
+            throw new NumberFormatException("For input string: \"" + str.substring(from, to) + "\"");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + str.substring(from, to) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + str.substring(from, to) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a list of question ids separated by semicolons in a part of a string. Empty entries are skipped.
+     *
+     * @param str  The string.
+     * @param from The start of the list.
+     * @param to   The end of the list.
+     * @return The question ids.
+     */
+    private static SortedIntSet parseIds(String str, int from, int to) {
+        SortedIntSet ids = new SortedIntSet();
+        while (from < to) {
+            int end = str.indexOf(';', from);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            if (!str.substring(from, end).trim().isEmpty()) {
+                ids.add(parseInt(str, from, end));
+            }
+            from = end + 1;
+        }
+        ids.trimToSize();
+        return ids;
+    }
+
+    /**
+     * Parses a list of `questionId-answer` entries separated by semicolons in a part of a string. Empty entries are
+     * skipped.
+     *
+     * @param str  The string.
+     * @param from The start of the list.
+     * @param to   The end of the list.
+     * @return The answers by question id.
+     */
+    private static SortedIntStringMap parseAnswers(String str, int from, int to) {
+        SortedIntStringMap answers = new SortedIntStringMap();
+        while (from < to) {
+            int end = str.indexOf(';', from);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            if (!str.substring(from, end).trim().isEmpty()) {
+                int dash = str.indexOf('-', from);
+                if (dash < 0 || dash >= end) {
+                    throw new IllegalArgumentException("Answer entry without an answer: " + str.substring(from, end));
+                }
+                int answerEnd = str.indexOf('-', dash + 1);
+                answers.put(parseInt(str, from, dash), str.substring(dash + 1, answerEnd < 0 || answerEnd > end ? end : answerEnd));
+            }
+            from = end + 1;
+        }
+        answers.trimToSize();
+        return answers;
     }
 
     /**
@@ -142,38 +265,58 @@ public class Relation {
     }
 
     /**
-     * Gets the list of questions answered by the first user.
+     * Sets the total number of questions answered by both users.
      *
-     * @return The list of questions answered by the first user.
+     * @param totalQuestionsAnswered The total number of questions answered by both users.
      */
-    public LinkedList<Integer> getQuestionsAnsweredByUser1() {
+    public void setTotalQuestionsAnswered(int totalQuestionsAnswered) {
+        this.totalQuestionsAnswered = totalQuestionsAnswered;
+        this.encoded = null;
+    }
+
+    /**
+     * Sets the total number of questions answered correctly by both users.
+     *
+     * @param correctQuestionsAnswered The total number of questions answered correctly by both users.
+     */
+    public void setCorrectQuestionsAnswered(int correctQuestionsAnswered) {
+        this.correctQuestionsAnswered = correctQuestionsAnswered;
+        this.encoded = null;
+    }
+
+    /**
+     * Gets the set of questions answered by the first user.
+     *
+     * @return The set of questions answered by the first user.
+     */
+    public SortedIntSet getQuestionsAnsweredByUser1() {
         return questionsAnsweredByUser1;
     }
 
     /**
-     * Gets the list of questions answered by the second user.
+     * Gets the set of questions answered by the second user.
      *
-     * @return The list of questions answered by the second user.
+     * @return The set of questions answered by the second user.
      */
-    public LinkedList<Integer> getQuestionsAnsweredByUser2() {
+    public SortedIntSet getQuestionsAnsweredByUser2() {
         return questionsAnsweredByUser2;
     }
 
     /**
-     * Gets the list of questions answered by the first user and not answered by second user.
+     * Gets the answers to questions answered by the first user and not answered by second user.
      *
-     * @return The list of questions answered by the first user and not answered by second user.
+     * @return The answers by question id.
      */
-    public Map<Integer, String> getQuestionsUnansweredByUser2() {
+    public SortedIntStringMap getQuestionsUnansweredByUser2() {
         return questionsUnansweredByUser2;
     }
 
     /**
-     * Gets the list of questions answered by the second user and not answered by first user.
+     * Gets the answers to questions answered by the second user and not answered by first user.
      *
-     * @return The list of questions answered by the second user and not answered by first user.
+     * @return The answers by question id.
      */
-    public Map<Integer, String> getQuestionsUnansweredByUser1() {
+    public SortedIntStringMap getQuestionsUnansweredByUser1() {
         return questionsUnansweredByUser1;
     }
 
@@ -184,6 +327,8 @@ public class Relation {
      */
     public void addQuestionAnsweredByUser1(int questionId, String answer) {
         this.questionsUnansweredByUser1.put(questionId, answer);
+        see(unseenByUser1, questionId);
+        this.encoded = null;
     }
 
     /**
@@ -193,48 +338,179 @@ public class Relation {
      */
     public void addQuestionAnsweredByUser2(int questionId, String answer) {
         this.questionsUnansweredByUser2.put(questionId, answer);
+        see(unseenByUser2, questionId);
+        this.encoded = null;
+    }
+
+    /**
+     * Scores a question both users have answered: the question is moved to the questions answered by both users and
+     * the counters are incremented together.
+     * @param questionId Id of the question
+     * @param matched Whether the answers of the users matched, counted as a correct answer
+     */
+    public void scoreQuestion(int questionId, boolean matched) {
+        setQuestionAnswered(questionId);
+        this.totalQuestionsAnswered++;
+        if (matched) {
+            this.correctQuestionsAnswered++;
+        }
     }
 
     /**
-     * toString method of the Relation class.
+     * Moves a question to the questions answered by both users, dropping their pending answers. Moving a question that
+     * is already answered by both changes nothing.
+     * @param questionId Id of the question
+     */
+    public void setQuestionAnswered(int questionId) {
+        this.questionsUnansweredByUser1.remove(questionId);
+        this.questionsUnansweredByUser2.remove(questionId);
+        this.questionsAnsweredByUser1.add(questionId);
+        this.questionsAnsweredByUser2.add(questionId);
+        see(unseenByUser1, questionId);
+        see(unseenByUser2, questionId);
+        this.encoded = null;
+    }
+
+    /**
+     * Tells the tracker of the unseen questions of a user that the user has seen a question.
+     * @param unseen The tracker, or `null` if the user has none
+     * @param questionId Id of the question
+     */
+    private static void see(UnseenIds unseen, int questionId) {
+        if (unseen != null) {
+            unseen.see(questionId);
+        }
+    }
+
+    /**
+     * Gets the tracker of the questions a user of the relation has not seen.
+     * @param userId Id of the user
+     * @return The tracker, or `null` if the user has none yet or is not in the relation
+     */
+    public UnseenIds getUnseenIds(int userId) {
+        if (userId == user1Id) {
+            return unseenByUser1;
+        }
+        return userId == user2Id ? unseenByUser2 : null;
+    }
+
+    /**
+     * Sets the tracker of the questions a user of the relation has not seen, which the relation keeps up to date as the
+     * user answers. It is not part of the record and not copied.
+     * @param userId Id of the user
+     * @param unseen The tracker, created from the questions the user has seen
+     */
+    public void setUnseenIds(int userId, UnseenIds unseen) {
+        if (userId == user1Id) {
+            unseenByUser1 = unseen;
+        } else if (userId == user2Id) {
+            unseenByUser2 = unseen;
+        }
+    }
+
+    /**
+     * Gets the questions a user of the relation has answered.
+     * @param userId Id of the user
+     * @return The set of answered questions, or `null` if the user is not in the relation
+     */
+    public SortedIntSet getQuestionsAnsweredBy(int userId) {
+        if (userId == user1Id) {
+            return questionsAnsweredByUser1;
+        }
+        return userId == user2Id ? questionsAnsweredByUser2 : null;
+    }
+
+    /**
+     * Gets the questions a user of the relation has a pending answer to.
+     * @param userId Id of the user
+     * @return The map of pending answers by question id, or `null` if the user is not in the relation
+     */
+    public SortedIntStringMap getQuestionsUnansweredBy(int userId) {
+        if (userId == user1Id) {
+            return questionsUnansweredByUser1;
+        }
+        return userId == user2Id ? questionsUnansweredByUser2 : null;
+    }
+
+    /**
+     * Creates a copy of the relation that does not change when the relation does.
+     * @return Copy of the relation
+     */
+    public Relation copy() {
+        Relation copy = new Relation(id, user1Id, user2Id, totalQuestionsAnswered, correctQuestionsAnswered,
+                questionsAnsweredByUser1.copy(), questionsAnsweredByUser2.copy(),
+                questionsUnansweredByUser1.copy(), questionsUnansweredByUser2.copy());
+        copy.encoded = encoded;
+        return copy;
+    }
+
+    /**
+     * toString method of the Relation class. The record is encoded on first use and cached until the relation changes.
      *
      * @return String representation of the Relation object.
      */
     @Override
     public String toString() {
-        String questionsAnsweredByUser1Str = "";
-        questionsAnsweredByUser1Str = this.questionsAnsweredByUser1.stream().map(Object::toString).reduce(questionsAnsweredByUser1Str, (s, s2) -> s + ";" + s2);
-        if (questionsAnsweredByUser1Str.length() == 0) {
-            questionsAnsweredByUser1Str = ";";
+        String record = encoded;
+        if (record == null) {
+            record = encode();
+            encoded = record;
         }
-        String questionsAnsweredByUser2Str = "";
-        questionsAnsweredByUser2Str = this.questionsAnsweredByUser2.stream().map(Object::toString).reduce(questionsAnsweredByUser2Str, (s, s2) -> s + ";" + s2);
-        if (questionsAnsweredByUser2Str.length() == 0) {
-            questionsAnsweredByUser2Str = ";";
+        return record;
+    }
+
+    /**
+     * Encodes the relation in the database format with the builder of the current thread.
+     *
+     * @return The record.
+     */
+    private String encode() {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.append(id).append(':').append(user1Id).append(':').append(user2Id)
+                .append(':').append(totalQuestionsAnswered).append(':').append(correctQuestionsAnswered).append(':');
+        appendIds(builder, questionsAnsweredByUser1);
+        builder.append(':');
+        appendIds(builder, questionsAnsweredByUser2);
+        builder.append(':');
+        appendAnswers(builder, questionsUnansweredByUser1);
+        builder.append(':');
+        appendAnswers(builder, questionsUnansweredByUser2);
+        String record = builder.toString();
+        if (builder.capacity() > MAX_POOLED_CAPACITY) {
+            BUILDER.remove();
         }
-        String questionsUnansweredByUser1Str = "";
-        for (Map.Entry<Integer, String> entry : questionsUnansweredByUser1.entrySet()) {
-            questionsUnansweredByUser1Str += entry.getKey() + "-" + entry.getValue() + ";";
+        return record;
+    }
+
+    /**
+     * Appends a set of question ids in the database format, `;q1;q2`, or `;` if it is empty.
+     *
+     * @param builder The builder.
+     * @param ids     The question ids.
+     */
+    private static void appendIds(StringBuilder builder, SortedIntSet ids) {
+        if (ids.size() == 0) {
+            builder.append(';');
         }
-        if (questionsUnansweredByUser1Str.length() == 0) {
-            questionsUnansweredByUser1Str = ";";
+        for (int i = 0; i < ids.size(); i++) {
+            builder.append(';').append(ids.get(i));
         }
-        String questionsUnansweredByUser2Str = "";
-        for (Map.Entry<Integer, String> entry : questionsUnansweredByUser2.entrySet()) {
-            questionsUnansweredByUser2Str += entry.getKey() + "-" + entry.getValue() + ";";
+    }
+
+    /**
+     * Appends answers in the database format, `q1-a1;q2-a2;`, or `;` if there are none.
+     *
+     * @param builder The builder.
+     * @param answers The answers by question id.
+     */
+    private static void appendAnswers(StringBuilder builder, SortedIntStringMap answers) {
+        if (answers.size() == 0) {
+            builder.append(';');
         }
-        if (questionsUnansweredByUser2Str.length() == 0) {
-            questionsUnansweredByUser2Str = ";";
+        for (int i = 0; i < answers.size(); i++) {
+            builder.append(answers.keyAt(i)).append('-').append(answers.valueAt(i)).append(';');
         }
-        return id +
-                ":" + user1Id +
-                ":" + user2Id +
-                ":" + totalQuestionsAnswered +
-                ":" + correctQuestionsAnswered +
-                ":" + questionsAnsweredByUser1Str +
-                ":" + questionsAnsweredByUser2Str +
-                ":" + questionsUnansweredByUser1Str +
-                ":" + questionsUnansweredByUser2Str;
     }
 
     /**
@@ -243,47 +519,7 @@ public class Relation {
      * @return Relation object
      */
     public Relation fromString(String str) {
-        String[] parts = str.split(":");
-        int id = Integer.parseInt(parts[0].trim());
-        int user1Id = Integer.parseInt(parts[1].trim());
-        int user2Id = Integer.parseInt(parts[2].trim());
-        int totalQuestionsAnswered = Integer.parseInt(parts[3].trim());
-        int correctQuestionsAnswered = Integer.parseInt(parts[4].trim());
-        LinkedList<Integer> questionsAnsweredByUser1 = new LinkedList<>();
-        String[] questionsAnsweredByUser1String = parts[5].trim().split(";");
-        for (String questionId : questionsAnsweredByUser1String) {
-            if (questionId.equals("")) {
-                continue;
-            }
-            questionsAnsweredByUser1.add(Integer.parseInt(questionId));
-        }
-        LinkedList<Integer> questionsAnsweredByUser2 = new LinkedList<>();
-        String[] questionsAnsweredByUser2String = parts[6].trim().split(";");
-        for (String questionId : questionsAnsweredByUser2String) {
-            if (questionId.equals("")) {
-                continue;
-            }
-            questionsAnsweredByUser2.add(Integer.parseInt(questionId));
-        }
-        Map<Integer, String> questionsUnansweredByUser1 = new HashMap<>();
-        String[] questionsUnansweredByUser1String = parts[7].trim().split(";");
-        for (String questionId : questionsUnansweredByUser1String) {
-            if (questionId.equals("")) {
-                continue;
-            }
-            String[] questionParts = questionId.split("-");
-            questionsUnansweredByUser1.put(Integer.parseInt(questionParts[0]), questionParts[1]);
-        }
-        Map<Integer, String> questionsUnansweredByUser2 = new HashMap<>();
-        String[] questionsUnansweredByUser2String = parts[8].trim().split(";");
-        for (String questionId : questionsUnansweredByUser2String) {
-            if (questionId.equals("")) {
-                continue;
-            }
-            String[] questionParts = questionId.split("-");
-            questionsUnansweredByUser2.put(Integer.parseInt(questionParts[0]), questionParts[1]);
-        }
-        return new Relation(id, user1Id, user2Id, totalQuestionsAnswered, correctQuestionsAnswered, questionsAnsweredByUser1, questionsAnsweredByUser2, questionsUnansweredByUser1, questionsUnansweredByUser2);
+        return new Relation(str);
     }
 
 
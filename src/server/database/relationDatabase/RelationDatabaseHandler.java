@@ -1,36 +1,108 @@
 package server.database.relationDatabase;
 
+import server.database.Compactable;
 import server.database.DatabaseHandler;
+import server.database.ParallelFileLoader;
+import server.database.RecordFields;
+import server.database.SortedIntSet;
+import server.database.SortedIntStringMap;
+import server.database.StripedLock;
+import server.database.UnseenIds;
 import server.database.questionDatabase.Question;
+import server.database.questionDatabase.QuestionCatalogue;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * The `RelationDatabaseHandler` class manages a collection of relations and provides methods for adding, retrieving,
  * and managing relations in a database. It also allows loading relations from a file and appending new relations to it.
+ * Relations are looked up through a `RelationIndex` by id, by the unordered pair of their users and by user.
+ * Changes are appended to a `RelationJournal` next to the relation file instead of rewriting the whole file; the
+ * journal is replayed when the database is loaded and rotated when a snapshot is written by `update()`, which writes
+ * the file outside the locks of the relations so changes go on meanwhile. Changes lock the stripe of their relation in
+ * a `StripedLock`, readers get copies taken with optimistic reads, and callers wait for their journal record outside
+ * the lock, so concurrent changes share one write of the journal.
  *
  * @uses DatabaseHandler
+ * @uses Compactable
  * @author Tomasz Zbroszczyk on 16.10.2023
  * @version 1.0
  */
-public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
+public class RelationDatabaseHandler implements DatabaseHandler<Relation>, Compactable {
+    /**
+     * The number of stripes of the lock guarding the relations.
+     */
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * Result of `answerQuestion`: the relation does not exist or the user does not belong to it.
+     */
+    public static final int ANSWER_INVALID = 0;
+    /**
+     * Result of `answerQuestion`: the user has already answered the question.
+     */
+    public static final int ANSWER_REPEATED = 1;
+    /**
+     * Result of `answerQuestion`: the answer is stored until the other user answers.
+     */
+    public static final int ANSWER_PENDING = 2;
+    /**
+     * Result of `answerQuestion`: the question is scored, the answers of the users match.
+     */
+    public static final int ANSWER_MATCHED = 3;
+    /**
+     * Result of `answerQuestion`: the question is scored, the answers of the users differ.
+     */
+    public static final int ANSWER_MISMATCHED = 4;
+    /**
+     * Result of `getRandomUnseenQuestionId`: the user has seen every question.
+     */
+    public static final int NO_QUESTIONS_LEFT = -1;
+    /**
+     * Result of `getRandomUnseenQuestionId`: the relation does not exist or the user does not belong to it.
+     */
+    public static final int NOT_IN_RELATION = -2;
 
     /**
-     * The collection of relations.
+     * The indexes of the relations.
      */
-    private LinkedList<Relation> relations;
+    private volatile RelationIndex relations;
     /**
-     * The maximum ID of a relation in the database.
+     * The maximum ID of a relation in the database, incremented atomically for every new relation.
      */
-    private int maxId;
+    private final AtomicInteger maxId;
+    /**
+     * The locks guarding the relations, striped by relation id. Changes write-lock the stripe of their relation, reads
+     * copy a relation optimistically and a snapshot locks every stripe.
+     */
+    private final StripedLock locks;
     /**
      * The filename for relation storage.
      */
     private String filename;
+    /**
+     * The journal of changes made since the relation file was last rewritten.
+     */
+    private final RelationJournal journal;
+    /**
+     * The lock serializing snapshots of the relations, held while a snapshot is written without blocking changes.
+     */
+    private final Object snapshotLock = new Object();
 
     /**
      * Constructs a `RelationDatabaseHandler` with the specified filename for relation storage.
@@ -38,9 +110,22 @@ public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
      * @param filename The filename for relation storage.
      */
     public RelationDatabaseHandler(String filename) {
+        this(filename, 0, false);
+    }
+
+    /**
+     * Constructs a `RelationDatabaseHandler` with the specified filename for relation storage and commit settings.
+     *
+     * @param filename     The filename for relation storage.
+     * @param commitWindow The time the journal writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites  Whether every commit of the journal is forced to the storage device.
+     */
+    public RelationDatabaseHandler(String filename, int commitWindow, boolean forceWrites) {
         this.filename = filename;
-        this.relations = new LinkedList<>();
-        this.maxId = relations.isEmpty() ? 0 : relations.getLast().getId();
+        this.relations = new RelationIndex();
+        this.maxId = new AtomicInteger();
+        this.locks = new StripedLock(LOCK_STRIPES);
+        this.journal = new RelationJournal(filename + ".journal", commitWindow, forceWrites);
         loadFromFile();
     }
 
@@ -59,12 +144,19 @@ public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
      * @return true if the database is successfully loaded, false if an error occurs
      */
     @Override
-    public boolean loadFromFile() {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                relations.add(new Relation(line));
+    public synchronized boolean loadFromFile() {
+        long start = System.nanoTime();
+        try {
+            // Records are parsed in parallel, the index is built in file order
+            for (Relation relation : ParallelFileLoader.load(filename, Relation::new)) {
+                relations.add(relation);
+                maxId.accumulateAndGet(relation.getId(), Math::max);
             }
+            int replayed = journal.replay(this::apply);
+            if (replayed > 0) {
+                System.out.println("Replayed " + replayed + " relation journal records.");
+            }
+            ParallelFileLoader.report("relations", relations.size(), new File(filename).length() + journal.size(), start);
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -118,59 +210,344 @@ public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
     @Deprecated
     @Override
     public boolean add(String str) {
-        String s2 = ++maxId + str;
-        relations.add(new Relation(s2));
-        appendToFile(relations.getLast());
+        CompletableFuture<Boolean> written;
+        int id = maxId.incrementAndGet();
+        StampedLock lock = locks.stripe(id);
+        long stamp = lock.writeLock();
+        try {
+            String s2 = id + str;
+            Relation relation = new Relation(s2);
+            relations.add(relation);
+            written = journal.append(RelationJournal.created(relation));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(written);
         return true;
     }
 
     /**
-     * Adds a new relation to the database for the given users.
+     * Adds a new relation to the database for the given users. Both orders of the users lock the same stripe, chosen
+     * by their pair, and the pair is checked and an id allocated under it, so concurrent calls never create two
+     * relations between the same users and an id is only taken once the users are known to have no relation. The
+     * created record is queued before the relation can be found by id, so no change to it reaches the journal first.
      * @uses DatabaseHandler
      * @param id1 Id of the first user
      * @param id2 Id of the second user
-     * @return true if the record is successfully added, false if an error occurs
+     * @return true if the record is successfully added, false if the users already have a relation
      */
     public boolean add(int id1, int id2) {
-        if (checkIfExists(id1, id2)) {
+        CompletableFuture<Boolean> written;
+        StampedLock lock = locks.stripe(Long.hashCode(RelationIndex.pairKey(id1, id2)));
+        long stamp = lock.writeLock();
+        try {
+            if (checkIfExists(id1, id2)) {
+                return false;
+            }
+            int id = maxId.incrementAndGet();
+            Relation relation = new Relation(id + ":" + id1 + ":" + id2 + ":0:0:;:;:;:;");
+            written = journal.append(RelationJournal.created(relation));
+            relations.add(relation);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(written);
+        return true;
+    }
+
+    /**
+     * Stores the answer of a user of a relation to a question the same way `answerQuestion` does, so the question is
+     * scored once both users have answered, whichever command each of them used.
+     * @param relationId Id of the relation the user belongs to
+     * @param userId Id of the user who answered
+     * @param questionId Id of the question
+     * @param answer Users answer to the question
+     * @return true if the answer is stored or scored, false if the relation does not exist, the user does not belong to
+     * it, has already answered the question or the answer holds a separator of the relation records
+     */
+    public boolean addQuestionAnswer(int relationId, int userId, int questionId, String answer) {
+        int result = answerQuestion(relationId, userId, questionId, answer);
+        return result != ANSWER_INVALID && result != ANSWER_REPEATED;
+    }
+
+    /**
+     * Answers a question of a relation and scores it once both users have answered. The answer of the first user is
+     * stored until the other one answers; the second answer moves the question from pending to answered for both
+     * users and increments the counters in one step under the lock stripe of the relation, so two users answering at
+     * once are scored exactly once and readers never see the counters or the questions half-changed.
+     * @param relationId Id of the relation the user belongs to
+     * @param userId Id of the user who answered
+     * @param questionId Id of the question
+     * @param answer Users answer to the question
+     * @return ANSWER_PENDING, ANSWER_MATCHED or ANSWER_MISMATCHED, ANSWER_REPEATED if the user has already answered the
+     * question, ANSWER_INVALID if the relation does not exist, the user does not belong to it or the answer holds a
+     * separator of the relation records
+     */
+    public int answerQuestion(int relationId, int userId, int questionId, String answer) {
+        if (!RecordFields.isValidAnswer(answer)) {
+            return ANSWER_INVALID;
+        }
+        CompletableFuture<Boolean> written;
+        int result;
+        StampedLock lock = locks.stripe(relationId);
+        long stamp = lock.writeLock();
+        try {
+            Relation relation = relations.getById(relationId);
+            if (relation == null || (relation.getUser1Id() != userId && relation.getUser2Id() != userId)) {
+                return ANSWER_INVALID;
+            }
+            boolean first = relation.getUser1Id() == userId;
+            SortedIntSet answered = first ? relation.getQuestionsAnsweredByUser1() : relation.getQuestionsAnsweredByUser2();
+            SortedIntStringMap pending = first ? relation.getQuestionsUnansweredByUser1() : relation.getQuestionsUnansweredByUser2();
+            SortedIntStringMap other = first ? relation.getQuestionsUnansweredByUser2() : relation.getQuestionsUnansweredByUser1();
+            if (answered.contains(questionId) || pending.containsKey(questionId)) {
+                return ANSWER_REPEATED;
+            }
+            String otherAnswer = other.get(questionId);
+            if (otherAnswer == null) {
+                applyAnswer(relation, userId, questionId, answer);
+                written = journal.append(RelationJournal.answer(relationId, userId, questionId, answer));
+                result = ANSWER_PENDING;
+            } else {
+                boolean matched = otherAnswer.equals(answer);
+                relation.scoreQuestion(questionId, matched);
+                written = journal.append(RelationJournal.scored(relation, questionId));
+                result = matched ? ANSWER_MATCHED : ANSWER_MISMATCHED;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(written);
+        return result;
+    }
+
+    /**
+     * Sets the counters of a relation and records them in the journal.
+     * @param relationId Id of the relation to update
+     * @param totalQuestionsAnswered The total number of questions answered by both users
+     * @param correctQuestionsAnswered The total number of questions answered correctly by both users
+     * @return true if the counters are set, false if the relation does not exist
+     */
+    public boolean updateCounters(int relationId, int totalQuestionsAnswered, int correctQuestionsAnswered) {
+        CompletableFuture<Boolean> written;
+        StampedLock lock = locks.stripe(relationId);
+        long stamp = lock.writeLock();
+        try {
+            Relation relation = relations.getById(relationId);
+            if (relation == null) {
+                return false;
+            }
+            relation.setTotalQuestionsAnswered(totalQuestionsAnswered);
+            relation.setCorrectQuestionsAnswered(correctQuestionsAnswered);
+            written = journal.append(RelationJournal.counters(relation));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(written);
+        return true;
+    }
+
+    /**
+     * Copies a relation with an optimistic read of its lock stripe, so readers neither block nor are blocked by
+     * changes to other relations, and never see a relation half-changed.
+     * @param relation The live relation, or null
+     * @return A copy of the relation, null if the relation is null
+     */
+    private Relation copyOf(Relation relation) {
+        return relation == null ? null : locks.read(relation.getId(), relation::copy);
+    }
+
+    /**
+     * Copies a list of relations, see `copyOf(Relation)`.
+     * @param live The live relations
+     * @return Copies of the relations
+     */
+    private List<Relation> copyOf(List<Relation> live) {
+        List<Relation> copies = new ArrayList<>(live.size());
+        for (Relation relation : live) {
+            copies.add(copyOf(relation));
+        }
+        return copies;
+    }
+
+    /**
+     * Waits outside the lock for a journal record to be written, so concurrent changes share a commit. A record that
+     * cannot be written is reported; the change stays in memory and reaches the relation file on the next `update()`.
+     * @param written The future of the journal record
+     */
+    private void awaitJournal(CompletableFuture<Boolean> written) {
+        if (!written.join()) {
+            System.out.println("Failed to append a record to the relation journal.");
+        }
+    }
+
+    /**
+     * Stores the answer of a user of a relation to a question in memory. A question the user has already answered keeps
+     * its place among the answered questions, so replaying an old answer never makes it pending again.
+     * @param relation Relation the user belongs to
+     * @param userId Id of the user who answered
+     * @param questionId Id of the question
+     * @param answer Users answer to the question
+     * @return true if the answer is stored, false if the user does not belong to the relation or has already answered
+     * the question
+     */
+    private boolean applyAnswer(Relation relation, int userId, int questionId, String answer) {
+        if (relation.getUser1Id() == userId && !relation.getQuestionsAnsweredByUser1().contains(questionId)) {
+            relation.addQuestionAnsweredByUser1(questionId, answer);
+        } else if (relation.getUser2Id() == userId && !relation.getQuestionsAnsweredByUser2().contains(questionId)) {
+            relation.addQuestionAnsweredByUser2(questionId, answer);
+        } else {
             return false;
         }
-        String str = (relations.getLast().getId()+1) + ":" + id1 + ":" + id2 + ":0:0:;:;:;:;";
-        relations.add(new Relation(str));
-        appendToFile(relations.getLast());
         return true;
     }
 
+    /**
+     * Applies a journal record to the relations in memory. Records are idempotent: a relation that already exists is
+     * not created again, answers and counters are set rather than added, and an answer to a question the user has
+     * already answered is skipped.
+     * @param record Journal record
+     * @throws RuntimeException If the record is malformed
+     */
+    private void apply(String record) {
+        String[] parts;
+        Relation relation;
+        switch (record.charAt(0)) {
+            case RelationJournal.CREATED:
+                relation = new Relation(record.substring(2));
+                if (relations.getById(relation.getId()) == null) {
+                    relations.add(relation);
+                    maxId.accumulateAndGet(relation.getId(), Math::max);
+                }
+                break;
+            case RelationJournal.ANSWER:
+                parts = record.split(":", 5);
+                relation = relations.getById(Integer.parseInt(parts[1]));
+                if (relation != null) {
+                    applyAnswer(relation, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), parts[4]);
+                }
+                break;
+            case RelationJournal.COUNTERS:
+                parts = record.split(":");
+                relation = relations.getById(Integer.parseInt(parts[1]));
+                if (relation != null) {
+                    relation.setTotalQuestionsAnswered(Integer.parseInt(parts[2]));
+                    relation.setCorrectQuestionsAnswered(Integer.parseInt(parts[3]));
+                }
+                break;
+            case RelationJournal.SCORED:
+                parts = record.split(":");
+                relation = relations.getById(Integer.parseInt(parts[1]));
+                if (relation != null) {
+                    relation.setQuestionAnswered(Integer.parseInt(parts[2]));
+                    relation.setTotalQuestionsAnswered(Integer.parseInt(parts[3]));
+                    relation.setCorrectQuestionsAnswered(Integer.parseInt(parts[4]));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown relation journal record: " + record);
+        }
+    }
+
+    /**
+     * Picks a random question a user of a relation has neither answered nor has a pending answer to, every such
+     * question being equally likely. The relation is read in place under a read lock of its stripe instead of being
+     * copied. A few random picks are tried first; if they all hit seen questions, the user has seen most of them and the
+     * question is picked by rank from the tracker of the questions the user has not seen, which the relation creates
+     * then and keeps up to date afterwards. Later picks for the user go to the tracker straight away, so once most
+     * questions are seen a pick no longer depends on how many are.
+     * @param relationId Id of the relation
+     * @param userId Id of the user
+     * @param catalogue The questions to pick from
+     * @return The id of the question, NO_QUESTIONS_LEFT if the user has seen every question or NOT_IN_RELATION if the
+     * relation does not exist or the user does not belong to it
+     */
+    public int getRandomUnseenQuestionId(int relationId, int userId, QuestionCatalogue catalogue) {
+        StampedLock lock = locks.stripe(relationId);
+        long stamp = lock.readLock();
+        try {
+            Relation relation = relations.getById(relationId);
+            SortedIntSet answered = relation == null ? null : relation.getQuestionsAnsweredBy(userId);
+            if (answered == null) {
+                return NOT_IN_RELATION;
+            }
+            SortedIntStringMap pending = relation.getQuestionsUnansweredBy(userId);
+            UnseenIds unseen = relation.getUnseenIds(userId);
+            // A user with a tracker has seen most questions, so random picks would mostly miss
+            if (unseen == null) {
+                int id = catalogue.sampleIdExcept(answered, pending);
+                if (id >= 0) {
+                    return id;
+                }
+            }
+            if (unseen == null || !catalogue.isCurrent(unseen)) {
+                // Readers creating it at once each publish an equal tracker; writers are kept out by the read lock
+                unseen = catalogue.getUnseenIds(answered, pending);
+                relation.setUnseenIds(userId, unseen);
+            }
+            int left = unseen.size();
+            return left == 0 ? NO_QUESTIONS_LEFT : unseen.select(ThreadLocalRandom.current().nextInt(left));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
     /**
      * Gets record from the database by id.
      * @uses DatabaseHandler
      * @param id
-     * @return record Relation relation, null if not found
+     * @return record Relation relation, a copy, null if not found
      */
     @Override
     public Relation getById(int id) {
-        for (Relation relation : relations) {
-            if (relation.getId() == id) {
-                return relation;
-            }
-        }
-        return null;
+        return copyOf(relations.getById(id));
     }
 
     /**
      * Gets record from the database by name/names.
      * @uses DatabaseHandler
-     * @param str
-     * @return record Relation relation, null if not found
+     * @param str Ids of the two users, in either order
+     * @return record Relation relation, a copy, null if not found
      */
     @Override
     public Relation getByName(String... str) {
-        for (Relation relation : relations) {
-            if (relation.getUser1Id() == Integer.parseInt(str[0]) && relation.getUser2Id() == Integer.parseInt(str[1])) {
-                return relation;
-            }
+        return copyOf(relations.getByUsers(Integer.parseInt(str[0]), Integer.parseInt(str[1])));
+    }
+
+    /**
+     * Gets the relation between two users.
+     * @param user1Id Id of one user
+     * @param user2Id Id of the other user
+     * @return record Relation relation, a copy, null if the users have no relation
+     */
+    public Relation getByUsers(int user1Id, int user2Id) {
+        return copyOf(relations.getByUsers(user1Id, user2Id));
+    }
+
+    /**
+     * Gets the relations of a user, in time proportional to their number.
+     * @param userId Id of the user
+     * @return list of copies of the relations of the user
+     */
+    public List<Relation> getByUser(int userId) {
+        return copyOf(relations.getByUser(userId));
+    }
+
+    /**
+     * Gets a page of the relations of a user, copying only the relations of the page. Relations of a user are only
+     * ever appended, so a position stays valid between pages.
+     * @param userId Id of the user
+     * @param from Position of the first relation of the page among the relations of the user, in insertion order
+     * @param limit Maximum number of relations in the page
+     * @return list of copies of at most limit relations of the user, empty if there are none from the position
+     */
+    public List<Relation> getByUser(int userId, int from, int limit) {
+        List<Relation> live = relations.getByUser(userId);
+        List<Relation> copies = new ArrayList<>(Math.max(Math.min(limit, live.size() - from), 0));
+        for (int i = from; i < live.size() && copies.size() < limit; i++) {
+            copies.add(copyOf(live.get(i)));
         }
-        return null;
+        return copies;
     }
 
     /**
@@ -179,7 +556,18 @@ public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
      */
     @Override
     public void sortById() {
-        Collections.sort(relations, (r1, r2) -> Integer.compare(r1.getId(), r2.getId()));
+        long[] stamps = locks.lockAll();
+        try {
+            List<Relation> sorted = relations.getAll();
+            Collections.sort(sorted, (r1, r2) -> Integer.compare(r1.getId(), r2.getId()));
+            RelationIndex index = new RelationIndex();
+            for (Relation relation : sorted) {
+                index.add(relation);
+            }
+            relations = index;
+        } finally {
+            locks.unlockAll(stamps);
+        }
     }
 
     /**
@@ -189,40 +577,109 @@ public class RelationDatabaseHandler implements DatabaseHandler<Relation> {
      */
     @Override
     public boolean update() {
-        try (FileWriter writer = new FileWriter(filename, false)) {
-            LinkedList<Relation> relations_c = (LinkedList<Relation>) relations.clone();
-            while(!relations_c.isEmpty()) {
-                writer.write(relations_c.removeFirst().toString());
-                writer.write("\n");
+        synchronized (snapshotLock) {
+            List<String> records = new ArrayList<>();
+            CompletableFuture<Integer> rotated;
+            long[] stamps = locks.lockAll();
+            try {
+                for (Relation relation : relations.getAll()) {
+                    records.add(relation.toString());
+                }
+                // Changes made from now on go to a new journal, the archived one is contained in the snapshot
+                rotated = journal.rotate();
+            } finally {
+                locks.unlockAll(stamps);
             }
-            return true;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            // The snapshot is written outside the lock, so changes are not blocked while it is written
+            Path temporary = Paths.get(filename + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (String record : records) {
+                    writer.write(record);
+                    writer.write("\n");
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(false);
+                Files.move(temporary, Paths.get(filename), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            // Archives are only deleted once the snapshot containing them is in place
+            int archive = rotated.join();
+            return archive >= 0 && journal.deleteArchives(archive);
         }
     }
 
+    /**
+     * Gets the file the relations are stored in.
+     * @uses Compactable
+     * @return The filename of the relation file
+     */
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Gets the size of the journal, the changes not yet contained in the relation file.
+     * @uses Compactable
+     * @return The size of the journal and its archives in bytes
+     */
+    @Override
+    public long getLogSize() {
+        return journal.size();
+    }
+
+    /**
+     * Writes a snapshot of the relations to the relation file and drops the journal it contains.
+     * @uses Compactable
+     * @return true if the relations are compacted, false if an error occurs
+     */
+    @Override
+    public boolean compact() {
+        return update();
+    }
+
     /**
      * Gets all records from the database.
      * @uses DatabaseHandler
-     * @return LinkedList<Relation> all
+     * @return List<Relation> all, copies in insertion order
      */
     @Override
-    public LinkedList<Relation> getAll() {
-        return relations;
+    public List<Relation> getAll() {
+        return copyOf(relations.getAll());
+    }
+
+    /**
+     * Gets a page of all records, in the order of their ids, copying only the relations of the page instead of taking
+     * a snapshot of the whole database.
+     * @param fromId Lowest id of a relation of the page
+     * @param limit Maximum number of relations in the page
+     * @return list of copies of at most limit relations with ids from fromId, empty if there are none
+     */
+    public List<Relation> getAll(int fromId, int limit) {
+        List<Relation> copies = new ArrayList<>(Math.min(limit, relations.size()));
+        int lastId = maxId.get();
+        for (int id = Math.max(fromId, 0); id <= lastId && copies.size() < limit; id++) {
+            Relation relation = relations.getById(id);
+            if (relation != null) {
+                copies.add(copyOf(relation));
+            }
+        }
+        return copies;
     }
 
     /**
-     * Check if the relation between two users exists
+     * Check if the relation between two users exists, in either order
      * @param user1Id Id of the first user
      * @param user2Id Id of the second user
      * @return true if the relation exists, false if not
      */
     public boolean checkIfExists(int user1Id, int user2Id) {
-        for (Relation relation : relations) {
-            if (relation.getUser1Id() == user1Id && relation.getUser2Id() == user2Id) {
-                return true;
-            }
-        }
-        return false;
+        return relations.getByUsers(user1Id, user2Id) != null;
     }
 }
@@ -0,0 +1,128 @@
+package server.database.relationDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The `RelationIndex` class indexes relations by id, by the unordered pair of their users and by user, so a relation
+ * is found in constant time and the relations of a user in time proportional to their number. All indexes are
+ * concurrent, so lookups never lock while relations are added; the relations of a user are kept in an
+ * `AppendOnlyList`, so adding one costs constant time however many relations the user has.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+class RelationIndex {
+    /**
+     * The relations in insertion order.
+     */
+    private final Queue<Relation> relations;
+    /**
+     * The relations by id.
+     */
+    private final ConcurrentHashMap<Integer, Relation> relationsById;
+    /**
+     * The relations by the unordered pair of their users, see `pairKey`.
+     */
+    private final ConcurrentHashMap<Long, Relation> relationsByPair;
+    /**
+     * The relations of every user.
+     */
+    private final ConcurrentHashMap<Integer, AppendOnlyList<Relation>> relationsByUser;
+
+    /**
+     * Constructs an empty `RelationIndex`.
+     */
+    RelationIndex() {
+        this.relations = new ConcurrentLinkedQueue<>();
+        this.relationsById = new ConcurrentHashMap<>();
+        this.relationsByPair = new ConcurrentHashMap<>();
+        this.relationsByUser = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a relation to all indexes. If its users already have a relation, as can happen in files written before
+     * relations were unordered, the pair index keeps the first one and the new one is only found by id and by user.
+     *
+     * @param relation The relation to add.
+     * @return `true` if the relation is the first between its users, `false` otherwise.
+     */
+    boolean add(Relation relation) {
+        boolean first = relationsByPair.putIfAbsent(pairKey(relation.getUser1Id(), relation.getUser2Id()), relation) == null;
+        relationsById.putIfAbsent(relation.getId(), relation);
+        relationsByUser.computeIfAbsent(relation.getUser1Id(), id -> new AppendOnlyList<>()).append(relation);
+        if (relation.getUser2Id() != relation.getUser1Id()) {
+            relationsByUser.computeIfAbsent(relation.getUser2Id(), id -> new AppendOnlyList<>()).append(relation);
+        }
+        relations.add(relation);
+        return first;
+    }
+
+    /**
+     * Gets a relation by its id.
+     *
+     * @param id The id of the relation.
+     * @return The relation, or `null` if there is no relation with the id.
+     */
+    Relation getById(int id) {
+        return relationsById.get(id);
+    }
+
+    /**
+     * Gets the relation between two users, in either order.
+     *
+     * @param user1Id The id of one user.
+     * @param user2Id The id of the other user.
+     * @return The relation, or `null` if the users have no relation.
+     */
+    Relation getByUsers(int user1Id, int user2Id) {
+        return relationsByPair.get(pairKey(user1Id, user2Id));
+    }
+
+    /**
+     * Gets the relations of a user.
+     *
+     * @param userId The id of the user.
+     * @return An unmodifiable list of the relations of the user in insertion order, which grows as relations are added.
+     */
+    List<Relation> getByUser(int userId) {
+        List<Relation> userRelations = relationsByUser.get(userId);
+        return userRelations == null ? Collections.emptyList() : userRelations;
+    }
+
+    /**
+     * Gets all relations.
+     *
+     * @return A snapshot of all relations, in insertion order.
+     */
+    List<Relation> getAll() {
+        return new ArrayList<>(relations);
+    }
+
+    /**
+     * Gets the number of relations.
+     *
+     * @return The number of relations.
+     */
+    int size() {
+        return relationsById.size();
+    }
+
+    /**
+     * Builds the key of an unordered pair of users, the same for both orders of the users.
+     *
+     * @param user1Id The id of one user.
+     * @param user2Id The id of the other user.
+     * @return The smaller id in the high 32 bits and the larger id in the low 32 bits.
+     */
+    static long pairKey(int user1Id, int user2Id) {
+        int low = Math.min(user1Id, user2Id);
+        int high = Math.max(user1Id, user2Id);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
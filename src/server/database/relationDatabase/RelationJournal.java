@@ -0,0 +1,254 @@
+package server.database.relationDatabase;
+
+import server.database.GroupCommitWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The `RelationJournal` class is an append-only write-ahead journal of relation changes. Every change is one short
+ * line appended to the journal, so the cost of a change does not depend on the number of relations. The journal is
+ * written by a `GroupCommitWriter`, so concurrent changes share one write. At startup the journal is replayed on top
+ * of the relation file. Before the relation file is rewritten the journal is rotated: it is moved to a numbered archive
+ * and changes go to a new journal; once the new relation file is in place the archives it contains are deleted, so
+ * changes made while it is written are never lost. Archives left by a crash are replayed before the journal.
+ * <p>
+ * A crash can leave archives behind that the relation file already contains, so every record is idempotent and
+ * replaying it over a later state is harmless: records hold the values a change produced rather than the change, so
+ * the last record of a relation wins, and an answer to a question the user has already answered is skipped.
+ * <p>
+ * Record formats:
+ * <pre>
+ * C:relation                      a relation was created, in the relation file format
+ * A:id:userId:questionId:answer   a user of relation `id` answered a question
+ * N:id:total:correct              the counters of relation `id` changed
+ * S:id:questionId:total:correct   both users of relation `id` answered a question, which was scored into the counters
+ * </pre>
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+class RelationJournal {
+    /**
+     * The type of a record of a created relation.
+     */
+    static final char CREATED = 'C';
+    /**
+     * The type of a record of an answer added to a relation.
+     */
+    static final char ANSWER = 'A';
+    /**
+     * The type of a record of changed counters of a relation.
+     */
+    static final char COUNTERS = 'N';
+    /**
+     * The type of a record of a question both users of a relation answered and that was scored.
+     */
+    static final char SCORED = 'S';
+
+    /**
+     * The journal file.
+     */
+    private final String filename;
+    /**
+     * The writer of the journal.
+     */
+    private final GroupCommitWriter writer;
+    /**
+     * The number of the last archive of the journal.
+     */
+    private int generation;
+
+    /**
+     * Constructs a `RelationJournal` for the given file.
+     *
+     * @param filename     The journal file.
+     * @param commitWindow The time the writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites  Whether every commit is forced to the storage device.
+     */
+    RelationJournal(String filename, int commitWindow, boolean forceWrites) {
+        this.filename = filename;
+        this.writer = new GroupCommitWriter(filename, commitWindow, forceWrites);
+        for (File archive : archives()) {
+            generation = Math.max(generation, archiveNumber(archive));
+        }
+    }
+
+    /**
+     * Builds the record of a created relation.
+     *
+     * @param relation The created relation.
+     * @return The record.
+     */
+    static String created(Relation relation) {
+        return CREATED + ":" + relation;
+    }
+
+    /**
+     * Builds the record of an answer added to a relation.
+     *
+     * @param relationId The id of the relation.
+     * @param userId     The id of the user who answered.
+     * @param questionId The id of the question.
+     * @param answer     The answer.
+     * @return The record.
+     */
+    static String answer(int relationId, int userId, int questionId, String answer) {
+        return ANSWER + ":" + relationId + ":" + userId + ":" + questionId + ":" + answer;
+    }
+
+    /**
+     * Builds the record of changed counters of a relation.
+     *
+     * @param relation The relation, holding the new counters.
+     * @return The record.
+     */
+    static String counters(Relation relation) {
+        return COUNTERS + ":" + relation.getId() + ":" + relation.getTotalQuestionsAnswered() + ":" + relation.getCorrectQuestionsAnswered();
+    }
+
+    /**
+     * Builds the record of a question both users of a relation answered and that was scored.
+     *
+     * @param relation   The relation, holding the counters after the question was scored.
+     * @param questionId The id of the question.
+     * @return The record.
+     */
+    static String scored(Relation relation, int questionId) {
+        return SCORED + ":" + relation.getId() + ":" + questionId + ":" + relation.getTotalQuestionsAnswered() + ":" + relation.getCorrectQuestionsAnswered();
+    }
+
+    /**
+     * Queues a record to be appended to the journal.
+     *
+     * @param record The record, without the trailing newline.
+     * @return A future completed with `true` once the record is written, or `false` if an error occurs.
+     */
+    CompletableFuture<Boolean> append(String record) {
+        return writer.append(record);
+    }
+
+    /**
+     * Reads the archives of the journal, oldest first, and then the journal, and hands every record to the given
+     * consumer in the order they were appended.
+     *
+     * @param apply The consumer applying a record.
+     * @return The number of records applied.
+     */
+    int replay(Consumer<String> apply) {
+        int applied = 0;
+        for (File archive : archives()) {
+            applied += replay(archive, apply);
+        }
+        return applied + replay(new File(filename), apply);
+    }
+
+    /**
+     * Reads a journal file and hands every record to the given consumer. A record the consumer rejects with an
+     * exception, such as a line torn by a crash, is reported and skipped.
+     *
+     * @param file  The journal file.
+     * @param apply The consumer applying a record.
+     * @return The number of records applied.
+     */
+    private int replay(File file, Consumer<String> apply) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int applied = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    apply.accept(line);
+                    applied++;
+                } catch (RuntimeException e) {
+                    System.out.println("Skipping corrupt relation journal record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return applied;
+    }
+
+    /**
+     * Queues moving the journal to a new archive. Records queued before go to the archive, records queued afterwards
+     * to a new journal. Must be called under the same lock as the snapshot the archive is folded into.
+     *
+     * @return A future completed with the number of the archive once it is written, or -1 if an error occurs.
+     */
+    synchronized CompletableFuture<Integer> rotate() {
+        int archive = ++generation;
+        return writer.rotate(filename + "." + archive).thenApply(rotated -> rotated ? archive : -1);
+    }
+
+    /**
+     * Deletes the archives up to the given number, once everything they recorded is contained in the relation file.
+     *
+     * @param upTo The number of the last archive to delete.
+     * @return `true` if the archives are deleted, `false` if an error occurs.
+     */
+    boolean deleteArchives(int upTo) {
+        boolean deleted = true;
+        for (File archive : archives()) {
+            if (archiveNumber(archive) <= upTo && !archive.delete()) {
+                System.out.println("Failed to delete relation journal archive " + archive);
+                deleted = false;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Gets the size of the journal and its archives on disk.
+     *
+     * @return The number of bytes.
+     */
+    long size() {
+        long size = new File(filename).length();
+        for (File archive : archives()) {
+            size += archive.length();
+        }
+        return size;
+    }
+
+    /**
+     * Lists the archives of the journal, oldest first.
+     *
+     * @return The archives.
+     */
+    private List<File> archives() {
+        File journal = new File(filename).getAbsoluteFile();
+        File[] files = journal.getParentFile().listFiles((dir, name) -> name.startsWith(journal.getName() + ".")
+                && name.substring(journal.getName().length() + 1).matches("[0-9]{1,9}"));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> archives = new ArrayList<>(Arrays.asList(files));
+        archives.sort(Comparator.comparingInt(RelationJournal::archiveNumber));
+        return archives;
+    }
+
+    /**
+     * Gets the number of an archive from its name.
+     *
+     * @param archive The archive.
+     * @return The number of the archive.
+     */
+    private static int archiveNumber(File archive) {
+        String name = archive.getName();
+        return Integer.parseInt(name.substring(name.lastIndexOf('.') + 1));
+    }
+}
@@ -0,0 +1,206 @@
+package server.database.relationDatabase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The `RelationMemoryBenchmark` class measures the heap a relation takes, comparing `Relation` with the former layout
+ * of its questions: a `LinkedList<Integer>` of the questions answered by each user and a `HashMap<Integer, String>` of
+ * the pending answers of each user, parsed as the former `fromString` did. The same generated records are loaded in
+ * both layouts and held until the heap is measured after a garbage collection, so the difference of the used heap
+ * divided by the number of relations is the size of one relation. Pending answers are drawn from a small set of
+ * words, as answers to the same question repeat across relations.
+ * <p>
+ * Usage: `java -Xmx2g server.database.relationDatabase.RelationMemoryBenchmark 100000 200`
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class RelationMemoryBenchmark {
+    /**
+     * The number of pending answers of every user of a relation.
+     */
+    private static final int PENDING_ANSWERS = 5;
+    /**
+     * The words pending answers are drawn from.
+     */
+    private static final String[] ANSWERS = {"Blue Whale", "Elephant", "Giraffe", "Dog", "Sydney", "Canberra", "Gdansk", "4"};
+
+    /**
+     * Prevents instantiation.
+     */
+    private RelationMemoryBenchmark() {}
+
+    /**
+     * Loads the number of relations given as the first argument, each with the number of answered questions per user
+     * given as the second argument, in both layouts and prints the bytes per relation.
+     *
+     * @param args The number of relations and the number of answered questions per user.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: RelationMemoryBenchmark <relations> <questions per relation>");
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[0]);
+        int questions = Integer.parseInt(args[1]);
+        String[] records = generate(count, questions);
+        Object[] held = new Object[count];
+
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            held[i] = BoxedRelation.parse(records[i]);
+        }
+        double boxed = (usedHeap() - before) / (double) count;
+        Arrays.fill(held, null);
+
+        before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            held[i] = new Relation(records[i]);
+        }
+        double compact = (usedHeap() - before) / (double) count;
+
+        System.out.printf("%d relations, %d answered and %d pending questions per user%n", count, questions, PENDING_ANSWERS);
+        System.out.printf("  LinkedList/HashMap %10.1f bytes/relation%n", boxed);
+        System.out.printf("  Relation           %10.1f bytes/relation (%.1fx smaller)%n", compact, boxed / compact);
+        if (held[count - 1] == null) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Generates relation records in the database format with random question ids and answers.
+     *
+     * @param count     The number of records.
+     * @param questions The number of answered questions per user.
+     * @return The records.
+     */
+    private static String[] generate(int count, int questions) {
+        Random random = new Random(1);
+        String[] records = new String[count];
+        StringBuilder record = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            record.setLength(0);
+            record.append(i).append(':').append(2 * i).append(':').append(2 * i + 1).append(':')
+                    .append(questions).append(':').append(questions / 2).append(':');
+            for (int user = 0; user < 2; user++) {
+                record.append(';');
+                // Ascending ids with random gaps, as questions are drawn from a catalogue many times larger
+                int id = 0;
+                for (int q = 0; q < questions; q++) {
+                    id += 1 + random.nextInt(10);
+                    record.append(id).append(';');
+                }
+                record.append(':');
+            }
+            for (int user = 0; user < 2; user++) {
+                for (int q = 0; q < PENDING_ANSWERS; q++) {
+                    record.append(100000 + q).append('-').append(ANSWERS[random.nextInt(ANSWERS.length)]).append(';');
+                }
+                record.append(user == 0 ? ":" : "");
+            }
+            records[i] = record.toString();
+        }
+        return records;
+    }
+
+    /**
+     * Gets the heap in use after collecting the garbage.
+     *
+     * @return The bytes in use.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A relation in the former layout, with boxed question ids and answers in hash maps.
+     */
+    private static final class BoxedRelation {
+        /**
+         * The ids of the relation and its users and its counters.
+         */
+        private final int id, user1Id, user2Id, totalQuestionsAnswered, correctQuestionsAnswered;
+        /**
+         * The questions answered by each user.
+         */
+        private final LinkedList<Integer> questionsAnsweredByUser1, questionsAnsweredByUser2;
+        /**
+         * The pending answers of each user by question id.
+         */
+        private final Map<Integer, String> questionsUnansweredByUser1, questionsUnansweredByUser2;
+
+        /**
+         * Constructs a `BoxedRelation` from its fields.
+         *
+         * @param parts The fields of the record, split at `:`.
+         */
+        private BoxedRelation(String[] parts) {
+            this.id = Integer.parseInt(parts[0]);
+            this.user1Id = Integer.parseInt(parts[1]);
+            this.user2Id = Integer.parseInt(parts[2]);
+            this.totalQuestionsAnswered = Integer.parseInt(parts[3]);
+            this.correctQuestionsAnswered = Integer.parseInt(parts[4]);
+            this.questionsAnsweredByUser1 = parseIds(parts[5]);
+            this.questionsAnsweredByUser2 = parseIds(parts[6]);
+            this.questionsUnansweredByUser1 = parseAnswers(parts[7]);
+            this.questionsUnansweredByUser2 = parseAnswers(parts[8]);
+        }
+
+        /**
+         * Parses a record as the former `fromString` did.
+         *
+         * @param record The record in the database format.
+         * @return The relation.
+         */
+        static BoxedRelation parse(String record) {
+            return new BoxedRelation(record.split(":", -1));
+        }
+
+        /**
+         * Parses a list of question ids.
+         *
+         * @param field The field, ids separated by `;`.
+         * @return The ids.
+         */
+        private static LinkedList<Integer> parseIds(String field) {
+            LinkedList<Integer> ids = new LinkedList<>();
+            for (String id : field.split(";")) {
+                if (!id.isEmpty()) {
+                    ids.add(Integer.parseInt(id));
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * Parses a list of pending answers.
+         *
+         * @param field The field, `questionId-answer` pairs separated by `;`.
+         * @return The answers by question id.
+         */
+        private static Map<Integer, String> parseAnswers(String field) {
+            Map<Integer, String> answers = new HashMap<>();
+            for (String answer : field.split(";")) {
+                if (!answer.isEmpty()) {
+                    String[] parts = answer.split("-");
+                    answers.put(Integer.parseInt(parts[0]), parts[1]);
+                }
+            }
+            return answers;
+        }
+    }
+}
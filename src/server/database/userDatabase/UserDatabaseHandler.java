@@ -1,15 +1,28 @@
 package server.database.userDatabase;
 
 import server.database.DatabaseHandler;
+import server.database.ParallelFileLoader;
+import server.database.RecordFields;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
 
 /**
- * The `UserDatabaseHandler` class manages a database of users stored in a text file. It provides methods to add, retrieve,
- * and manipulate user records.
+ * The `UserDatabaseHandler` class manages a database of users stored in text files. It provides methods to add, retrieve,
+ * and manipulate user records. Users are split by the hash of their username into shards, each with its own file,
+ * writer, username index and locks, so registrations in different shards never contend and the shards load in
+ * parallel. A single shard is stored in the configured file itself; with more, shard `i` of `users.txt` is stored in
+ * `users_i.txt`. Users are also indexed by id in paged arrays shared by all shards and set without locking, and ids are
+ * allocated atomically. Files are written by a `GroupCommitWriter`, so concurrent registrations share one write, and a
+ * new user is only found once its record is written, so no one logs in as a user a crash would lose.
  *
  * @uses DatabaseHandler
  * @author Tomasz Zbroszczyk
@@ -18,15 +31,29 @@ import java.util.Comparator;
  */
 public class UserDatabaseHandler implements DatabaseHandler<User> {
     /**
-     * The collection of users.
+     * The number of bits of an id selecting its slot in a page of the id index.
      */
-    private final LinkedList<User> users;
+    private static final int ID_PAGE_BITS = 16;
     /**
-     * The ID of the last user in the database.
+     * The mask of the bits of an id selecting its slot in a page of the id index.
      */
-    private int lastUserId;
+    private static final int ID_PAGE_MASK = (1 << ID_PAGE_BITS) - 1;
+
+    /**
+     * The shards, a user is stored in the shard its username hashes to.
+     */
+    private final UserShard[] shards;
     /**
-     * The filename for user storage.
+     * The users by id, in pages of `1 << ID_PAGE_BITS` ids created on first use; the user with id `i` is in slot
+     * `i & ID_PAGE_MASK` of page `i >>> ID_PAGE_BITS`.
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<User>> usersById;
+    /**
+     * The ID of the last user in the database, incremented atomically for every new user.
+     */
+    private final AtomicInteger lastUserId;
+    /**
+     * The filename for user storage, the shard files are named after it.
      */
     private final String filename;
 
@@ -36,18 +63,98 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
      * @param databaseDirectory The directory where the user database is stored.
      */
     public UserDatabaseHandler(String databaseDirectory) {
-        users = new LinkedList<>();
-        lastUserId = 0;
+        this(databaseDirectory, 1, 0, false);
+    }
+
+    /**
+     * Constructs a new `UserDatabaseHandler` with the specified database directory and commit settings.
+     *
+     * @param databaseDirectory The directory where the user database is stored.
+     * @param commitWindow      The time the writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites       Whether every commit is forced to the storage device.
+     */
+    public UserDatabaseHandler(String databaseDirectory, int commitWindow, boolean forceWrites) {
+        this(databaseDirectory, 1, commitWindow, forceWrites);
+    }
+
+    /**
+     * Constructs a new `UserDatabaseHandler` with the specified database directory, number of shards and commit
+     * settings.
+     *
+     * @param databaseDirectory The directory where the user database is stored.
+     * @param shardCount        The number of shards the users are split into, at least 1.
+     * @param commitWindow      The time the writers wait for more records before a commit, in milliseconds.
+     * @param forceWrites       Whether every commit is forced to the storage device.
+     * @throws IllegalStateException If the database is split into shards but its file still holds users, which have to
+     *                               be resharded with `UserReshardTool` first.
+     */
+    public UserDatabaseHandler(String databaseDirectory, int shardCount, int commitWindow, boolean forceWrites) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Number of user shards must be at least 1: " + shardCount);
+        }
+        if (isUnresharded(databaseDirectory, shardCount)) {
+            // Loading only the shards would hand out the ids of the users in the file again
+            throw new IllegalStateException(databaseDirectory + " holds users but user_shards is " + shardCount + ", reshard it with UserReshardTool first.");
+        }
+        shards = new UserShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new UserShard(shardFilename(databaseDirectory, i, shardCount), commitWindow, forceWrites);
+        }
+        usersById = new AtomicReferenceArray<>((Integer.MAX_VALUE >>> ID_PAGE_BITS) + 1);
+        lastUserId = new AtomicInteger();
         filename = databaseDirectory;
         loadFromFile();
     }
 
+    /**
+     * Gets the file shard `index` of a user database split into `count` shards is stored in. A single shard is stored
+     * in the database file itself, otherwise the index is inserted before the extension.
+     *
+     * @param filename The user database file.
+     * @param index    The index of the shard.
+     * @param count    The number of shards.
+     * @return The filename of the shard.
+     */
+    static String shardFilename(String filename, int index, int count) {
+        if (count == 1) {
+            return filename;
+        }
+        int separator = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+        int dot = filename.lastIndexOf('.');
+        if (dot <= separator) {
+            return filename + "_" + index;
+        }
+        return filename.substring(0, dot) + "_" + index + filename.substring(dot);
+    }
+
+    /**
+     * Gets the shard a username hashes to.
+     *
+     * @param username The username.
+     * @param count    The number of shards.
+     * @return The index of the shard.
+     */
+    static int shardIndex(String username, int count) {
+        return Math.floorMod(username.hashCode(), count);
+    }
+
+    /**
+     * Gets the shard of a username.
+     *
+     * @param username The username.
+     * @return The shard.
+     */
+    private UserShard shardOf(String username) {
+        return shards[shardIndex(username, shards.length)];
+    }
+
     /**
      * Adds a new user to the database with the given username and password.
      *
      * @param username The username of the new user.
      * @param password The password of the new user.
-     * @return `true` if the user is successfully added, `false` if the username already exists or an error occurs.
+     * @return `true` if the user is successfully added, `false` if the username already exists, the username or password
+     * is empty or holds a separator of the user records, or an error occurs.
      */
     public boolean add(String username, String password) {
         return add(username + ":" + password);
@@ -56,32 +163,71 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
     /**
      * Adds a new user to the database from the given string.
      * @uses DatabaseHandler
-     * @param str
-     * @return true if the user is successfully added, false if an error occurs
+     * @param str The username and the password, separated by `:`
+     * @return true if the user is successfully added, false if the record is malformed or an error occurs
      */
     @Override
     public boolean add(String str) {
-        // Check if a user with the same username already exists
-        String[] parts = str.split(":");
-        for (User user : users) {
-            if (user.getUsername().equals(parts[0])) {
+        String[] parts = str.split(":", -1);
+        // A field holding a separator would make the record unreadable, and the user would be lost on the next load
+        if (parts.length != 2 || !RecordFields.isValidNonEmpty(parts[0]) || !RecordFields.isValidNonEmpty(parts[1])) {
+            return false;
+        }
+        User newUser;
+        CompletableFuture<Boolean> written;
+        // Registrations of different usernames only contend if their names share a shard and a stripe
+        UserShard shard = shardOf(parts[0]);
+        StampedLock lock = shard.lockFor(parts[0]);
+        long stamp = lock.writeLock();
+        try {
+            // Check if a user with the same username already exists or is being registered
+            if (shard.isTaken(parts[0])) {
                 System.out.println("User with the same username already exists.");
                 return false; // User not added
             }
-        }
 
-        lastUserId++; // Increment the user id for the new user
-        User newUser = new User(lastUserId, parts[0], parts[1]);
-        users.add(newUser);
+            newUser = new User(lastUserId.incrementAndGet(), parts[0], parts[1]);
+            written = shard.register(newUser);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
 
-        // Attempt to append the user to the file
-        if (appendToFile(newUser)) {
-            return true; // User added and stored in the file successfully
-        } else {
+        // Wait for the user to be stored in the file outside the lock, so concurrent registrations share a commit
+        boolean stored = written.join();
+        stamp = lock.writeLock();
+        try {
+            // The user is only found, and can only log in, once its record is durable
+            if (stored) {
+                index(newUser);
+            }
+            shard.completeRegistration(newUser, stored);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (!stored) {
             System.out.println("Failed to append user to the file.");
-            users.removeLast(); // Rollback the user addition
-            return false; // User not added
         }
+        return stored;
+    }
+
+    /**
+     * Adds a user to the id index. If another user already has the same id, the first one stays indexed, as a scan of
+     * the list would find it first. The index is a fixed directory of pages created on first use, each slot set with a
+     * compare-and-set, so registrations never lock to index a user and lookups read it without locking.
+     *
+     * @param user The user to index.
+     */
+    private void index(User user) {
+        int id = user.getId();
+        if (id < 0) {
+            return;
+        }
+        AtomicReferenceArray<User> page = usersById.get(id >>> ID_PAGE_BITS);
+        if (page == null) {
+            usersById.compareAndSet(id >>> ID_PAGE_BITS, null, new AtomicReferenceArray<>(1 << ID_PAGE_BITS));
+            page = usersById.get(id >>> ID_PAGE_BITS);
+        }
+        page.compareAndSet(id & ID_PAGE_MASK, null, user);
     }
 
     /**
@@ -92,12 +238,11 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
      */
     @Override
     public User getById(int id) {
-        for (User user : users) {
-            if (user.getId() == id) {
-                return user;
-            }
+        if (id < 0) {
+            return null;
         }
-        return null; // User not found
+        AtomicReferenceArray<User> page = usersById.get(id >>> ID_PAGE_BITS);
+        return page == null ? null : page.get(id & ID_PAGE_MASK);
     }
 
     /**
@@ -108,12 +253,7 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
      */
     @Override
     public User getByName(String... username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username[0])) {
-                return user;
-            }
-        }
-        return null; // User not found
+        return shardOf(username[0]).getByName(username[0]);
     }
 
     /**
@@ -122,36 +262,80 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
      */
     @Override
     public void sortById() {
-        Collections.sort(users, Comparator.comparing(User::getId));
+        for (UserShard shard : shards) {
+            shard.sortById();
+        }
         update();
     }
 
     /**
-     * Loads users from the user database file into the database.
+     * Checks whether users are still stored in the database file itself while the database is split into shards, which
+     * the shards do not read.
+     *
+     * @param filename   The user database file.
+     * @param shardCount The number of shards.
+     * @return `true` if the file holds users that were not resharded, `false` otherwise.
+     */
+    private static boolean isUnresharded(String filename, int shardCount) {
+        return shardCount > 1 && new File(filename).length() > 0;
+    }
+
+    /**
+     * Loads users from the user database files into the database. The shards are read in parallel; a user found in a
+     * shard its username does not hash to, such as after the number of shards changed without resharding, is moved to
+     * the right shard and the shards are rewritten.
      * @uses DatabaseHandler
-     * @return `true` if the users are loaded successfully, `false` if an error occurs.
+     * @return `true` if the users are loaded successfully, `false` if an error occurs or the database file holds users
+     * that were not resharded.
      */
     @Override
-    public boolean loadFromFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(":");
-                if (parts.length == 3) {
-                    int id = Integer.parseInt(parts[0]);
-                    String username = parts[1];
-                    String password = parts[2];
-                    users.add(new User(id, username, password));
-                    if (id > lastUserId) {
-                        lastUserId = id;
-                    }
+    public synchronized boolean loadFromFile() {
+        long start = System.nanoTime();
+        if (isUnresharded(filename, shards.length)) {
+            System.out.println(filename + " is not read with " + shards.length + " user shards, reshard it with UserReshardTool.");
+            return false;
+        }
+        List<CompletableFuture<List<User>>> reads = new ArrayList<>();
+        for (UserShard shard : shards) {
+            reads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return UserShard.read(shard.getFilename());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
                 }
+            }));
+        }
+        boolean loaded = true;
+        int misplaced = 0;
+        int count = 0;
+        long bytes = 0;
+        for (int i = 0; i < shards.length; i++) {
+            List<User> read;
+            try {
+                read = reads.get(i).join();
+            } catch (CompletionException e) {
+                e.getCause().printStackTrace();
+                loaded = false;
+                continue;
             }
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+            count += read.size();
+            bytes += new File(shards[i].getFilename()).length();
+            for (User user : read) {
+                int index = shardIndex(user.getUsername(), shards.length);
+                if (index != i) {
+                    misplaced++;
+                }
+                shards[index].add(user);
+                index(user);
+                lastUserId.accumulateAndGet(user.getId(), Math::max);
+            }
+        }
+        if (misplaced > 0 && loaded) {
+            System.out.println("Warning: " + misplaced + " users were stored in the wrong shard, moving them.");
+            loaded = update();
         }
+        ParallelFileLoader.report("users", count, bytes, start);
+        return loaded;
     }
 
     /**
@@ -162,15 +346,17 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
      */
     @Override
     public boolean appendToFile(User user) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, true))) {
-            writer.write(user.getId() + ":" + user.getUsername() + ":" + user.getPassword());
-            writer.newLine();
-            writer.flush();
-            return true; // Successful append
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false; // Failed to append
-        }
+        return appendAsync(user).join();
+    }
+
+    /**
+     * Queues a new user to be appended to the end of the user database file.
+     *
+     * @param user The user to append to the file.
+     * @return A future completed with `true` once the user is written, or `false` if an error occurs.
+     */
+    public CompletableFuture<Boolean> appendAsync(User user) {
+        return shardOf(user.getUsername()).append(user);
     }
 
     /**
@@ -186,40 +372,64 @@ public class UserDatabaseHandler implements DatabaseHandler<User> {
     }
 
     /**
-     * Saves the list of users to the user database file.
+     * Saves the list of users to the user database files. The shards are rewritten by their writers in parallel.
      * @uses DatabaseHandler
      * @return `true` if the users are saved successfully, `false` if an error occurs.
      */
     @Override
     public boolean update() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (User user : users) {
-                writer.write(user.getId() + ":" + user.getUsername() + ":" + user.getPassword());
-                writer.newLine();
-            }
-            writer.flush();
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+        List<CompletableFuture<Boolean>> written = new ArrayList<>();
+        for (UserShard shard : shards) {
+            written.add(shard.rewrite());
+        }
+        boolean updated = true;
+        for (CompletableFuture<Boolean> future : written) {
+            updated &= future.join();
         }
+        return updated;
+    }
+
+    /**
+     * Waits until every user added so far is written to its shard file. Users are only ever appended, so the files
+     * then hold every user without being rewritten.
+     *
+     * @return `true` if the users are written, `false` if an error occurs.
+     */
+    public boolean flush() {
+        List<CompletableFuture<Boolean>> written = new ArrayList<>();
+        for (UserShard shard : shards) {
+            written.add(shard.flush());
+        }
+        boolean flushed = true;
+        for (CompletableFuture<Boolean> future : written) {
+            flushed &= future.join();
+        }
+        return flushed;
     }
 
     /**
      * Gets a list of all users stored in the database.
      * @uses DatabaseHandler
-     * @return A linked list of all users.
+     * @return A linked list of all users, a snapshot in insertion order, or ordered by id if the users are sharded.
      */
     @Override
     public LinkedList<User> getAll() {
-        return users;
+        if (shards.length == 1) {
+            return new LinkedList<>(shards[0].getAll());
+        }
+        List<User> all = new ArrayList<>();
+        for (UserShard shard : shards) {
+            all.addAll(shard.getAll());
+        }
+        all.sort(Comparator.comparing(User::getId));
+        return new LinkedList<>(all);
     }
 
     /**
      * Prints the details of all users in the database.
      */
     public void printUsers() {
-        for (User user : users) {
+        for (User user : getAll()) {
             System.out.println(user.toString());
         }
     }
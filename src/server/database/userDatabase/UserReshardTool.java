@@ -0,0 +1,112 @@
+package server.database.userDatabase;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The `UserReshardTool` class splits a user database into a different number of shards. It must be run while the server
+ * is stopped. Every new shard is written to a temporary file first and all of them are moved in place when complete,
+ * then the shard files that are not part of the new layout are deleted.
+ * <p>
+ * Usage: `java server.database.userDatabase.UserReshardTool users.txt 1 4`
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+public class UserReshardTool {
+    /**
+     * Prevents instantiation.
+     */
+    private UserReshardTool() {}
+
+    /**
+     * Reshards the user database given as the first argument from the number of shards given as the second argument into
+     * the number given as the third one.
+     *
+     * @param args The user database file, the current number of shards and the new number of shards.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: UserReshardTool <users.txt> <current shards> <new shards>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        try {
+            int count = reshard(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            System.out.println("Resharded " + count + " users of " + args[0] + " from " + args[1] + " into " + args[2]
+                    + " shards in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reshards a user database. Users are written in the order of their ids.
+     *
+     * @param filename The user database file.
+     * @param oldCount The current number of shards.
+     * @param newCount The new number of shards.
+     * @return The number of users resharded.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static int reshard(String filename, int oldCount, int newCount) throws IOException {
+        if (oldCount < 1 || newCount < 1) {
+            throw new IllegalArgumentException("Number of user shards must be at least 1");
+        }
+        List<User> users = new ArrayList<>();
+        Set<String> oldFiles = new HashSet<>();
+        for (int i = 0; i < oldCount; i++) {
+            String shard = UserDatabaseHandler.shardFilename(filename, i, oldCount);
+            users.addAll(UserShard.read(shard));
+            oldFiles.add(shard);
+        }
+        users.sort(Comparator.comparing(User::getId));
+
+        List<BufferedWriter> writers = new ArrayList<>();
+        List<FileOutputStream> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < newCount; i++) {
+                FileOutputStream stream = new FileOutputStream(UserDatabaseHandler.shardFilename(filename, i, newCount) + ".tmp");
+                streams.add(stream);
+                writers.add(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+            }
+            for (User user : users) {
+                BufferedWriter writer = writers.get(UserDatabaseHandler.shardIndex(user.getUsername(), newCount));
+                writer.write(UserShard.toRecord(user));
+                writer.newLine();
+            }
+            for (int i = 0; i < newCount; i++) {
+                writers.get(i).flush();
+                streams.get(i).getFD().sync();
+            }
+        } finally {
+            for (BufferedWriter writer : writers) {
+                writer.close();
+            }
+        }
+
+        for (int i = 0; i < newCount; i++) {
+            String shard = UserDatabaseHandler.shardFilename(filename, i, newCount);
+            Files.move(Paths.get(shard + ".tmp"), Paths.get(shard), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            oldFiles.remove(shard);
+        }
+        for (String shard : oldFiles) {
+            Files.deleteIfExists(new File(shard).toPath());
+        }
+        return users.size();
+    }
+}
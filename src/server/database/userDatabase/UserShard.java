@@ -0,0 +1,252 @@
+package server.database.userDatabase;
+
+import server.database.GroupCommitWriter;
+import server.database.ParallelFileLoader;
+import server.database.StripedLock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The `UserShard` class holds the users whose usernames hash to one shard of the user database: their own file, writer,
+ * username index and locks. Registrations in different shards share nothing but the id counter of the
+ * `UserDatabaseHandler`, so they never contend.
+ *
+ * @author Tomasz Zbroszczyk
+ * @since 18.10.2026
+ * @version 1.0
+ */
+final class UserShard {
+    /**
+     * The number of stripes of the lock guarding registrations in a shard.
+     */
+    private static final int LOCK_STRIPES = 16;
+
+    /**
+     * The users of the shard in insertion order.
+     */
+    private final ConcurrentLinkedQueue<User> users;
+    /**
+     * The users of the shard by username.
+     */
+    private final ConcurrentHashMap<String, User> usersByName;
+    /**
+     * The users whose registration is being written, by username. Their usernames are taken and they are part of a
+     * snapshot of the shard, but they are not found by username until their record is written.
+     */
+    private final ConcurrentHashMap<String, User> registering;
+    /**
+     * The locks guarding registrations, striped by the hash of the username. A snapshot of the shard locks every
+     * stripe.
+     */
+    private final StripedLock locks;
+    /**
+     * The file of the shard.
+     */
+    private final String filename;
+    /**
+     * The writer of the file of the shard.
+     */
+    private final GroupCommitWriter writer;
+
+    /**
+     * Constructs an empty `UserShard` stored in the given file.
+     *
+     * @param filename     The file of the shard.
+     * @param commitWindow The time the writer waits for more records before a commit, in milliseconds.
+     * @param forceWrites  Whether every commit is forced to the storage device.
+     */
+    UserShard(String filename, int commitWindow, boolean forceWrites) {
+        this.users = new ConcurrentLinkedQueue<>();
+        this.usersByName = new ConcurrentHashMap<>();
+        this.registering = new ConcurrentHashMap<>();
+        this.locks = new StripedLock(LOCK_STRIPES);
+        this.filename = filename;
+        this.writer = new GroupCommitWriter(filename, commitWindow, forceWrites);
+    }
+
+    /**
+     * Reads the users stored in a file, parsing it in parallel.
+     *
+     * @param filename The file.
+     * @return The users in the order they are stored, empty if the file does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    static List<User> read(String filename) throws IOException {
+        return ParallelFileLoader.load(filename, UserShard::parse);
+    }
+
+    /**
+     * Parses a record of a user database file in a single pass.
+     *
+     * @param line The record, `id:username:password`.
+     * @return The user, or `null` if the record does not have three fields.
+     */
+    static User parse(String line) {
+        int first = line.indexOf(':');
+        int second = first < 0 ? -1 : line.indexOf(':', first + 1);
+        if (second < 0 || line.indexOf(':', second + 1) >= 0 || second == first + 1 || second == line.length() - 1) {
+            return null;
+        }
+        return new User(Integer.parseInt(line.substring(0, first)), line.substring(first + 1, second), line.substring(second + 1));
+    }
+
+    /**
+     * Formats a user as a record of a user database file.
+     *
+     * @param user The user.
+     * @return The record.
+     */
+    static String toRecord(User user) {
+        return user.getId() + ":" + user.getUsername() + ":" + user.getPassword();
+    }
+
+    /**
+     * Gets the lock a registration of the given username takes.
+     *
+     * @param username The username.
+     * @return The stripe of the username.
+     */
+    StampedLock lockFor(String username) {
+        return locks.stripe(username.hashCode());
+    }
+
+    /**
+     * Gets a user of the shard by username.
+     *
+     * @param username The username.
+     * @return The user, or `null` if the shard has no user with the username.
+     */
+    User getByName(String username) {
+        return usersByName.get(username);
+    }
+
+    /**
+     * Adds a user to the shard. If the shard already has a user with the same username, the first one stays indexed.
+     *
+     * @param user The user.
+     */
+    void add(User user) {
+        users.add(user);
+        usersByName.putIfAbsent(user.getUsername(), user);
+    }
+
+    /**
+     * Checks whether a username is taken by a user of the shard or by a registration being written. The caller holds
+     * the lock of the username.
+     *
+     * @param username The username.
+     * @return `true` if the username is taken, `false` otherwise.
+     */
+    boolean isTaken(String username) {
+        return usersByName.containsKey(username) || registering.containsKey(username);
+    }
+
+    /**
+     * Starts the registration of a user: its username is taken and its record queued, but the user is not found by
+     * username until `completeRegistration()`. The caller holds the lock of the username.
+     *
+     * @param user The user.
+     * @return A future completed with `true` once the user is written, or `false` if an error occurs.
+     */
+    CompletableFuture<Boolean> register(User user) {
+        registering.put(user.getUsername(), user);
+        return append(user);
+    }
+
+    /**
+     * Completes the registration of a user once its record is written or failed to be: a written user is added to the
+     * shard, a failed one releases its username. The caller holds the lock of the username, so a snapshot of the shard
+     * holds the user exactly once.
+     *
+     * @param user    The user.
+     * @param written Whether the record of the user is written.
+     */
+    void completeRegistration(User user, boolean written) {
+        if (written) {
+            add(user);
+        }
+        registering.remove(user.getUsername(), user);
+    }
+
+    /**
+     * Queues a user to be appended to the file of the shard.
+     *
+     * @param user The user.
+     * @return A future completed with `true` once the user is written, or `false` if an error occurs.
+     */
+    CompletableFuture<Boolean> append(User user) {
+        return writer.append(toRecord(user));
+    }
+
+    /**
+     * Waits until every user of the shard queued so far is written to its file.
+     *
+     * @return A future completed with `true` once the users are written, or `false` if an error occurs.
+     */
+    CompletableFuture<Boolean> flush() {
+        return writer.flush();
+    }
+
+    /**
+     * Queues rewriting the file of the shard from a snapshot of its users.
+     *
+     * @return A future completed with `true` once the file is rewritten, or `false` if an error occurs.
+     */
+    CompletableFuture<Boolean> rewrite() {
+        long[] stamps = locks.lockAll();
+        try {
+            List<String> records = new ArrayList<>();
+            for (User user : users) {
+                records.add(toRecord(user));
+            }
+            // A registration queued before the rewrite is in the snapshot, so the rewrite does not drop its record
+            for (User user : registering.values()) {
+                records.add(toRecord(user));
+            }
+            // Queued under the lock, so users added later are appended after the rewrite
+            return writer.rewrite(records);
+        } finally {
+            locks.unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Sorts the users of the shard by id.
+     */
+    void sortById() {
+        long[] stamps = locks.lockAll();
+        try {
+            List<User> sorted = new ArrayList<>(users);
+            sorted.sort(Comparator.comparing(User::getId));
+            users.clear();
+            users.addAll(sorted);
+        } finally {
+            locks.unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Gets the users of the shard.
+     *
+     * @return A snapshot of the users in insertion order.
+     */
+    List<User> getAll() {
+        return new ArrayList<>(users);
+    }
+
+    /**
+     * Gets the file of the shard.
+     *
+     * @return The filename.
+     */
+    String getFilename() {
+        return filename;
+    }
+}